@@ -0,0 +1,195 @@
+package com.google.code.microlog4android;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.code.microlog4android.appender.Appender;
+import com.google.code.microlog4android.appender.LogCatAppender;
+import com.google.code.microlog4android.format.Formatter;
+import com.google.code.microlog4android.repository.DefaultLoggerRepository;
+
+public class AsyncDispatcherTest {
+	private static final int THREADS = 4;
+	private static final int EVENTS_PER_THREAD = 2000;
+
+	private Logger logger;
+	private CollectingAppender appender;
+
+	@Before
+	public void setup() {
+		logger = DefaultLoggerRepository.INSTANCE.getLogger(AsyncDispatcherTest.class.getName());
+		appender = new CollectingAppender();
+		logger.addAppender(appender);
+	}
+
+	@After
+	public void teardown() {
+		LoggerFactory.stopAsync(1000);
+		DefaultLoggerRepository.INSTANCE.reset();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testZeroBufferSize() {
+		new AsyncDispatcher(0, WaitStrategy.BLOCKING);
+	}
+
+	@Test
+	public void testBufferSizeRoundedUp() {
+		assertEquals(64, new AsyncDispatcher(33, WaitStrategy.YIELDING).getCapacity());
+	}
+
+	@Test
+	public void testAllEventsDrainedInOrderBlocking() throws InterruptedException {
+		assertAllEventsDrainedInOrder(WaitStrategy.BLOCKING);
+	}
+
+	@Test
+	public void testAllEventsDrainedInOrderSleeping() throws InterruptedException {
+		assertAllEventsDrainedInOrder(WaitStrategy.SLEEPING);
+	}
+
+	@Test
+	public void testStoppedDispatcherRejectsEvents() {
+		AsyncDispatcher dispatcher = new AsyncDispatcher(8, WaitStrategy.BLOCKING);
+		dispatcher.start();
+
+		assertTrue(dispatcher.stop(1000));
+		assertFalse(dispatcher.publish(logger, "id", 0, Level.INFO, "message", null));
+	}
+
+	@Test
+	public void testFallBackToSynchronousAfterStop() {
+		LoggerFactory.startAsync(16, WaitStrategy.BLOCKING);
+		assertTrue(LoggerFactory.stopAsync(1000));
+
+		logger.info("synchronous");
+
+		assertEquals(1, appender.size());
+	}
+
+	@Test
+	public void testNoEventsLostWhenStoppedWhileLogging() throws InterruptedException {
+		// A small buffer makes sure that some logging threads wait for space
+		// when the dispatcher is stopped
+		final AsyncDispatcher dispatcher = new AsyncDispatcher(4, WaitStrategy.BLOCKING);
+		dispatcher.start();
+
+		Thread[] threads = new Thread[THREADS];
+		for (int threadNo = 0; threadNo < THREADS; threadNo++) {
+			threads[threadNo] = new Thread() {
+				public void run() {
+					for (int eventNo = 0; eventNo < EVENTS_PER_THREAD; eventNo++) {
+						if (!dispatcher.publish(logger, "id", 0, Level.INFO, "message", null)) {
+							logger.callAppenders(new LogEvent("id", logger.getName(), 0, Level.INFO, "message",
+									null));
+						}
+					}
+				}
+			};
+			threads[threadNo].start();
+		}
+
+		Thread.sleep(5);
+		assertTrue(dispatcher.stop(5000));
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(THREADS * EVENTS_PER_THREAD, appender.size());
+	}
+
+	@Test
+	public void testEventKeepsLoggingThread() {
+		final List<String> threadNames = new ArrayList<String>();
+		logger.addAppender(new LogCatAppender() {
+			public void doLog(LogEvent event) {
+				threadNames.add(event.getThreadName());
+			}
+		});
+		LoggerFactory.startAsync(16, WaitStrategy.BLOCKING);
+
+		logger.info("from the logging thread");
+
+		assertTrue(LoggerFactory.stopAsync(1000));
+		assertEquals(Arrays.asList(Thread.currentThread().getName()), threadNames);
+	}
+
+	private void assertAllEventsDrainedInOrder(WaitStrategy waitStrategy) throws InterruptedException {
+		// A small buffer makes sure that the logging threads have to wait
+		LoggerFactory.startAsync(64, waitStrategy);
+
+		Thread[] threads = new Thread[THREADS];
+		for (int threadNo = 0; threadNo < THREADS; threadNo++) {
+			final int id = threadNo;
+			threads[threadNo] = new Thread() {
+				public void run() {
+					for (int eventNo = 0; eventNo < EVENTS_PER_THREAD; eventNo++) {
+						logger.info(new int[] { id, eventNo });
+					}
+				}
+			};
+			threads[threadNo].start();
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertTrue(LoggerFactory.stopAsync(5000));
+		assertEquals(THREADS * EVENTS_PER_THREAD, appender.size());
+
+		int[] expected = new int[THREADS];
+		for (Object message : appender.messages) {
+			int[] event = (int[]) message;
+			assertEquals(expected[event[0]], event[1]);
+			expected[event[0]]++;
+		}
+	}
+
+	private static class CollectingAppender implements Appender {
+		private final List<Object> messages = new ArrayList<Object>();
+
+		public synchronized void doLog(String clientID, String name, long time, Level level, Object message,
+				Throwable t) {
+			messages.add(message);
+		}
+
+		public synchronized int size() {
+			return messages.size();
+		}
+
+		public void clear() {
+		}
+
+		public void close() throws IOException {
+		}
+
+		public void open() throws IOException {
+		}
+
+		public boolean isLogOpen() {
+			return true;
+		}
+
+		public long getLogSize() {
+			return SIZE_UNDEFINED;
+		}
+
+		public void setFormatter(Formatter formatter) {
+		}
+
+		public Formatter getFormatter() {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package com.google.code.microlog4android;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+
+import com.google.code.microlog4android.format.BinaryDecoder;
+import com.google.code.microlog4android.format.BinaryEncoder;
+import com.google.code.microlog4android.format.PatternFormatter;
+import com.google.code.microlog4android.format.Utf8Encoder;
+
+/**
+ * Compares the size and the speed of the binary encoding with text lines. The
+ * events come from 20 loggers on 4 threads, a few milliseconds apart, with
+ * short messages. The text is formatted with
+ * <code>%r %c{-1} [%P] %t %m</code>, so that it holds the same data as the
+ * binary events, and encoded as UTF-8. Decoding the text means reading it back
+ * as lines, whereas decoding the binary log creates the events.
+ * 
+ * Run it with <code>java BinaryEncodingBenchmark [events per run]</code>.
+ */
+public class BinaryEncodingBenchmark {
+	private static final int RUNS = 5;
+
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+	public static void main(String[] args) throws IOException {
+		int eventCount = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		LogEvent[] events = createEvents(eventCount);
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%r %c{-1} [%P] %t %m");
+
+		for (int run = 0; run < RUNS; run++) {
+			Utf8Encoder textEncoder = new Utf8Encoder();
+			ByteArrayOutputStream text = new ByteArrayOutputStream(eventCount * 128);
+			long start = System.nanoTime();
+			for (LogEvent event : events) {
+				write(text, textEncoder.encode(event, formatter, LINE_SEPARATOR));
+			}
+			long textEncodeNanos = System.nanoTime() - start;
+
+			BinaryEncoder binaryEncoder = new BinaryEncoder();
+			ByteArrayOutputStream binary = new ByteArrayOutputStream(eventCount * 32);
+			start = System.nanoTime();
+			for (LogEvent event : events) {
+				write(binary, binaryEncoder.encode(event));
+			}
+			long binaryEncodeNanos = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(text
+					.toByteArray()), "UTF-8"));
+			int lines = 0;
+			while (reader.readLine() != null) {
+				lines++;
+			}
+			long textDecodeNanos = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			BinaryDecoder decoder = new BinaryDecoder(new ByteArrayInputStream(binary.toByteArray()));
+			int decoded = 0;
+			while (decoder.read() != null) {
+				decoded++;
+			}
+			long binaryDecodeNanos = System.nanoTime() - start;
+
+			print("text", text.size(), textEncodeNanos, textDecodeNanos, lines);
+			print("binary", binary.size(), binaryEncodeNanos, binaryDecodeNanos, decoded);
+		}
+	}
+
+	private static void print(String name, int size, long encodeNanos, long decodeNanos, int events) {
+		System.out.println(String.format("%-6s %6.1f bytes/event, encode %6.1f ns/event, decode %6.1f ns/event",
+				name, (double) size / events, (double) encodeNanos / events, (double) decodeNanos / events));
+	}
+
+	private static void write(ByteArrayOutputStream output, ByteBuffer bytes) {
+		output.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+	}
+
+	private static LogEvent[] createEvents(int count) {
+		Level[] levels = { Level.DEBUG, Level.INFO, Level.INFO, Level.WARN };
+		LogEvent[] events = new LogEvent[count];
+		long time = 0;
+		long startTime = System.currentTimeMillis();
+
+		for (int index = 0; index < count; index++) {
+			time += index % 7;
+			String loggerName = "com.example.app.module" + (index % 5) + ".Component" + (index % 20);
+			String message = "Processed request " + index + " in " + (index % 97) + " ms";
+			events[index] = new LogEvent(null, loggerName, time, startTime + time, levels[index % levels.length],
+					message, null, "worker-" + (index % 4));
+		}
+
+		return events;
+	}
+}
@@ -0,0 +1,113 @@
+package com.google.code.microlog4android;
+
+/**
+ * Measures how many timestamps per microsecond a number of threads get from
+ * the clock that the <code>Logger</code> uses. The synchronized stop watch
+ * that was used before is included as a reference.
+ * 
+ * Run it with <code>java ClockContentionBenchmark [seconds per run]</code>.
+ */
+public class ClockContentionBenchmark {
+	private static final int[] THREAD_COUNTS = { 1, 2, 4, 8 };
+
+	private interface Clock {
+		long getCurrentTime();
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		long runMillis = args.length > 0 ? Long.parseLong(args[0]) * 1000 : 2000;
+
+		final SynchronizedStopWatch synchronizedStopWatch = new SynchronizedStopWatch();
+		synchronizedStopWatch.start();
+
+		final StopWatch stopWatch = new StopWatch();
+		stopWatch.start();
+
+		final StopWatch coarseStopWatch = new StopWatch();
+		TickingClock tickingClock = new TickingClock(1);
+		tickingClock.start();
+		coarseStopWatch.setTickingClock(tickingClock);
+		coarseStopWatch.start();
+
+		for (int threads : THREAD_COUNTS) {
+			run("synchronized", threads, runMillis, new Clock() {
+				public long getCurrentTime() {
+					return synchronizedStopWatch.getCurrentTime();
+				}
+			});
+			run("nanoTime", threads, runMillis, new Clock() {
+				public long getCurrentTime() {
+					return stopWatch.getCurrentTime();
+				}
+			});
+			run("coarse 1 ms", threads, runMillis, new Clock() {
+				public long getCurrentTime() {
+					return coarseStopWatch.getCurrentTime();
+				}
+			});
+		}
+
+		tickingClock.stop();
+	}
+
+	private static void run(String name, int threadCount, long runMillis, final Clock clock)
+			throws InterruptedException {
+		final long[] counts = new long[threadCount * 8];
+		final long deadline = System.nanoTime() + runMillis * 1000L * 1000L;
+		final long[] sink = new long[threadCount * 8];
+		Thread[] threads = new Thread[threadCount];
+
+		for (int index = 0; index < threadCount; index++) {
+			final int slot = index * 8;
+			threads[index] = new Thread() {
+				public void run() {
+					long count = 0;
+					long sum = 0;
+					while ((count & 0x3FF) != 0 || System.nanoTime() < deadline) {
+						sum += clock.getCurrentTime();
+						count++;
+					}
+					counts[slot] = count;
+					sink[slot] = sum;
+				}
+			};
+		}
+
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		long total = 0;
+		for (long count : counts) {
+			total += count;
+		}
+
+		System.out.println(String.format("%-14s %d threads: %8.1f calls/us", name, threadCount,
+				total / (runMillis * 1000.0)));
+	}
+
+	/**
+	 * The stop watch as it was before, with a synchronized read that also
+	 * writes a shared field.
+	 */
+	private static final class SynchronizedStopWatch {
+		private boolean started;
+		private long startTime;
+		private long currentTime;
+
+		synchronized void start() {
+			startTime = System.currentTimeMillis();
+			started = true;
+		}
+
+		synchronized long getCurrentTime() {
+			if (started) {
+				currentTime = System.currentTimeMillis() - startTime;
+			}
+			return currentTime;
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package com.google.code.microlog4android;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import com.google.code.microlog4android.format.command.DateFormatCommand;
+
+/**
+ * Measures the throughput of <code>%d{ISO8601}</code> with one
+ * <code>DateFormatCommand</code> shared by a number of threads. At more than
+ * 1M events per second nearly all the events fall in a second that has
+ * already been formatted, so only the milliseconds are appended. A shared,
+ * synchronized <code>SimpleDateFormat</code> is included as a reference.
+ * 
+ * Run it with <code>java DateFormatBenchmark [seconds per run]</code>.
+ */
+public class DateFormatBenchmark {
+	private static final int[] THREAD_COUNTS = { 1, 2, 4 };
+
+	private interface DateFormat {
+		void append(StringBuilder builder, LogEvent event);
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		long runMillis = args.length > 0 ? Long.parseLong(args[0]) * 1000 : 2000;
+		final DateFormatCommand command = new DateFormatCommand();
+		command.init(DateFormatCommand.ISO_8601_FORMAT_STRING);
+		final SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss,SSS");
+
+		for (int threads : THREAD_COUNTS) {
+			run("DateFormatCommand", threads, runMillis, new DateFormat() {
+				public void append(StringBuilder builder, LogEvent event) {
+					command.append(builder, event);
+				}
+			});
+			run("SimpleDateFormat", threads, runMillis, new DateFormat() {
+				public void append(StringBuilder builder, LogEvent event) {
+					synchronized (simpleDateFormat) {
+						builder.append(simpleDateFormat.format(new Date()));
+					}
+				}
+			});
+		}
+	}
+
+	private static void run(String name, int threadCount, long runMillis, final DateFormat format)
+			throws InterruptedException {
+		final long[] counts = new long[threadCount * 8];
+		final long deadline = System.nanoTime() + runMillis * 1000L * 1000L;
+		final LogEvent event = new LogEvent(null, DateFormatBenchmark.class.getName(), 0, Level.INFO, "message", null);
+		Thread[] threads = new Thread[threadCount];
+
+		for (int index = 0; index < threadCount; index++) {
+			final int slot = index * 8;
+			threads[index] = new Thread() {
+				public void run() {
+					StringBuilder builder = new StringBuilder(64);
+					long count = 0;
+					while ((count & 0x3FF) != 0 || System.nanoTime() < deadline) {
+						builder.setLength(0);
+						format.append(builder, event);
+						count++;
+					}
+					counts[slot] = count;
+				}
+			};
+		}
+
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		long total = 0;
+		for (long count : counts) {
+			total += count;
+		}
+
+		System.out.println(String.format("%-18s %d threads: %6.2f M events/s", name, threadCount, total
+				/ (runMillis * 1000.0)));
+	}
+}
@@ -0,0 +1,87 @@
+package com.google.code.microlog4android;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+
+import com.google.code.microlog4android.format.PatternFormatter;
+import com.google.code.microlog4android.format.Utf8Encoder;
+
+/**
+ * Measures the time and the allocated bytes per event when an event is
+ * formatted and encoded for a byte oriented appender. The path that the
+ * appenders used before formats the event to a <code>String</code> and calls
+ * <code>getBytes()</code>; the <code>Utf8Encoder</code> appends the event to a
+ * buffer and encodes it into a <code>ByteBuffer</code> that is reused. Both are
+ * measured with an ASCII message and with a message with non-ASCII chars.
+ * 
+ * The allocated bytes are only measured on VMs that support it.
+ * 
+ * Run it with <code>java EncodingBenchmark [events per run]</code>.
+ */
+public class EncodingBenchmark {
+	private static final int RUNS = 5;
+
+	private interface Encode {
+		int encode(LogEvent event);
+	}
+
+	public static void main(String[] args) {
+		int events = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		final PatternFormatter formatter = new PatternFormatter();
+		final Utf8Encoder encoder = new Utf8Encoder();
+		String name = EncodingBenchmark.class.getName();
+		LogEvent asciiEvent = new LogEvent(null, name, 1234, Level.INFO, "Connected to the server in 12 ms", null);
+		LogEvent utf8Event = new LogEvent(null, name, 1234, Level.INFO,
+				"Anslutning till servern tog 12 ms \u2013 \u00e5\u00e4\u00f6", null);
+
+		Encode getBytes = new Encode() {
+			public int encode(LogEvent event) {
+				return formatter.format(event).getBytes().length;
+			}
+		};
+		Encode utf8Encoder = new Encode() {
+			public int encode(LogEvent event) {
+				ByteBuffer buffer = encoder.encode(event, formatter, null);
+				return buffer.remaining();
+			}
+		};
+
+		for (int run = 0; run < RUNS; run++) {
+			measure("getBytes, ASCII", events, asciiEvent, getBytes);
+			measure("Utf8Encoder, ASCII", events, asciiEvent, utf8Encoder);
+			measure("getBytes, UTF-8", events, utf8Event, getBytes);
+			measure("Utf8Encoder, UTF-8", events, utf8Event, utf8Encoder);
+		}
+	}
+
+	private static void measure(String name, int events, LogEvent event, Encode encode) {
+		long allocatedBefore = getAllocatedBytes();
+		long start = System.nanoTime();
+		int sink = 0;
+
+		for (int index = 0; index < events; index++) {
+			sink += encode.encode(event);
+		}
+
+		long nanos = System.nanoTime() - start;
+		long allocated = getAllocatedBytes() - allocatedBefore;
+
+		System.out.println(String.format("%-20s %6.1f ns/event %8s bytes/event (%d)", name, (double) nanos / events,
+				allocated < 0 ? "n/a" : String.format("%.1f", (double) allocated / events), sink));
+	}
+
+	/**
+	 * Get the number of bytes allocated by the current thread, or -1 if the
+	 * VM does not support it.
+	 */
+	private static long getAllocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+
+		return -1;
+	}
+}
@@ -0,0 +1,85 @@
+package com.google.code.microlog4android;
+
+import java.io.IOException;
+
+import com.google.code.microlog4android.appender.Appender;
+import com.google.code.microlog4android.appender.DatagramAppender;
+import com.google.code.microlog4android.appender.FileAppender;
+import com.google.code.microlog4android.appender.LogCatAppender;
+import com.google.code.microlog4android.format.Formatter;
+import com.google.code.microlog4android.format.PatternFormatter;
+import com.google.code.microlog4android.repository.DefaultLoggerRepository;
+
+/**
+ * Measures the logging throughput with a LogCat, a file and a datagram
+ * appender attached to the same logger. It compares one shared formatter,
+ * which formats each event once, with formatters that cannot be shared, which
+ * format each event once per appender as before.
+ * 
+ * Run it with <code>java FanOutBenchmark [events per run]</code>.
+ */
+public class FanOutBenchmark {
+	private static final int RUNS = 5;
+
+	public static void main(String[] args) throws IOException {
+		int events = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+
+		for (int run = 0; run < RUNS; run++) {
+			PatternFormatter shared = new PatternFormatter();
+			measure("format per appender", events, new PlainFormatter(shared), new PlainFormatter(shared),
+					new PlainFormatter(shared));
+			measure("format once", events, shared, shared, shared);
+		}
+	}
+
+	private static void measure(String name, int events, Formatter logCatFormatter, Formatter fileFormatter,
+			Formatter datagramFormatter) throws IOException {
+		DefaultLoggerRepository.INSTANCE.reset();
+		Logger logger = DefaultLoggerRepository.INSTANCE.getLogger(FanOutBenchmark.class.getName());
+
+		Appender logCatAppender = new LogCatAppender();
+		logCatAppender.setFormatter(logCatFormatter);
+		Appender fileAppender = new FileAppender();
+		fileAppender.setFormatter(fileFormatter);
+		DatagramAppender datagramAppender = new DatagramAppender();
+		datagramAppender.setPort(5140);
+		datagramAppender.setFormatter(datagramFormatter);
+
+		logger.addAppender(logCatAppender);
+		logger.addAppender(fileAppender);
+		logger.addAppender(datagramAppender);
+
+		long start = System.nanoTime();
+		for (int index = 0; index < events; index++) {
+			logger.info("Processed request {} in {} ms", index, 42);
+		}
+		long elapsed = System.nanoTime() - start;
+
+		logger.close();
+		System.out.println(String.format("%-20s %8.0f events/s", name, events / (elapsed / 1e9)));
+	}
+
+	/**
+	 * A formatter that is not an <code>EventFormatter</code>, so its output
+	 * is never shared between appenders.
+	 */
+	private static final class PlainFormatter implements Formatter {
+		private final Formatter formatter;
+
+		PlainFormatter(Formatter formatter) {
+			this.formatter = formatter;
+		}
+
+		public String format(String clientID, String name, long time, Level level, Object message, Throwable t) {
+			return formatter.format(clientID, name, time, level, message, t);
+		}
+
+		public String[] getPropertyNames() {
+			return formatter.getPropertyNames();
+		}
+
+		public void setProperty(String name, String value) {
+			formatter.setProperty(name, value);
+		}
+	}
+}
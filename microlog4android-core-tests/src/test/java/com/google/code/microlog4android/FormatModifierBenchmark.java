@@ -0,0 +1,88 @@
+package com.google.code.microlog4android;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import com.google.code.microlog4android.format.PatternFormatter;
+
+/**
+ * Measures the cost of the format modifiers, e.g. <code>%-5P</code>, when
+ * parsing a pattern and when formatting, compared to the same pattern without
+ * modifiers. The columns are padded and truncated in the buffer, so formatting
+ * to a reused buffer should not allocate with or without modifiers.
+ * 
+ * The allocated bytes are only measured on VMs that support it.
+ * 
+ * Run it with <code>java FormatModifierBenchmark [events per run]</code>.
+ */
+public class FormatModifierBenchmark {
+	private static final int RUNS = 5;
+
+	private static final String PLAIN_PATTERN = "%r %P %c{-1} %t %m";
+
+	private static final String MODIFIED_PATTERN = "%8r %-5P %-30.30c{-1} %.-10t %m";
+
+	public static void main(String[] args) {
+		int events = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		LogEvent event = new LogEvent(null, "com.example.app.module.SomeComponentWithALongName", 1234,
+				Level.INFO, "A message that is logged", null);
+		PatternFormatter plainFormatter = new PatternFormatter();
+		plainFormatter.setPattern(PLAIN_PATTERN);
+		PatternFormatter modifiedFormatter = new PatternFormatter();
+		modifiedFormatter.setPattern(MODIFIED_PATTERN);
+		StringBuilder builder = new StringBuilder(256);
+
+		System.out.println(plainFormatter.format(event));
+		System.out.println(modifiedFormatter.format(event));
+		for (int run = 0; run < RUNS; run++) {
+			measureParse("parse plain", events / 10, PLAIN_PATTERN);
+			measureParse("parse with modifiers", events / 10, MODIFIED_PATTERN);
+			measureFormat("format plain", events, event, plainFormatter, builder);
+			measureFormat("format with modifiers", events, event, modifiedFormatter, builder);
+		}
+	}
+
+	private static void measureParse(String name, int patterns, String pattern) {
+		PatternFormatter formatter = new PatternFormatter();
+		long allocatedBefore = getAllocatedBytes();
+		long start = System.nanoTime();
+
+		for (int index = 0; index < patterns; index++) {
+			formatter.setPattern(pattern);
+		}
+
+		print(name, "pattern", patterns, System.nanoTime() - start, getAllocatedBytes() - allocatedBefore);
+	}
+
+	private static void measureFormat(String name, int events, LogEvent event, PatternFormatter formatter,
+			StringBuilder builder) {
+		long allocatedBefore = getAllocatedBytes();
+		long start = System.nanoTime();
+
+		for (int index = 0; index < events; index++) {
+			builder.setLength(0);
+			formatter.format(event, builder);
+		}
+
+		print(name, "event", events, System.nanoTime() - start, getAllocatedBytes() - allocatedBefore);
+	}
+
+	private static void print(String name, String unit, int count, long nanos, long allocated) {
+		System.out.println(String.format("%-22s %7.1f ns/%s %8s bytes/%s", name, (double) nanos / count, unit,
+				allocated < 0 ? "n/a" : String.format("%.1f", (double) allocated / count), unit));
+	}
+
+	/**
+	 * Get the number of bytes allocated by the current thread, or -1 if the
+	 * VM does not support it.
+	 */
+	private static long getAllocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+
+		return -1;
+	}
+}
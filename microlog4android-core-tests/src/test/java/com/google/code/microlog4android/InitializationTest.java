@@ -0,0 +1,131 @@
+package com.google.code.microlog4android;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.code.microlog4android.appender.LogCatAppender;
+import com.google.code.microlog4android.repository.DefaultLoggerRepository;
+
+public class InitializationTest {
+	private Logger logger;
+	private CollectingAppender appender;
+
+	@Before
+	public void setup() {
+		DefaultLoggerRepository.INSTANCE.reset();
+		logger = DefaultLoggerRepository.INSTANCE.getLogger(InitializationTest.class.getName());
+		appender = new CollectingAppender();
+		logger.addAppender(appender);
+	}
+
+	@After
+	public void teardown() {
+		appender.openLatch.countDown();
+		DefaultLoggerRepository.INSTANCE.reset();
+	}
+
+	@Test
+	public void testBeginOnlyOnce() {
+		Initialization initialization = new Initialization(4, 4);
+
+		assertTrue(initialization.begin());
+		assertFalse(initialization.begin());
+		assertFalse(initialization.isComplete());
+
+		initialization.complete();
+		assertTrue(initialization.isComplete());
+	}
+
+	@Test
+	public void testBufferedEventsReplayedInOrder() {
+		Initialization initialization = new Initialization(2, 3);
+		initialization.begin();
+		appender.openLatch.countDown();
+
+		assertTrue(initialization.buffer(logger, new LogEvent(null, logger.getName(), 0, Level.INFO, "first", null)));
+		assertTrue(initialization.buffer(logger, new LogEvent(null, logger.getName(), 0, Level.INFO, "second", null)));
+		assertTrue(initialization.buffer(logger, new LogEvent(null, logger.getName(), 0, Level.INFO, "third", null)));
+		assertTrue(initialization.buffer(logger, new LogEvent(null, logger.getName(), 0, Level.INFO, "dropped", null)));
+		initialization.complete();
+
+		assertEquals(Arrays.asList("first", "second", "third"), appender.getMessages());
+		assertFalse(initialization.buffer(logger, new LogEvent(null, logger.getName(), 0, Level.INFO, "late", null)));
+	}
+
+	@Test
+	public void testFullBufferDoesNotBlockLogging() throws InterruptedException {
+		final Initialization initialization = new Initialization(1, 1);
+		initialization.begin();
+		initialization.buffer(logger, new LogEvent(null, logger.getName(), 0, Level.INFO, "first", null));
+		final AtomicBoolean buffered = new AtomicBoolean();
+		Thread thread = new Thread() {
+			public void run() {
+				buffered.set(initialization.buffer(logger, new LogEvent(null, logger.getName(), 0, Level.INFO,
+						"dropped", null)));
+			}
+		};
+
+		thread.start();
+		thread.join(5000);
+
+		assertFalse(thread.isAlive());
+		assertTrue(buffered.get());
+		appender.openLatch.countDown();
+		initialization.complete();
+		assertEquals(Arrays.asList("first"), appender.getMessages());
+	}
+
+	@Test
+	public void testOpenInBackgroundDoesNotBlockLogging() throws InterruptedException {
+		assertTrue(Logger.openInBackground(logger));
+
+		logger.info("before open");
+		assertFalse(Logger.isOpen());
+		assertTrue(appender.getMessages().isEmpty());
+
+		appender.openLatch.countDown();
+		for (int wait = 0; wait < 100 && !Logger.isOpen(); wait++) {
+			Thread.sleep(10);
+		}
+		logger.info("after open");
+
+		assertEquals(1, appender.openCount);
+		assertEquals(Arrays.asList("before open", "after open"), appender.getMessages());
+	}
+
+	private static class CollectingAppender extends LogCatAppender {
+		private final List<Object> messages = new ArrayList<Object>();
+		final CountDownLatch openLatch = new CountDownLatch(1);
+		volatile int openCount;
+
+		public synchronized void doLog(LogEvent event) {
+			messages.add(event.getMessage());
+		}
+
+		public synchronized List<Object> getMessages() {
+			return new ArrayList<Object>(messages);
+		}
+
+		public void open() throws IOException {
+			try {
+				openLatch.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			openCount++;
+			super.open();
+		}
+	}
+}
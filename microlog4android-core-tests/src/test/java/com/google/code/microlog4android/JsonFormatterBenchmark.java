@@ -0,0 +1,80 @@
+package com.google.code.microlog4android;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import com.google.code.microlog4android.format.AppendingFormatter;
+import com.google.code.microlog4android.format.JsonFormatter;
+import com.google.code.microlog4android.format.PatternFormatter;
+
+/**
+ * Measures the time and the allocated bytes per event of the
+ * <code>JsonFormatter</code> with its default fields, compared to the
+ * <code>PatternFormatter</code> with a pattern that prints the same values.
+ * Both formatters are used to create a <code>String</code> and to append to a
+ * buffer that is reused. The message contains a quote, so that the escaping
+ * is part of the measurement.
+ * 
+ * The allocated bytes are only measured on VMs that support it.
+ * 
+ * Run it with <code>java JsonFormatterBenchmark [events per run]</code>.
+ */
+public class JsonFormatterBenchmark {
+	private static final int RUNS = 5;
+
+	public static void main(String[] args) {
+		int events = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		LogEvent event = new LogEvent(null, JsonFormatterBenchmark.class.getName(), 1234, Level.INFO,
+				"A message with a \"quoted\" value", null);
+		PatternFormatter patternFormatter = new PatternFormatter();
+		patternFormatter.setPattern("%d{ISO8601} [%P] %c{-1} %t %m %T");
+		JsonFormatter jsonFormatter = new JsonFormatter();
+		StringBuilder builder = new StringBuilder(256);
+
+		System.out.println(jsonFormatter.format(event));
+		for (int run = 0; run < RUNS; run++) {
+			measure("PatternFormatter to String", events, event, patternFormatter, null);
+			measure("PatternFormatter to builder", events, event, patternFormatter, builder);
+			measure("JsonFormatter to String", events, event, jsonFormatter, null);
+			measure("JsonFormatter to builder", events, event, jsonFormatter, builder);
+		}
+	}
+
+	private static void measure(String name, int events, LogEvent event, AppendingFormatter formatter,
+			StringBuilder builder) {
+		long allocatedBefore = getAllocatedBytes();
+		long start = System.nanoTime();
+		int sink = 0;
+
+		for (int index = 0; index < events; index++) {
+			if (builder == null) {
+				sink += formatter.format(event).length();
+			} else {
+				builder.setLength(0);
+				formatter.format(event, builder);
+				sink += builder.length();
+			}
+		}
+
+		long nanos = System.nanoTime() - start;
+		long allocated = getAllocatedBytes() - allocatedBefore;
+
+		System.out.println(String.format("%-28s %6.1f ns/event %8s bytes/event (%d)", name,
+				(double) nanos / events, allocated < 0 ? "n/a" : String.format("%.1f", (double) allocated / events),
+				sink));
+	}
+
+	/**
+	 * Get the number of bytes allocated by the current thread, or -1 if the
+	 * VM does not support it.
+	 */
+	private static long getAllocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+
+		return -1;
+	}
+}
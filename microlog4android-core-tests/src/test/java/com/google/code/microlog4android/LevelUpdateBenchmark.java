@@ -0,0 +1,92 @@
+package com.google.code.microlog4android;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.code.microlog4android.repository.DefaultLoggerRepository;
+
+/**
+ * Measures how long it takes to apply 1000 levels to a new tree of 20000
+ * loggers, with one <code>setLevel()</code> call per logger and with one
+ * <code>setLevels()</code> call. The levels are set on every level of the
+ * tree. Every call to <code>setLevel()</code> updates the effective levels of
+ * its subtree, even the parts that get levels of their own later.
+ * <code>setLevels()</code> sets all the levels first and then updates each
+ * node once.
+ * 
+ * Run it with <code>java LevelUpdateBenchmark [rounds]</code>.
+ */
+public class LevelUpdateBenchmark {
+	private static final int PACKAGE_COUNT = 100;
+
+	private static final int CLASSES_PER_PACKAGE = 100;
+
+	private static final int RULE_COUNT = 1000;
+
+	public static void main(String[] args) {
+		int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		DefaultLoggerRepository repository = DefaultLoggerRepository.INSTANCE;
+
+		// Levels on every level of the tree, from the top down like in a
+		// configuration file: the root package, the modules, the packages and
+		// as many classes as it takes to get to 1000 levels.
+		String[] names = new String[RULE_COUNT];
+		int count = 0;
+		names[count++] = "com.example";
+		for (int moduleIndex = 0; moduleIndex < PACKAGE_COUNT / 10; moduleIndex++) {
+			names[count++] = "com.example.module" + moduleIndex;
+		}
+		for (int packageIndex = 0; packageIndex < PACKAGE_COUNT; packageIndex++) {
+			names[count++] = getPackageName(packageIndex);
+		}
+		for (int index = 0; count < RULE_COUNT; index++) {
+			names[count++] = getPackageName(index % PACKAGE_COUNT) + ".Class" + (index / PACKAGE_COUNT);
+		}
+
+		for (int pass = 0; pass < 2; pass++) {
+			long setLevelNanos = 0;
+			long setLevelsNanos = 0;
+
+			for (int round = 0; round < rounds; round++) {
+				createLoggers(repository);
+				long start = System.nanoTime();
+				for (String name : names) {
+					repository.setLevel(name, Level.WARN);
+				}
+				setLevelNanos += System.nanoTime() - start;
+
+				createLoggers(repository);
+				Map<String, Level> levels = new HashMap<String, Level>(RULE_COUNT * 2);
+				for (String name : names) {
+					levels.put(name, Level.WARN);
+				}
+				start = System.nanoTime();
+				repository.setLevels(levels);
+				setLevelsNanos += System.nanoTime() - start;
+			}
+
+			System.out.println(String.format("%d levels: setLevel %8.2f ms, setLevels %8.2f ms", RULE_COUNT,
+					setLevelNanos / (rounds * 1000000.0), setLevelsNanos / (rounds * 1000000.0)));
+		}
+	}
+
+	/**
+	 * Create the tree of loggers from scratch, with no levels but the level
+	 * of the root logger.
+	 */
+	private static void createLoggers(DefaultLoggerRepository repository) {
+		repository.reset();
+
+		for (int packageIndex = 0; packageIndex < PACKAGE_COUNT; packageIndex++) {
+			for (int classIndex = 0; classIndex < CLASSES_PER_PACKAGE; classIndex++) {
+				String className = getPackageName(packageIndex) + ".Class" + classIndex;
+				repository.getLogger(className);
+				repository.getLogger(className + ".Inner");
+			}
+		}
+	}
+
+	private static String getPackageName(int packageIndex) {
+		return "com.example.module" + (packageIndex / 10) + ".package" + packageIndex;
+	}
+}
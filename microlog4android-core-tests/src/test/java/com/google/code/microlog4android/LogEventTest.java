@@ -0,0 +1,124 @@
+package com.google.code.microlog4android;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import com.google.code.microlog4android.format.PatternFormatter;
+import com.google.code.microlog4android.format.Utf8Encoder;
+import com.google.code.microlog4android.format.command.util.NameAbbreviation;
+
+public class LogEventTest {
+
+	@Test
+	public void testFormatOnceForEquivalentFormatters() {
+		CountingFormatter formatter1 = new CountingFormatter();
+		CountingFormatter formatter2 = new CountingFormatter();
+		LogEvent event = new LogEvent("id", "name", 0, Level.INFO, "message", null);
+
+		String output1 = event.format(formatter1);
+		String output2 = event.format(formatter2);
+
+		assertSame(output1, output2);
+		assertEquals(1, formatter1.count + formatter2.count);
+	}
+
+	@Test
+	public void testFormatAgainForDifferentPattern() {
+		CountingFormatter formatter1 = new CountingFormatter();
+		CountingFormatter formatter2 = new CountingFormatter();
+		formatter2.setPattern("%m");
+		LogEvent event = new LogEvent("id", "name", 0, Level.INFO, "message", null);
+
+		event.format(formatter1);
+		assertEquals("message", event.format(formatter2));
+		assertEquals(2, formatter1.count + formatter2.count);
+	}
+
+	@Test
+	public void testAppendOnceForAppendersSharingAFormatter() {
+		CountingFormatter formatter = new CountingFormatter();
+		formatter.setPattern("%P %m");
+		Utf8Encoder fileEncoder = new Utf8Encoder();
+		Utf8Encoder datagramEncoder = new Utf8Encoder();
+		LogEvent event = new LogEvent("id", "name", 0, Level.INFO, "message", null);
+
+		ByteBuffer fileBytes = fileEncoder.encode(event, formatter, "\n");
+		ByteBuffer datagramBytes = datagramEncoder.encode(event, formatter, null);
+
+		assertEquals(1, formatter.count);
+		assertEquals("INFO message\n", new String(fileBytes.array(), 0, fileBytes.limit()));
+		assertEquals("INFO message", new String(datagramBytes.array(), 0, datagramBytes.limit()));
+		assertEquals("INFO message", event.format(formatter));
+		assertEquals(1, formatter.count);
+	}
+
+	@Test
+	public void testNoStringCreatedForOneAppender() {
+		assumeTrue(getAllocatedBytes() >= 0);
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%P %m");
+		Utf8Encoder encoder = new Utf8Encoder();
+		LogEvent event = new LogEvent();
+		int events = 10000;
+
+		for (int index = 0; index < events; index++) {
+			event.set("id", "name", 0, Level.INFO, "message", null);
+			encoder.encode(event, formatter, "\n");
+		}
+
+		long allocatedBefore = getAllocatedBytes();
+		for (int index = 0; index < events; index++) {
+			event.set("id", "name", 0, Level.INFO, "message", null);
+			encoder.encode(event, formatter, "\n");
+		}
+		long allocated = getAllocatedBytes() - allocatedBefore;
+
+		// A String of the output would be more than 32 bytes per event.
+		assertTrue("Allocated " + allocated + " bytes", allocated < events);
+	}
+
+	@Test
+	public void testCategoryAbbreviatedOncePerLogger() {
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%c{1.} %c{2}");
+		Logger logger = new Logger("com.acme.net.Connection");
+		LogEvent event = new LogEvent();
+		event.set(logger, "id", 0, Level.INFO, "message", null);
+
+		assertEquals("c.a.n.Connection net.Connection", formatter.format(event));
+		assertSame(logger.getAbbreviatedName(NameAbbreviation.packages(1)),
+				logger.getAbbreviatedName(NameAbbreviation.packages(1)));
+		assertSame(logger, event.getLogger());
+	}
+
+	/**
+	 * Get the number of bytes allocated by the current thread, or -1 if the
+	 * VM does not support it.
+	 */
+	private static long getAllocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+
+		return -1;
+	}
+
+	private static class CountingFormatter extends PatternFormatter {
+		int count;
+
+		public void format(LogEvent event, StringBuilder builder) {
+			count++;
+			super.format(event, builder);
+		}
+	}
+}
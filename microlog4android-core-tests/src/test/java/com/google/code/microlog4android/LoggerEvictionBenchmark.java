@@ -0,0 +1,40 @@
+package com.google.code.microlog4android;
+
+import com.google.code.microlog4android.repository.DefaultLoggerRepository;
+
+/**
+ * Creates loggers named after short-lived sessions and prints the number of
+ * nodes and the estimated memory of the repository after each round, with
+ * and without eviction.
+ * 
+ * Run it with <code>java LoggerEvictionBenchmark [rounds]</code>.
+ */
+public class LoggerEvictionBenchmark {
+	private static final int SESSIONS_PER_ROUND = 10000;
+
+	public static void main(String[] args) {
+		int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+		DefaultLoggerRepository repository = DefaultLoggerRepository.INSTANCE;
+
+		run("no eviction", repository, rounds);
+		repository.reset();
+
+		repository.setEvictionEnabled(true);
+		run("eviction", repository, rounds);
+		repository.reset();
+	}
+
+	private static void run(String name, DefaultLoggerRepository repository, int rounds) {
+		int session = 0;
+
+		for (int round = 1; round <= rounds; round++) {
+			for (int index = 0; index < SESSIONS_PER_ROUND; index++) {
+				repository.getLogger("com.example.session.s" + session++ + ".Handler").debug("session");
+			}
+			System.gc();
+
+			System.out.println(String.format("%-12s round %d: %7d nodes, %9d bytes", name, round,
+					repository.getNumberOfNodes(), repository.getEstimatedMemoryUsage()));
+		}
+	}
+}
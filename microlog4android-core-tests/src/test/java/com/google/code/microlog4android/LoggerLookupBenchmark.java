@@ -0,0 +1,136 @@
+package com.google.code.microlog4android;
+
+import java.util.Hashtable;
+
+import com.google.code.microlog4android.repository.DefaultLoggerRepository;
+
+/**
+ * Measures how many logger lookups per microsecond a number of threads get
+ * from the <code>DefaultLoggerRepository</code> once all the loggers exist. A
+ * synchronized <code>Hashtable</code>, which is what the repository used
+ * before, is included as a reference.
+ * 
+ * The last run looks up the dispatch appenders of the existing loggers while
+ * another thread creates new loggers, which must not invalidate the cached
+ * appenders of the existing ones.
+ * 
+ * Run it with <code>java LoggerLookupBenchmark [seconds per run]</code>.
+ */
+public class LoggerLookupBenchmark {
+	private static final int[] THREAD_COUNTS = { 1, 2, 4, 8 };
+
+	private static final int LOGGER_COUNT = 256;
+
+	private static final int NEW_LOGGER_COUNT = 32768;
+
+	private interface Lookup {
+		Object lookup(String name);
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		long runMillis = args.length > 0 ? Long.parseLong(args[0]) * 1000 : 2000;
+
+		final String[] names = new String[LOGGER_COUNT];
+		final Hashtable<String, Logger> hashtable = new Hashtable<String, Logger>();
+		for (int index = 0; index < LOGGER_COUNT; index++) {
+			names[index] = "com.example.module" + (index % 16) + ".Class" + index;
+			hashtable.put(names[index], DefaultLoggerRepository.INSTANCE.getLogger(names[index]));
+		}
+
+		for (int threads : THREAD_COUNTS) {
+			run("synchronized", threads, runMillis, names, new Lookup() {
+				public Object lookup(String name) {
+					synchronized (hashtable) {
+						return hashtable.get(name);
+					}
+				}
+			});
+			run("getLogger", threads, runMillis, names, new Lookup() {
+				public Object lookup(String name) {
+					return DefaultLoggerRepository.INSTANCE.getLogger(name);
+				}
+			});
+			run("getEffectiveLevel", threads, runMillis, names, new Lookup() {
+				public Object lookup(String name) {
+					return DefaultLoggerRepository.INSTANCE.getEffectiveLevel(name);
+				}
+			});
+
+			String[] newNames = new String[NEW_LOGGER_COUNT];
+			for (int index = 0; index < NEW_LOGGER_COUNT; index++) {
+				newNames[index] = "com.example.created" + threads + ".module" + (index % 16) + ".Class" + index;
+			}
+			run("dispatch+create", threads, runMillis, names, newNames, new Lookup() {
+				public Object lookup(String name) {
+					return DefaultLoggerRepository.INSTANCE.getLogger(name).getDispatchAppenders();
+				}
+			});
+		}
+	}
+
+	private static void run(String name, int threadCount, long runMillis, final String[] names, final Lookup lookup)
+			throws InterruptedException {
+		run(name, threadCount, runMillis, names, null, lookup);
+	}
+
+	/**
+	 * Run the lookups. If there are new names, one more thread creates a
+	 * logger for each of them while the lookups run.
+	 */
+	private static void run(String name, int threadCount, long runMillis, final String[] names,
+			final String[] newNames, final Lookup lookup) throws InterruptedException {
+		final long[] counts = new long[threadCount * 8];
+		final long deadline = System.nanoTime() + runMillis * 1000L * 1000L;
+		final int[] sink = new int[threadCount * 8];
+		Thread[] threads = new Thread[threadCount];
+
+		for (int index = 0; index < threadCount; index++) {
+			final int slot = index * 8;
+			threads[index] = new Thread() {
+				public void run() {
+					long count = 0;
+					int sum = 0;
+					while ((count & 0x3FF) != 0 || System.nanoTime() < deadline) {
+						sum += lookup.lookup(names[(int) count & (LOGGER_COUNT - 1)]).hashCode();
+						count++;
+					}
+					counts[slot] = count;
+					sink[slot] = sum;
+				}
+			};
+		}
+
+		final int[] created = new int[1];
+		Thread creator = new Thread() {
+			public void run() {
+				int index = 0;
+				while (index < newNames.length && System.nanoTime() < deadline) {
+					DefaultLoggerRepository.INSTANCE.getLogger(newNames[index++]);
+				}
+				created[0] = index;
+			}
+		};
+
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		if (newNames != null) {
+			creator.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		if (newNames != null) {
+			creator.join();
+		}
+
+		long total = 0;
+		for (long count : counts) {
+			total += count;
+		}
+
+		String createdLoggers = newNames != null ? String.format(", %d loggers created", created[0]) : "";
+		System.out.println(String.format("%-18s %d threads: %8.1f lookups/us%s", name, threadCount,
+				total / (runMillis * 1000.0), createdLoggers));
+	}
+}
@@ -1,18 +1,32 @@
 package com.google.code.microlog4android;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import android.test.AndroidTestCase;
 
 import com.google.code.microlog4android.appender.Appender;
+import com.google.code.microlog4android.appender.FileAppender;
 import com.google.code.microlog4android.appender.LogCatAppender;
+import com.google.code.microlog4android.format.PatternFormatter;
+import com.google.code.microlog4android.repository.ConfigurationGeneration;
 import com.google.code.microlog4android.repository.DefaultLoggerRepository;
 
 public class LoggerTest {
@@ -39,6 +53,22 @@ public class LoggerTest {
 		assertEquals(Level.DEBUG, returnLevel);
 	}
 
+	@Test
+	public void testCachedLevelResolvedAgainAfterGenerationWraparound() {
+		DefaultLoggerRepository.INSTANCE.getLogger(LoggerTest.class.getName());
+		DefaultLoggerRepository.INSTANCE.setLevel(LoggerTest.class.getName(), Level.DEBUG);
+		assertTrue(logger.isDebugEnabled());
+		int generation = ConfigurationGeneration.current();
+
+		// A generation that only differs above the low 24 bits
+		DefaultLoggerRepository.INSTANCE.setLevel(LoggerTest.class.getName(), Level.INFO);
+		while (ConfigurationGeneration.current() != generation + (1 << 24)) {
+			ConfigurationGeneration.increment();
+		}
+
+		assertFalse(logger.isDebugEnabled());
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void testAddAppenderNullInput() {
 		logger.addAppender(null);
@@ -143,4 +173,161 @@ public class LoggerTest {
 		
 		assertEquals(Level.DEBUG, defaultLevelLogger.getEffectiveLevel());
 	}
+
+	@Test
+	public void testAddAndRemoveAppendersWhileLogging() throws InterruptedException {
+		final Logger registeredLogger = DefaultLoggerRepository.INSTANCE.getLogger(LoggerTest.class.getName());
+		registeredLogger.addAppender(mock(Appender.class));
+		final Throwable[] failure = new Throwable[1];
+
+		Thread loggingThread = new Thread() {
+			public void run() {
+				try {
+					for (int i = 0; i < 20000; i++) {
+						registeredLogger.info("concurrent");
+					}
+				} catch (Throwable t) {
+					failure[0] = t;
+				}
+			}
+		};
+		loggingThread.start();
+
+		for (int i = 0; i < 2000; i++) {
+			Appender appender = mock(Appender.class);
+			registeredLogger.addAppender(appender);
+			registeredLogger.removeAppender(appender);
+		}
+		loggingThread.join();
+
+		assertNull(failure[0]);
+		assertEquals(1, registeredLogger.getNumberOfAppenders());
+	}
+
+	@Test
+	public void testLogTemplate() {
+		Logger registeredLogger = DefaultLoggerRepository.INSTANCE.getLogger(LoggerTest.class.getName());
+		Appender mockedAppender = mock(Appender.class);
+		registeredLogger.addAppender(mockedAppender);
+		Exception exception = new Exception();
+
+		registeredLogger.info("{} of {}", "1", "2");
+		registeredLogger.info("failed {}", "request", exception);
+
+		verify(mockedAppender).doLog(anyString(), anyString(), anyLong(), eq(Level.INFO), eq("1 of 2"),
+				(Throwable) isNull());
+		verify(mockedAppender).doLog(anyString(), anyString(), anyLong(), eq(Level.INFO), eq("failed request"),
+				eq(exception));
+	}
+
+	@Test
+	public void testLogPrimitives() {
+		Logger registeredLogger = DefaultLoggerRepository.INSTANCE.getLogger(LoggerTest.class.getName());
+		final List<String> messages = new ArrayList<String>();
+		Appender mockedAppender = mock(Appender.class);
+		doAnswer(new Answer<Object>() {
+			public Object answer(InvocationOnMock invocation) {
+				messages.add(invocation.getArguments()[4].toString());
+				return null;
+			}
+		}).when(mockedAppender).doLog(anyString(), anyString(), anyLong(), any(Level.class), any(),
+				any(Throwable.class));
+		registeredLogger.addAppender(mockedAppender);
+
+		registeredLogger.info("{} bytes", 1024);
+		registeredLogger.info("{} of {}", 3L, 0.5);
+
+		assertEquals(Arrays.asList("1024 bytes", "3 of 0.5"), messages);
+	}
+
+	@Test
+	public void testDisabledLevelDoesNotCallSupplier() {
+		DefaultLoggerRepository.INSTANCE.getLogger(LoggerTest.class.getName());
+		DefaultLoggerRepository.INSTANCE.setLevel(LoggerTest.class.getName(), Level.INFO);
+		final int[] calls = new int[1];
+
+		logger.debug(new MessageSupplier() {
+			public Object getMessage() {
+				calls[0]++;
+				return "expensive";
+			}
+		});
+
+		assertEquals(0, calls[0]);
+	}
+
+	@Test
+	public void testAppendersReopenedAfterShutdown() {
+		Logger registeredLogger = DefaultLoggerRepository.INSTANCE.getLogger(LoggerTest.class.getName());
+		OpenCountingAppender appender = new OpenCountingAppender();
+		registeredLogger.addAppender(appender);
+
+		registeredLogger.info("one");
+		registeredLogger.info("two");
+		DefaultLoggerRepository.INSTANCE.shutdown();
+		registeredLogger.info("three");
+
+		assertEquals(2, appender.opened);
+		assertEquals(Arrays.asList("one", "two", "three"), appender.messages);
+	}
+
+	@Test
+	public void testFileAppenderReopenedAfterShutdown() throws IOException {
+		final File file = File.createTempFile("microlog", ".txt");
+		file.deleteOnExit();
+		FileAppender appender = new FileAppender() {
+			public synchronized File getLogFile() {
+				return file;
+			}
+		};
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%m");
+		appender.setFormatter(formatter);
+		appender.setAppend(true);
+		Logger registeredLogger = DefaultLoggerRepository.INSTANCE.getLogger(LoggerTest.class.getName());
+		registeredLogger.addAppender(appender);
+
+		registeredLogger.info("one");
+		DefaultLoggerRepository.INSTANCE.shutdown();
+		registeredLogger.info("two");
+		DefaultLoggerRepository.INSTANCE.shutdown();
+
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			assertEquals("one", reader.readLine());
+			assertEquals("two", reader.readLine());
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testAppenderAddedAfterOpenOpenedOnce() {
+		Logger registeredLogger = DefaultLoggerRepository.INSTANCE.getLogger(LoggerTest.class.getName());
+		registeredLogger.info("opens the log");
+		OpenCountingAppender appender = new OpenCountingAppender();
+
+		registeredLogger.addAppender(appender);
+		registeredLogger.info("one");
+		registeredLogger.info("two");
+
+		assertEquals(1, appender.opened);
+		assertEquals(Arrays.asList("one", "two"), appender.messages);
+	}
+
+	private static class OpenCountingAppender extends LogCatAppender {
+		int opened;
+		final List<Object> messages = new ArrayList<Object>();
+
+		public void open() throws IOException {
+			opened++;
+			super.open();
+		}
+
+		public void doLog(LogEvent event) {
+			if (isLogOpen()) {
+				messages.add(event.getMessage());
+			}
+		}
+	}
 }
@@ -0,0 +1,159 @@
+package com.google.code.microlog4android;
+
+import java.util.Hashtable;
+
+import com.google.code.microlog4android.repository.LoggerNamesUtil;
+import com.google.code.microlog4android.repository.MicrologRepositoryNode;
+
+/**
+ * Measures the memory of the logger name tree and the time it takes to
+ * resolve logger names in it, for 12 000 loggers. The tree that was used
+ * before, with a <code>Hashtable</code> per node and names split with a
+ * regular expression, is included as a reference. Only the nodes are
+ * measured, not the loggers.
+ * 
+ * Run it with <code>java LoggerTreeBenchmark [rounds]</code>.
+ */
+public class LoggerTreeBenchmark {
+	private static final int MODULES = 20;
+	private static final int PACKAGES_PER_MODULE = 6;
+	private static final int CLASSES_PER_PACKAGE = 100;
+
+	private interface Tree {
+		Object resolve(String name);
+	}
+
+	public static void main(String[] args) {
+		int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+
+		String[] names = new String[MODULES * PACKAGES_PER_MODULE * CLASSES_PER_PACKAGE];
+		int nameNo = 0;
+		for (int module = 0; module < MODULES; module++) {
+			for (int pkg = 0; pkg < PACKAGES_PER_MODULE; pkg++) {
+				for (int cls = 0; cls < CLASSES_PER_PACKAGE; cls++) {
+					names[nameNo++] = "com.example.app.module" + module + ".package" + pkg + ".Class" + cls;
+				}
+			}
+		}
+
+		final LegacyNode legacyRoot = new LegacyNode("");
+		long legacyBytes = measure(names, new Tree() {
+			public Object resolve(String name) {
+				return legacyRoot.resolve(name);
+			}
+		});
+
+		final MicrologRepositoryNode root = new MicrologRepositoryNode("", null, null);
+		long trieBytes = measure(names, new Tree() {
+			public Object resolve(String name) {
+				return resolveInTrie(root, name);
+			}
+		});
+
+		System.out.println(String.format("%d loggers, %d nodes", names.length, countNodes(legacyRoot)));
+		System.out.println(String.format("Hashtable + split: %8d bytes, %6.1f bytes/node", legacyBytes,
+				legacyBytes / (double) countNodes(legacyRoot)));
+		System.out.println(String.format("trie:              %8d bytes, %6.1f bytes/node", trieBytes,
+				trieBytes / (double) countNodes(legacyRoot)));
+
+		for (int warmup = 0; warmup < 2; warmup++) {
+			time("Hashtable + split", rounds, names, new Tree() {
+				public Object resolve(String name) {
+					return legacyRoot.resolve(name);
+				}
+			});
+			time("trie", rounds, names, new Tree() {
+				public Object resolve(String name) {
+					return resolveInTrie(root, name);
+				}
+			});
+		}
+	}
+
+	private static MicrologRepositoryNode resolveInTrie(MicrologRepositoryNode root, String name) {
+		MicrologRepositoryNode currentNode = root;
+		int pathEnd = LoggerNamesUtil.getPathEnd(name);
+		int start = 0;
+
+		while (start < pathEnd) {
+			int end = LoggerNamesUtil.getComponentEnd(name, start, pathEnd);
+			MicrologRepositoryNode child = currentNode.getChildNode(name, start, end);
+
+			if (child == null) {
+				child = currentNode.addChildIfAbsent(new MicrologRepositoryNode(LoggerNamesUtil.getComponent(name,
+						start, end), null, currentNode));
+			}
+			currentNode = child;
+			start = end + 1;
+		}
+
+		return currentNode;
+	}
+
+	private static long measure(String[] names, Tree tree) {
+		long before = usedMemory();
+		for (String name : names) {
+			tree.resolve(name);
+		}
+		return usedMemory() - before;
+	}
+
+	private static void time(String name, int rounds, String[] names, Tree tree) {
+		int sum = 0;
+		long start = System.nanoTime();
+		for (int round = 0; round < rounds; round++) {
+			for (String loggerName : names) {
+				sum += tree.resolve(loggerName).hashCode();
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+
+		System.out.println(String.format("%-18s %6.1f ns/resolve (%d)", name, elapsed / (double) (rounds * names.length),
+				sum & 1));
+	}
+
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int gc = 0; gc < 4; gc++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static int countNodes(LegacyNode node) {
+		int count = 1;
+		for (LegacyNode child : node.children.values()) {
+			count += countNodes(child);
+		}
+		return count;
+	}
+
+	/**
+	 * The node as it was before.
+	 */
+	private static final class LegacyNode {
+		private final String name;
+		private final Hashtable<String, LegacyNode> children = new Hashtable<String, LegacyNode>(17);
+
+		LegacyNode(String name) {
+			this.name = name;
+		}
+
+		LegacyNode resolve(String loggerName) {
+			LegacyNode currentNode = this;
+			for (String pathComponent : loggerName.split("\\.")) {
+				LegacyNode child = currentNode.children.get(pathComponent);
+				if (child == null) {
+					child = new LegacyNode(pathComponent);
+					currentNode.children.put(pathComponent, child);
+				}
+				currentNode = child;
+			}
+			return currentNode;
+		}
+
+		public String toString() {
+			return name;
+		}
+	}
+}
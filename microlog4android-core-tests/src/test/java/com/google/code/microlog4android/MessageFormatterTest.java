@@ -0,0 +1,68 @@
+package com.google.code.microlog4android;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class MessageFormatterTest {
+
+	@Test
+	public void testNullTemplate() {
+		assertNull(MessageFormatter.format(null, new Object[] { "a" }, 1));
+	}
+
+	@Test
+	public void testOneArgument() {
+		assertEquals("Hello World!", MessageFormatter.format("Hello {}!", new Object[] { "World" }, 1));
+	}
+
+	@Test
+	public void testMoreArgumentsThanPlaceholders() {
+		assertEquals("a=1", MessageFormatter.format("a={}", new Object[] { 1, 2 }, 2));
+	}
+
+	@Test
+	public void testMorePlaceholdersThanArguments() {
+		assertEquals("1 {}", MessageFormatter.format("{} {}", new Object[] { 1 }, 1));
+	}
+
+	@Test
+	public void testEscapedPlaceholder() {
+		assertEquals("Set {} is 42", MessageFormatter.format("Set \\{} is {}", new Object[] { 42 }, 1));
+		assertEquals(1, MessageFormatter.countPlaceholders("Set \\{} is {}"));
+	}
+
+	@Test
+	public void testUnmatchedBrace() {
+		assertEquals("{a} b", MessageFormatter.format("{a} {}", new Object[] { "b" }, 1));
+	}
+
+	@Test
+	public void testArrayArgument() {
+		assertEquals("[1, [2, 3]]", MessageFormatter.format("{}", new Object[] { new Object[] { 1,
+				new Object[] { 2, 3 } } }, 1));
+	}
+
+	@Test
+	public void testNestedFormatting() {
+		Object nested = new Object() {
+			public String toString() {
+				return MessageFormatter.format("<{}>", new Object[] { "inner" }, 1);
+			}
+		};
+
+		assertEquals("outer <inner>", MessageFormatter.format("outer {}", new Object[] { nested }, 1));
+	}
+
+	@Test
+	public void testPrimitiveMessage() {
+		PrimitiveMessage message = new PrimitiveMessage();
+		message.set("\\{} {} and {}", 2, 42, false, Double.doubleToRawLongBits(1.5), true);
+
+		StringBuilder builder = new StringBuilder("> ");
+		message.appendTo(builder);
+
+		assertEquals("> {} 42 and 1.5", builder.toString());
+	}
+}
@@ -0,0 +1,111 @@
+package com.google.code.microlog4android;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import com.google.code.microlog4android.format.PatternFormatter;
+import com.google.code.microlog4android.format.command.CategoryFormatCommand;
+import com.google.code.microlog4android.format.command.FormatCommandInterface;
+import com.google.code.microlog4android.format.command.MessageFormatCommand;
+import com.google.code.microlog4android.format.command.NoFormatCommand;
+import com.google.code.microlog4android.format.command.PriorityFormatCommand;
+import com.google.code.microlog4android.format.command.ThrowableFormatCommand;
+import com.google.code.microlog4android.format.command.TimeFormatCommand;
+
+/**
+ * Measures the time and the allocated bytes per event when formatting with the
+ * default pattern. The commands are called the way the formatter did before,
+ * with a new buffer per event and a <code>String</code> per command, and the
+ * <code>PatternFormatter</code> is used both to create a <code>String</code>
+ * and to append to a buffer that is reused.
+ * 
+ * The allocated bytes are only measured on VMs that support it.
+ * 
+ * Run it with <code>java PatternFormatterBenchmark [events per run]</code>.
+ */
+public class PatternFormatterBenchmark {
+	private static final int RUNS = 5;
+
+	private interface Format {
+		int format(LogEvent event);
+	}
+
+	public static void main(String[] args) {
+		int events = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		final LogEvent event = new LogEvent(null, PatternFormatterBenchmark.class.getName(), 1234, Level.INFO,
+				"A message that is logged", null);
+		final PatternFormatter formatter = new PatternFormatter();
+		final StringBuilder builder = new StringBuilder(256);
+		final FormatCommandInterface[] commands = createDefaultCommands();
+
+		for (int run = 0; run < RUNS; run++) {
+			measure("execute per command", events, event, new Format() {
+				public int format(LogEvent event) {
+					StringBuilder buffer = new StringBuilder(64);
+					for (FormatCommandInterface command : commands) {
+						buffer.append(command.execute(event.getClientID(), event.getLoggerName(), event.getTime(),
+								event.getLevel(), event.getMessage(), event.getThrowable()));
+					}
+					return buffer.toString().length();
+				}
+			});
+			measure("format to String", events, event, new Format() {
+				public int format(LogEvent event) {
+					return formatter.format(event).length();
+				}
+			});
+			measure("format to builder", events, event, new Format() {
+				public int format(LogEvent event) {
+					builder.setLength(0);
+					formatter.format(event, builder);
+					return builder.length();
+				}
+			});
+		}
+	}
+
+	private static FormatCommandInterface[] createDefaultCommands() {
+		CategoryFormatCommand category = new CategoryFormatCommand();
+		category.init("1");
+
+		return new FormatCommandInterface[] { new TimeFormatCommand(), createText(" "), category, createText(" ["),
+				new PriorityFormatCommand(), createText("] "), new MessageFormatCommand(), createText(" "),
+				new ThrowableFormatCommand() };
+	}
+
+	private static FormatCommandInterface createText(String text) {
+		NoFormatCommand command = new NoFormatCommand();
+		command.init(text);
+		return command;
+	}
+
+	private static void measure(String name, int events, LogEvent event, Format format) {
+		long allocatedBefore = getAllocatedBytes();
+		long start = System.nanoTime();
+		int sink = 0;
+
+		for (int index = 0; index < events; index++) {
+			sink += format.format(event);
+		}
+
+		long nanos = System.nanoTime() - start;
+		long allocated = getAllocatedBytes() - allocatedBefore;
+
+		System.out.println(String.format("%-20s %6.1f ns/event %8s bytes/event (%d)", name, (double) nanos / events,
+				allocated < 0 ? "n/a" : String.format("%.1f", (double) allocated / events), sink));
+	}
+
+	/**
+	 * Get the number of bytes allocated by the current thread, or -1 if the
+	 * VM does not support it.
+	 */
+	private static long getAllocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+
+		return -1;
+	}
+}
@@ -39,4 +39,19 @@ public class StopWatchTest {
 		
 		assertTrue(finishedTime >= 100);
 	}
+
+	@Test
+	public void testTickingClock() throws InterruptedException {
+		TickingClock tickingClock = new TickingClock(1);
+		tickingClock.start();
+		stopWatch.setTickingClock(tickingClock);
+
+		try {
+			Thread.sleep(50);
+			assertTrue(stopWatch.getCurrentTime() >= 140);
+		} finally {
+			stopWatch.setTickingClock(null);
+			tickingClock.stop();
+		}
+	}
 }
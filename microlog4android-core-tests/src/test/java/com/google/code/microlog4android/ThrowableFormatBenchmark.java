@@ -0,0 +1,89 @@
+package com.google.code.microlog4android;
+
+import com.google.code.microlog4android.format.command.util.ThrowableRenderer;
+
+/**
+ * Measures the cost of rendering the same exception over and over again, as
+ * in an error storm. The exception has a cause and a stack of about 40
+ * frames. The uncached rendering appends each frame like
+ * <code>printStackTrace()</code>; the <code>ThrowableRenderer</code> reuses
+ * the rendered frames and only appends the messages. A renderer with a depth
+ * of 10 frames shows the saving in output size.
+ * 
+ * Run it with <code>java ThrowableFormatBenchmark [iterations]</code>.
+ */
+public class ThrowableFormatBenchmark {
+	private static final String NEWLINE = System.getProperty("line.separator");
+
+	private static final int STACK_DEPTH = 40;
+
+	public static void main(String[] args) {
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		Throwable throwable = createThrowable(STACK_DEPTH);
+		ThrowableRenderer renderer = new ThrowableRenderer();
+		ThrowableRenderer shortRenderer = new ThrowableRenderer(10, new String[0]);
+		StringBuilder builder = new StringBuilder(8192);
+
+		for (int pass = 0; pass < 2; pass++) {
+			long start = System.nanoTime();
+			long chars = 0;
+			for (int index = 0; index < iterations; index++) {
+				builder.setLength(0);
+				appendUncached(builder, throwable);
+				chars += builder.length();
+			}
+			print("uncached", start, iterations, chars);
+
+			start = System.nanoTime();
+			chars = 0;
+			for (int index = 0; index < iterations; index++) {
+				builder.setLength(0);
+				renderer.appendTo(builder, throwable);
+				chars += builder.length();
+			}
+			print("cached", start, iterations, chars);
+
+			start = System.nanoTime();
+			chars = 0;
+			for (int index = 0; index < iterations; index++) {
+				builder.setLength(0);
+				shortRenderer.appendTo(builder, throwable);
+				chars += builder.length();
+			}
+			print("cached, depth 10", start, iterations, chars);
+		}
+	}
+
+	private static void print(String name, long start, int iterations, long chars) {
+		System.out.println(String.format("%-16s %8.0f ns/event %6d chars/event", name, (System.nanoTime() - start)
+				/ (double) iterations, chars / iterations));
+	}
+
+	/**
+	 * Append the throwable and its causes frame by frame, without eliding the
+	 * common frames.
+	 */
+	private static void appendUncached(StringBuilder builder, Throwable throwable) {
+		for (Throwable current = throwable; current != null; current = current.getCause()) {
+			if (current != throwable) {
+				builder.append(NEWLINE);
+				builder.append("Caused by: ");
+			}
+			builder.append(current.toString());
+			StackTraceElement[] stackTrace = current.getStackTrace();
+			for (int index = 0; index < stackTrace.length; index++) {
+				builder.append(NEWLINE);
+				builder.append("\tat ");
+				builder.append(stackTrace[index].toString());
+			}
+		}
+	}
+
+	private static Throwable createThrowable(int depth) {
+		if (depth > 0) {
+			return createThrowable(depth - 1);
+		}
+
+		return new IllegalStateException("Request failed", new java.io.IOException("Connection reset"));
+	}
+}
@@ -0,0 +1,49 @@
+package com.google.code.microlog4android.command.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.google.code.microlog4android.format.command.util.NameAbbreviation;
+
+public class NameAbbreviationTest {
+
+	@Test
+	public void testLastParts() {
+		assertEquals("Logger", NameAbbreviation.lastParts(1).abbreviate("com.google.code.Logger"));
+		assertEquals("code.Logger", NameAbbreviation.lastParts(2).abbreviate("com.google.code.Logger"));
+		assertEquals("com.google.code.Logger", NameAbbreviation.lastParts(-1).abbreviate("com.google.code.Logger"));
+	}
+
+	@Test
+	public void testPackages() {
+		assertEquals("c.g.c.m.Logger", NameAbbreviation.packages(1).abbreviate(
+				"com.google.code.microlog4android.Logger"));
+		assertEquals("co.go.Logger", NameAbbreviation.packages(2).abbreviate("com.google.Logger"));
+		assertEquals("Logger", NameAbbreviation.packages(1).abbreviate("Logger"));
+		assertEquals("c..Logger", NameAbbreviation.packages(1).abbreviate("com..Logger"));
+	}
+
+	@Test
+	public void testAppendTo() {
+		StringBuilder builder = new StringBuilder("> ");
+
+		NameAbbreviation.packages(1).appendTo(builder, "com.google.Logger");
+		builder.append(' ');
+		NameAbbreviation.lastParts(2).appendTo(builder, "com.google.Logger");
+
+		assertEquals("> c.g.Logger google.Logger", builder.toString());
+	}
+
+	@Test
+	public void testEquals() {
+		assertEquals(NameAbbreviation.packages(1), NameAbbreviation.packages(1));
+		assertEquals(NameAbbreviation.lastParts(1).hashCode(), NameAbbreviation.lastParts(1).hashCode());
+		assertEquals(false, NameAbbreviation.packages(1).equals(NameAbbreviation.lastParts(1)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPackagesWithoutLength() {
+		NameAbbreviation.packages(0);
+	}
+}
@@ -0,0 +1,109 @@
+package com.google.code.microlog4android.command.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import com.google.code.microlog4android.format.command.util.ThrowableRenderer;
+
+public class ThrowableRendererTest {
+	private static final String NEWLINE = System.getProperty("line.separator");
+
+	@Test
+	public void testRenderLikePrintStackTrace() {
+		Exception exception = createException("outer");
+
+		assertEquals(printStackTrace(exception), new ThrowableRenderer().render(exception));
+	}
+
+	@Test
+	public void testCachedFramesWithNewMessage() {
+		ThrowableRenderer renderer = new ThrowableRenderer();
+		Exception first = null;
+		Exception second = null;
+		for (int index = 0; index < 2; index++) {
+			Exception exception = createException("message " + index);
+			if (index == 0) {
+				first = exception;
+			} else {
+				second = exception;
+			}
+		}
+
+		assertEquals(printStackTrace(first), renderer.render(first));
+		assertEquals(printStackTrace(second), renderer.render(second));
+	}
+
+	@Test
+	public void testMaxDepth() {
+		Exception exception = createException("outer");
+		int frames = exception.getStackTrace().length;
+		String output = new ThrowableRenderer(1, new String[0]).render(exception);
+		String[] lines = output.split(NEWLINE);
+
+		assertEquals(exception.toString(), lines[0]);
+		assertEquals("\tat " + exception.getStackTrace()[0], lines[1]);
+		assertEquals("\t... " + (frames - 1) + " more", lines[2]);
+		assertEquals("Caused by: " + exception.getCause(), lines[3]);
+	}
+
+	@Test
+	public void testFilteredPackages() {
+		Exception exception = createException("outer");
+		String output = new ThrowableRenderer(ThrowableRenderer.FULL_DEPTH, new String[] { "org.junit" })
+				.render(exception);
+
+		assertTrue(output.indexOf("at org.junit.") == -1);
+		assertTrue(output.indexOf(" filtered" + NEWLINE) != -1);
+	}
+
+	@Test
+	public void testCircularCause() {
+		CircularException exception = new CircularException();
+
+		String output = new ThrowableRenderer().render(exception);
+
+		assertEquals(-1, output.indexOf("Caused by:"));
+	}
+
+	private static Exception createException(String message) {
+		try {
+			throwWrapped(message);
+		} catch (Exception e) {
+			return e;
+		}
+
+		return null;
+	}
+
+	private static void throwWrapped(String message) throws Exception {
+		try {
+			throw new IOException("inner");
+		} catch (IOException e) {
+			throw new Exception(message, e);
+		}
+	}
+
+	private static String printStackTrace(Throwable throwable) {
+		StringWriter writer = new StringWriter();
+		PrintWriter printWriter = new PrintWriter(writer);
+		throwable.printStackTrace(printWriter);
+		printWriter.flush();
+		String output = writer.toString();
+
+		return output.substring(0, output.length() - NEWLINE.length());
+	}
+
+	private static class CircularException extends Exception {
+		private static final long serialVersionUID = 1L;
+
+		public synchronized Throwable getCause() {
+			return this;
+		}
+	}
+}
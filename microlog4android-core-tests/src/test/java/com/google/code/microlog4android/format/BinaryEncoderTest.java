@@ -0,0 +1,127 @@
+package com.google.code.microlog4android.format;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+
+public class BinaryEncoderTest {
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		BinaryEncoder encoder = new BinaryEncoder();
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		write(output, encoder, new LogEvent("client", "com.acme.Main", 1000, 1262304001000L, Level.INFO, "started",
+				null, "main"));
+		write(output, encoder, new LogEvent(null, "com.acme.Main", 990, 1262304000990L, Level.OFF,
+				"caf\u00e9 \ud83d\ude00", null, "worker"));
+		write(output, encoder, new LogEvent(null, null, 5000000000L, 1267304000000L, null, null, null, null));
+
+		BinaryDecoder decoder = new BinaryDecoder(new ByteArrayInputStream(output.toByteArray()));
+		LogEvent event = decoder.read();
+		assertEquals("client", event.getClientID());
+		assertEquals("com.acme.Main", event.getLoggerName());
+		assertEquals(1000, event.getTime());
+		assertEquals(1262304001000L, event.getTimestamp());
+		assertEquals(Level.INFO, event.getLevel());
+		assertEquals("started", event.getMessage());
+		assertEquals("main", event.getThreadName());
+
+		event = decoder.read();
+		assertNull(event.getClientID());
+		assertEquals("com.acme.Main", event.getLoggerName());
+		assertEquals(990, event.getTime());
+		assertEquals(1262304000990L, event.getTimestamp());
+		assertEquals(Level.OFF, event.getLevel());
+		assertEquals("caf\u00e9 \ud83d\ude00", event.getMessage());
+		assertEquals("worker", event.getThreadName());
+
+		event = decoder.read();
+		assertNull(event.getLoggerName());
+		assertEquals(5000000000L, event.getTime());
+		assertEquals(1267304000000L, event.getTimestamp());
+		assertNull(event.getLevel());
+		assertNull(event.getMessage());
+		assertNull(event.getThreadName());
+
+		assertNull(decoder.read());
+	}
+
+	@Test
+	public void testDictionaryMakesRepeatedNamesSmall() {
+		BinaryEncoder encoder = new BinaryEncoder();
+		LogEvent event = new LogEvent(null, "com.acme.net.Connection", 0, 1262304000000L, Level.INFO, "m", null,
+				"main");
+
+		int first = encoder.encode(event).remaining();
+		int second = encoder.encode(event).remaining();
+
+		// flags, level, two times, two references and the message
+		assertEquals(8, second);
+		assertTrue(first > second + "com.acme.net.Connection".length());
+	}
+
+	@Test
+	public void testNewStreamAfterReset() throws IOException {
+		BinaryEncoder encoder = new BinaryEncoder();
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		write(output, encoder, new LogEvent(null, "first", 10, 1262304000010L, Level.INFO, "one", null, "main"));
+		encoder.reset();
+		write(output, encoder, new LogEvent(null, "second", 20, 1262304000020L, Level.WARN, "two", null, "main"));
+
+		BinaryDecoder decoder = new BinaryDecoder(new ByteArrayInputStream(output.toByteArray()));
+		assertEquals("first", decoder.read().getLoggerName());
+		LogEvent event = decoder.read();
+		assertEquals("second", event.getLoggerName());
+		assertEquals(20, event.getTime());
+		assertEquals(1262304000020L, event.getTimestamp());
+		assertNull(decoder.read());
+	}
+
+	@Test
+	public void testPrintAsText() throws IOException {
+		BinaryEncoder encoder = new BinaryEncoder();
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		Exception exception = new IllegalStateException("failed");
+		LogEvent original = new LogEvent(null, "com.acme.Main", 42, Level.ERROR, "error", exception);
+		write(output, encoder, original);
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%d{ISO8601} %r %c [%P] %t %m %T");
+		StringWriter writer = new StringWriter();
+
+		int count = BinaryDecoder.printAsText(new ByteArrayInputStream(output.toByteArray()), formatter, writer);
+
+		assertEquals(1, count);
+		assertEquals(formatter.format(original) + System.getProperty("line.separator"), writer.toString());
+	}
+
+	@Test(expected = EOFException.class)
+	public void testTruncatedEvent() throws IOException {
+		ByteBuffer bytes = new BinaryEncoder().encode(new LogEvent(null, "name", 0, Level.INFO, "message", null));
+		byte[] truncated = new byte[bytes.remaining() - 1];
+		bytes.get(truncated);
+
+		new BinaryDecoder(new ByteArrayInputStream(truncated)).read();
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotBinary() throws IOException {
+		new BinaryDecoder(new ByteArrayInputStream("text".getBytes())).read();
+	}
+
+	private static void write(ByteArrayOutputStream output, BinaryEncoder encoder, LogEvent event) {
+		ByteBuffer bytes = encoder.encode(event);
+		output.write(bytes.array(), bytes.position(), bytes.remaining());
+	}
+}
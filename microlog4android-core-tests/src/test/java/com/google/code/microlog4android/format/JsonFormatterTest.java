@@ -0,0 +1,95 @@
+package com.google.code.microlog4android.format;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+
+public class JsonFormatterTest {
+
+	@Test
+	public void testFields() {
+		JsonFormatter formatter = new JsonFormatter();
+		formatter.setFields("time,level,logger,clientID,message");
+		LogEvent event = new LogEvent("client", "com.acme.Main", 42, Level.INFO, "started", null);
+
+		assertEquals("{\"time\":42,\"level\":\"INFO\",\"logger\":\"com.acme.Main\",\"clientID\":\"client\","
+				+ "\"message\":\"started\"}", formatter.format(event));
+	}
+
+	@Test
+	public void testEscaping() {
+		JsonFormatter formatter = new JsonFormatter();
+		formatter.setFields("logger,message");
+		LogEvent event = new LogEvent(null, "a\"b", 0, Level.INFO, "line 1\n\t\"quoted\" \\ \u0001 \u2028 \u00e5", null);
+
+		assertEquals("{\"logger\":\"a\\\"b\",\"message\":\"line 1\\n\\t\\\"quoted\\\" \\\\ \\u0001 \\u2028 \u00e5\"}",
+				formatter.format(event));
+	}
+
+	@Test
+	public void testMissingValuesAndKeyValues() {
+		JsonFormatter formatter = new JsonFormatter();
+		formatter.setFields("clientID,throwable");
+		formatter.setKeyValues("app=demo, env = test,invalid");
+		LogEvent event = new LogEvent(null, "name", 0, Level.INFO, "message", null);
+
+		assertEquals("{\"app\":\"demo\",\"env\":\"test\"}", formatter.format(event));
+	}
+
+	@Test
+	public void testThrowable() {
+		JsonFormatter formatter = new JsonFormatter();
+		formatter.setFields("throwable");
+		Exception exception = new Exception("failed", new IllegalStateException("cause"));
+		LogEvent event = new LogEvent(null, "name", 0, Level.ERROR, "message", exception);
+
+		String output = formatter.format(event);
+
+		assertTrue(output.startsWith("{\"throwable\":\"java.lang.Exception: failed"));
+		assertTrue(output.indexOf("\\nCaused by: java.lang.IllegalStateException: cause") != -1
+				|| output.indexOf("\\r\\nCaused by: java.lang.IllegalStateException: cause") != -1);
+		assertFalse(output.indexOf('\n') != -1 || output.indexOf('\t') != -1);
+	}
+
+	@Test
+	public void testFormatToBuilderAppends() {
+		JsonFormatter formatter = new JsonFormatter();
+		LogEvent event = new LogEvent(null, "name", 0, Level.WARN, "slow", null);
+		StringBuilder builder = new StringBuilder("> ");
+
+		formatter.format(event, builder);
+
+		assertTrue(builder.toString().startsWith("> {\"timestamp\":"));
+		assertTrue(builder.toString().endsWith(",\"level\":\"WARN\",\"logger\":\"name\",\"thread\":\""
+				+ Thread.currentThread().getName() + "\",\"message\":\"slow\"}"));
+	}
+
+	@Test
+	public void testTimestampOfLogging() throws InterruptedException {
+		JsonFormatter formatter = new JsonFormatter();
+		formatter.setFields("timestamp");
+		LogEvent event = new LogEvent(null, "name", 0, Level.INFO, "message", null);
+		long loggedBefore = System.currentTimeMillis();
+
+		Thread.sleep(20);
+
+		assertTrue(event.getTimestamp() <= loggedBefore);
+		assertEquals("{\"timestamp\":" + event.getTimestamp() + "}", formatter.format(event));
+	}
+
+	@Test
+	public void testIsEquivalent() {
+		JsonFormatter formatter1 = new JsonFormatter();
+		JsonFormatter formatter2 = new JsonFormatter();
+
+		assertTrue(formatter1.isEquivalent(formatter2));
+		formatter2.setProperty(JsonFormatter.FIELDS_PROPERTY, "message");
+		assertFalse(formatter1.isEquivalent(formatter2));
+		assertFalse(formatter1.isEquivalent(new PatternFormatter()));
+	}
+}
@@ -0,0 +1,98 @@
+package com.google.code.microlog4android.format;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+
+public class PatternFormatterTest {
+
+	@Test
+	public void testDefaultPattern() {
+		PatternFormatter formatter = new PatternFormatter();
+		LogEvent event = new LogEvent("client", "com.acme.net.Connection", 42, Level.INFO, "connected", null);
+
+		assertEquals("42 Connection [INFO] connected ", formatter.format(event));
+	}
+
+	@Test
+	public void testFormatToBuilderAppends() {
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%i %c %r %P %t %m%%");
+		LogEvent event = new LogEvent("client", "com.acme.net.Connection", 42, Level.WARN, "slow", null);
+		StringBuilder builder = new StringBuilder("> ");
+
+		formatter.format(event, builder);
+
+		assertEquals("> " + formatter.format(event), builder.toString());
+		assertEquals("> client Connection 42 WARN " + Thread.currentThread().getName() + " slow%",
+				builder.toString());
+	}
+
+	@Test
+	public void testFormatWhileFormatting() {
+		final PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%c: %m");
+		Object message = new Object() {
+			public String toString() {
+				return formatter.format(new LogEvent(null, "Inner", 0, Level.INFO, "inner", null));
+			}
+		};
+
+		String output = formatter.format(new LogEvent(null, "Outer", 0, Level.INFO, message, null));
+
+		assertEquals("Outer: Inner: inner", output);
+	}
+
+	@Test
+	public void testSpecifierOfLaterCommand() {
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%c %T{0}");
+		RuntimeException exception = new RuntimeException("failed");
+		LogEvent event = new LogEvent("client", "com.acme.net.Connection", 42, Level.ERROR, "error", exception);
+
+		assertEquals("Connection " + exception + System.getProperty("line.separator") + "\t... "
+				+ exception.getStackTrace().length + " more", formatter.format(event));
+	}
+
+	@Test
+	public void testPadding() {
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("[%-5P][%5P][%3P]");
+		LogEvent event = new LogEvent(null, "name", 0, Level.INFO, "message", null);
+
+		assertEquals("[INFO ][ INFO][INFO]", formatter.format(event));
+	}
+
+	@Test
+	public void testTruncation() {
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%.10c{-1}|%.-7m|%-12.14c{2}|");
+		LogEvent event = new LogEvent(null, "com.acme.net.Connection", 0, Level.INFO, "a long message", null);
+
+		assertEquals("Connection|a long |net.Connection|", formatter.format(event));
+	}
+
+	@Test
+	public void testWidthAppliesToOutputOnly() {
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%m %-40.4m!");
+		LogEvent event = new LogEvent(null, "name", 0, Level.INFO, "message", null);
+		StringBuilder builder = new StringBuilder("> ");
+
+		formatter.format(event, builder);
+
+		assertEquals("> message sage" + "                                    !", builder.toString());
+	}
+
+	@Test
+	public void testMissingConversionChar() {
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%m %-5");
+		LogEvent event = new LogEvent(null, "name", 0, Level.INFO, "message", null);
+
+		assertEquals("message ", formatter.format(event));
+	}
+}
@@ -0,0 +1,56 @@
+package com.google.code.microlog4android.format;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+
+public class Utf8EncoderTest {
+
+	@Test
+	public void testEncodeLikeGetBytes() throws UnsupportedEncodingException {
+		String[] texts = { "", "plain ascii", "caf\u00e9 \u00f1", "\u20ac 100", "\u65e5\u672c\u8a9e",
+				"emoji \ud83d\ude00!", "unpaired \ud83d high", "unpaired \ude00 low", "end \ud83d" };
+		Utf8Encoder encoder = new Utf8Encoder();
+
+		for (String text : texts) {
+			assertArrayEquals(text, text.getBytes("UTF-8"), toArray(encoder.encode(text)));
+		}
+	}
+
+	@Test
+	public void testEncodeLongText() throws UnsupportedEncodingException {
+		StringBuilder builder = new StringBuilder();
+		for (int index = 0; index < 10000; index++) {
+			builder.append((char) ('a' + index % 26)).append('\u00e5');
+		}
+		String text = builder.toString();
+		Utf8Encoder encoder = new Utf8Encoder();
+
+		assertArrayEquals(text.getBytes("UTF-8"), toArray(encoder.encode(text)));
+		assertArrayEquals("short".getBytes("UTF-8"), toArray(encoder.encode("short")));
+	}
+
+	@Test
+	public void testEncodeEvent() throws UnsupportedEncodingException {
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%P %m");
+		LogEvent event = new LogEvent(null, "Test", 0, Level.INFO, "r\u00e4ksm\u00f6rg\u00e5s", null);
+
+		ByteBuffer buffer = new Utf8Encoder().encode(event, formatter, "\n");
+
+		assertEquals("INFO r\u00e4ksm\u00f6rg\u00e5s\n", new String(toArray(buffer), "UTF-8"));
+	}
+
+	private static byte[] toArray(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
+	}
+}
@@ -0,0 +1,60 @@
+package com.google.code.microlog4android.format.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Calendar;
+import java.util.Vector;
+
+import org.junit.Test;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+
+public class DateFormatCommandTest {
+
+	@Test
+	public void testFormats() {
+		Calendar calendar = Calendar.getInstance();
+		calendar.clear();
+		calendar.set(2010, Calendar.JANUARY, 2, 3, 4, 5);
+		long time = calendar.getTimeInMillis() + 7;
+		DateFormatCommand command = new DateFormatCommand();
+
+		assertEquals("03:04:05,007", command.toAbsoluteFormat(time));
+		assertEquals("02 JAN 2010 03:04:05,007", command.toDateFormat(time));
+		assertEquals("2010-01-02 03:04:05,007", command.toISO8601Format(time));
+		assertEquals("03:04:05,070", command.toAbsoluteFormat(time + 63));
+		assertEquals("03:04:06,000", command.toAbsoluteFormat(time + 993));
+	}
+
+	@Test
+	public void testConcurrentAppend() throws InterruptedException {
+		final DateFormatCommand command = new DateFormatCommand();
+		command.init(DateFormatCommand.ISO_8601_FORMAT_STRING);
+		final LogEvent event = new LogEvent(null, "Test", 0, Level.INFO, "message", null);
+		final Vector<String> failures = new Vector<String>();
+		Thread[] threads = new Thread[4];
+
+		for (int index = 0; index < threads.length; index++) {
+			threads[index] = new Thread() {
+				public void run() {
+					StringBuilder builder = new StringBuilder();
+					for (int count = 0; count < 20000; count++) {
+						builder.setLength(0);
+						command.append(builder, event);
+						if (!builder.toString().matches("\\d{4}-\\d\\d-\\d\\d \\d\\d:\\d\\d:\\d\\d,\\d{3}")) {
+							failures.add(builder.toString());
+						}
+					}
+				}
+			};
+			threads[index].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertTrue(failures.toString(), failures.isEmpty());
+	}
+}
@@ -1,14 +1,34 @@
 package com.google.code.microlog4android.repository;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import com.google.code.microlog4android.Level;
 import com.google.code.microlog4android.Logger;
+import com.google.code.microlog4android.appender.Appender;
 import com.google.code.microlog4android.repository.DefaultLoggerRepository;
 
 public class DefaultLoggerRepositoryTest {
@@ -47,6 +67,85 @@ public class DefaultLoggerRepositoryTest {
 		assertEquals(1, defaultLoggerRepository.numberOfLeafNodes());
 	}
 
+	@Test
+	public void testGetLoggerConcurrentlyReturnsSameInstance() throws InterruptedException {
+		final String name = "com.acme.concurrent.Lookup";
+		final Logger[] loggers = new Logger[4];
+		Thread[] threads = new Thread[loggers.length];
+
+		for (int index = 0; index < threads.length; index++) {
+			final int slot = index;
+			threads[index] = new Thread() {
+				public void run() {
+					loggers[slot] = defaultLoggerRepository.getLogger(name);
+				}
+			};
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		for (Logger logger : loggers) {
+			assertSame(loggers[0], logger);
+		}
+		assertSame(loggers[0], defaultLoggerRepository.getLogger(name));
+	}
+
+	@Test
+	public void testGetLoggerWithManySiblings() {
+		int siblings = MicrologRepositoryNode.MAX_LINEAR_CHILDREN * 10;
+		Logger[] loggers = new Logger[siblings];
+
+		for (int index = 0; index < siblings; index++) {
+			loggers[index] = defaultLoggerRepository.getLogger("com.acme.wide.Class" + index);
+		}
+
+		for (int index = 0; index < siblings; index++) {
+			// The inner logger is found through the tree, not the leaf map
+			Logger inner = defaultLoggerRepository.getLogger("com.acme.wide.Class" + index + ".Inner");
+			loggers[index].setLevel(Level.WARN);
+
+			assertEquals("com.acme.wide.Class" + index, loggers[index].getName());
+			assertEquals(Level.WARN, inner.getEffectiveLevel());
+		}
+	}
+
+	@Test
+	public void testUnusedLoggersEvicted() throws InterruptedException {
+		defaultLoggerRepository.setEvictionEnabled(true);
+		Logger configured = defaultLoggerRepository.getLogger("com.acme.session.Configured");
+		configured.addAppender(mock(Appender.class));
+		Logger used = defaultLoggerRepository.getLogger("com.acme.session.Used");
+		int nodes = defaultLoggerRepository.getNumberOfNodes();
+
+		for (int session = 0; session < 1000; session++) {
+			defaultLoggerRepository.getLogger("com.acme.session.s" + session + ".Handler");
+		}
+		for (int attempt = 0; attempt < 50 && defaultLoggerRepository.getNumberOfNodes() > nodes; attempt++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+
+		assertEquals(nodes, defaultLoggerRepository.getNumberOfNodes());
+		// Both the session node and its handler node are evicted
+		assertTrue(defaultLoggerRepository.getNumberOfEvictedNodes() >= 2000);
+		assertSame(configured, defaultLoggerRepository.getLogger("com.acme.session.Configured"));
+		assertSame(used, defaultLoggerRepository.getLogger("com.acme.session.Used"));
+	}
+
+	@Test
+	public void testGetLoggerKeepsConfigurationGeneration() {
+		int generation = ConfigurationGeneration.current();
+
+		defaultLoggerRepository.getLogger("com.acme.net.Connection");
+		defaultLoggerRepository.getLogger("com.acme.io.Stream");
+
+		assertEquals(generation, ConfigurationGeneration.current());
+	}
+
 	@Test
 	public void testAddLogger() {
 		defaultLoggerRepository.addLogger(new Logger(DefaultLoggerRepositoryTest.class.getName()));
@@ -61,4 +160,198 @@ public class DefaultLoggerRepositoryTest {
 		
 		assertEquals(defaultLoggerRepository.getEffectiveLevel(logger.getName()), Level.INFO);
 	}
+
+	@Test
+	public void testSetLevelPushedDownToInheritingDescendants() {
+		Logger inheriting = defaultLoggerRepository.getLogger("com.acme.db.Query");
+		Logger overriding = defaultLoggerRepository.getLogger("com.acme.db.pool.Pool");
+		Logger below = defaultLoggerRepository.getLogger("com.acme.db.pool.Pool.Entry");
+		overriding.setLevel(Level.ERROR);
+
+		defaultLoggerRepository.setLevel("com.acme", Level.WARN);
+		Logger created = defaultLoggerRepository.getLogger("com.acme.db.Session");
+
+		assertEquals(Level.WARN, inheriting.getEffectiveLevel());
+		assertEquals(Level.ERROR, overriding.getEffectiveLevel());
+		assertEquals(Level.ERROR, below.getEffectiveLevel());
+		assertEquals(Level.WARN, created.getEffectiveLevel());
+	}
+
+	@Test
+	public void testLevelRulesApplyToExistingAndNewLoggers() {
+		Logger existing = defaultLoggerRepository.getLogger("com.acme.net.Connection");
+		Logger overriding = defaultLoggerRepository.getLogger("com.acme.net.Socket");
+		overriding.setLevel(Level.ERROR);
+
+		defaultLoggerRepository.setLevelRule("com.acme.net.*", Level.WARN);
+		defaultLoggerRepository.setLevelRule("*.cache.*", Level.TRACE);
+		Logger created = defaultLoggerRepository.getLogger("com.acme.net.http.Client");
+		Logger cache = defaultLoggerRepository.getLogger("com.acme.cache.Lru");
+
+		assertEquals(Level.WARN, existing.getEffectiveLevel());
+		assertFalse(existing.isInfoEnabled());
+		assertEquals(Level.ERROR, overriding.getEffectiveLevel());
+		assertEquals(Level.WARN, created.getEffectiveLevel());
+		assertEquals(Level.TRACE, cache.getEffectiveLevel());
+		assertEquals(Level.DEBUG, defaultLoggerRepository.getLogger("com.acme.Other").getEffectiveLevel());
+
+		defaultLoggerRepository.removeLevelRule("com.acme.net.*");
+		assertEquals(Level.DEBUG, existing.getEffectiveLevel());
+		assertEquals(Level.DEBUG, created.getEffectiveLevel());
+		assertEquals(Level.TRACE, cache.getEffectiveLevel());
+	}
+
+	@Test
+	public void testSetLevels() {
+		Logger inheriting = defaultLoggerRepository.getLogger("com.acme.db.Query");
+		Logger nested = defaultLoggerRepository.getLogger("com.acme.db.pool.Pool.Entry");
+		Map<String, Level> levels = new HashMap<String, Level>();
+		levels.put("com.acme.db.pool", Level.ERROR);
+		levels.put("com.acme", Level.WARN);
+		levels.put("com.acme.db.pool.Pool.Entry.Inner", Level.TRACE);
+
+		defaultLoggerRepository.setLevels(levels);
+
+		assertEquals(Level.WARN, inheriting.getEffectiveLevel());
+		assertEquals(Level.ERROR, nested.getEffectiveLevel());
+		assertEquals(Level.TRACE, defaultLoggerRepository.getLogger("com.acme.db.pool.Pool.Entry.Inner")
+				.getEffectiveLevel());
+		assertEquals(Level.WARN, defaultLoggerRepository.getLogger("com.acme.net.Connection").getEffectiveLevel());
+	}
+
+	@Test
+	public void testSetLevelsSeenAtOnceByLoggingThread() throws InterruptedException {
+		final int rounds = 100;
+		final AtomicReference<Logger[]> current = new AtomicReference<Logger[]>();
+		final AtomicBoolean done = new AtomicBoolean();
+		final AtomicInteger mixes = new AtomicInteger();
+
+		Thread loggingThread = new Thread() {
+			public void run() {
+				while (!done.get()) {
+					Logger[] pair = current.get();
+					// The first logger gets its new level before the second
+					// one, so the second one must be seen with its new level
+					// once the first one has been
+					if (pair != null && pair[0].isDebugEnabled() && !pair[1].isDebugEnabled()) {
+						mixes.incrementAndGet();
+					}
+				}
+			}
+		};
+		loggingThread.start();
+
+		for (int round = 0; round < rounds; round++) {
+			String prefix = "com.acme.round" + round;
+			Logger first = defaultLoggerRepository.getLogger(prefix + ".a");
+			Logger second = defaultLoggerRepository.getLogger(prefix + ".z.z.z");
+			first.setLevel(Level.WARN);
+			second.setLevel(Level.WARN);
+			current.set(new Logger[] { first, second });
+
+			Map<String, Level> levels = new LinkedHashMap<String, Level>();
+			levels.put(first.getName(), Level.DEBUG);
+			for (int index = 0; index < 200; index++) {
+				levels.put(prefix + ".m.Logger" + index, Level.INFO);
+			}
+			levels.put(second.getName(), Level.DEBUG);
+			defaultLoggerRepository.setLevels(levels);
+		}
+
+		done.set(true);
+		loggingThread.join();
+
+		assertEquals(0, mixes.get());
+	}
+
+	@Test
+	public void testSetLevelsWithNullLevelSetsNothing() {
+		Map<String, Level> levels = new HashMap<String, Level>();
+		levels.put("com.acme", Level.WARN);
+		levels.put("com.acme.net", null);
+
+		try {
+			defaultLoggerRepository.setLevels(levels);
+			throw new AssertionError("Accepted a null level");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+
+		assertFalse(defaultLoggerRepository.contains("com.acme"));
+		assertEquals(Level.DEBUG, defaultLoggerRepository.getLogger("com.acme").getEffectiveLevel());
+	}
+
+	@Test
+	public void testGetSnapshot() {
+		defaultLoggerRepository.getLogger("com.acme.net.Connection");
+		defaultLoggerRepository.setLevel("com.acme", Level.WARN);
+		defaultLoggerRepository.setLevelRule("*.net.*", Level.ERROR);
+
+		List<LoggerSnapshot> snapshot = defaultLoggerRepository.getSnapshot();
+
+		assertEquals(5, snapshot.size());
+		assertEquals("", snapshot.get(0).getName());
+		assertEquals(Level.DEBUG, snapshot.get(0).getLevel());
+		assertEquals("com", snapshot.get(1).getName());
+		assertNull(snapshot.get(1).getLevel());
+		assertEquals(Level.DEBUG, snapshot.get(1).getEffectiveLevel());
+		assertEquals("com.acme", snapshot.get(2).getName());
+		assertEquals(Level.WARN, snapshot.get(2).getLevel());
+		assertEquals("com.acme.net", snapshot.get(3).getName());
+		assertEquals(Level.WARN, snapshot.get(3).getEffectiveLevel());
+		assertEquals("com.acme.net.Connection", snapshot.get(4).getName());
+		assertNull(snapshot.get(4).getLevel());
+		assertEquals(Level.ERROR, snapshot.get(4).getRuleLevel());
+		assertEquals(Level.ERROR, snapshot.get(4).getEffectiveLevel());
+	}
+
+	@Test
+	public void testSetLevelOnParentInvalidatesCachedLevel() {
+		Logger logger = defaultLoggerRepository.getLogger("com.acme.net.Connection");
+		assertTrue(logger.isDebugEnabled());
+
+		defaultLoggerRepository.setLevel("com.acme", Level.INFO);
+		assertFalse(logger.isDebugEnabled());
+		assertTrue(logger.isInfoEnabled());
+
+		defaultLoggerRepository.setLevel("com.acme.net", Level.TRACE);
+		assertTrue(logger.isTraceEnabled());
+	}
+
+	@Test
+	public void testInheritedAppenders() {
+		Appender rootAppender = mock(Appender.class);
+		Appender parentAppender = mock(Appender.class);
+		defaultLoggerRepository.getRootLogger().addAppender(rootAppender);
+		defaultLoggerRepository.getLogger("com.acme").addAppender(parentAppender);
+
+		Logger logger = defaultLoggerRepository.getLogger("com.acme.net.Connection");
+		logger.info("additive");
+		verify(parentAppender).doLog(anyString(), eq("com.acme.net.Connection"), anyLong(), eq(Level.INFO), eq("additive"),
+				any(Throwable.class));
+		verify(rootAppender).doLog(anyString(), eq("com.acme.net.Connection"), anyLong(), eq(Level.INFO), eq("additive"),
+				any(Throwable.class));
+
+		defaultLoggerRepository.getLogger("com.acme").setAdditivity(false);
+		logger.info("not additive");
+		verify(parentAppender).doLog(anyString(), eq("com.acme.net.Connection"), anyLong(), eq(Level.INFO), eq("not additive"),
+				any(Throwable.class));
+		verify(rootAppender, never()).doLog(anyString(), eq("com.acme.net.Connection"), anyLong(), eq(Level.INFO), eq("not additive"),
+				any(Throwable.class));
+	}
+
+	@Test
+	public void testAddedLoggerAppendersInheritedByExistingLoggers() {
+		Logger logger = defaultLoggerRepository.getLogger("com.acme.net.Connection");
+		logger.info("before");
+
+		Appender parentAppender = mock(Appender.class);
+		Logger parent = new Logger("com.acme");
+		parent.addAppender(parentAppender);
+		defaultLoggerRepository.addLogger(parent);
+
+		logger.info("after");
+		verify(parentAppender).doLog(anyString(), eq("com.acme.net.Connection"), anyLong(), eq(Level.INFO), eq("after"),
+				any(Throwable.class));
+	}
 }
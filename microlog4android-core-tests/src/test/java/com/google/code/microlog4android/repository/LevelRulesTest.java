@@ -0,0 +1,68 @@
+package com.google.code.microlog4android.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.google.code.microlog4android.Level;
+
+public class LevelRulesTest {
+
+	@Test
+	public void testWildcardMatchesOneOrMoreComponents() {
+		LevelRules rules = LevelRules.NONE.with("com.acme.net.*", Level.WARN).with("*.cache.*", Level.TRACE);
+
+		assertEquals(Level.WARN, rules.match("com.acme.net.Connection"));
+		assertEquals(Level.WARN, rules.match("com.acme.net.http.Client"));
+		assertNull(rules.match("com.acme.net"));
+		assertNull(rules.match("com.acme.network.Socket"));
+		assertEquals(Level.TRACE, rules.match("com.acme.cache.Lru"));
+		assertEquals(Level.TRACE, rules.match("org.other.cache.disk.Store"));
+		assertNull(rules.match("cache.Lru"));
+		assertNull(rules.match(""));
+	}
+
+	@Test
+	public void testMostLiteralComponentsWin() {
+		LevelRules rules = LevelRules.NONE.with("com.acme.*.Pool", Level.ERROR).with("*.Pool", Level.INFO).with(
+				"com.acme.*", Level.WARN);
+
+		assertEquals(Level.ERROR, rules.match("com.acme.db.Pool"));
+		assertEquals(Level.WARN, rules.match("com.acme.db.Query"));
+		assertEquals(Level.INFO, rules.match("org.db.Pool"));
+	}
+
+	@Test
+	public void testLastRuleWinsOnTie() {
+		LevelRules rules = LevelRules.NONE.with("com.*", Level.WARN).with("*.Foo", Level.INFO);
+		assertEquals(Level.INFO, rules.match("com.Foo"));
+
+		rules = rules.with("com.*", Level.ERROR);
+		assertEquals(Level.ERROR, rules.match("com.Foo"));
+	}
+
+	@Test
+	public void testWithout() {
+		LevelRules rules = LevelRules.NONE.with("com.acme.*", Level.WARN).with("com.*", Level.ERROR);
+
+		assertSame(rules, rules.without("org.*"));
+		assertEquals(Level.ERROR, rules.without("com.acme.*").match("com.acme.Foo"));
+		assertSame(LevelRules.NONE, rules.without("com.acme.*").without("com.*"));
+	}
+
+	@Test
+	public void testInvalidPatterns() {
+		String[] patterns = { "", ".", "com.", "com..Foo", "com.ac*", "*com" };
+
+		for (String pattern : patterns) {
+			try {
+				LevelRules.NONE.with(pattern, Level.WARN);
+				throw new AssertionError("Accepted " + pattern);
+			} catch (IllegalArgumentException e) {
+				// Expected
+			}
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package com.google.code.microlog4android.repository;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class LoggerNamesUtilTest {
+
+	@Test
+	public void testGetLoggerNameComponentsLikeSplit() {
+		String[] names = { "", "com", "com.acme.Foo", ".com", "com..Foo", "com.acme.", "com..", "." };
+
+		for (String name : names) {
+			assertArrayEquals(name, name.split("\\."), LoggerNamesUtil.getLoggerNameComponents(name));
+		}
+	}
+
+	@Test
+	public void testComponentsAreInterned() {
+		String[] first = LoggerNamesUtil.getLoggerNameComponents(new String("com.acme.Foo"));
+		String[] second = LoggerNamesUtil.getLoggerNameComponents(new String("com.acme.Bar"));
+
+		assertSame(first[0], second[0]);
+		assertSame(first[1], second[1]);
+	}
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2010 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import android.util.Log;
+
+/**
+ * The <code>AsyncDispatcher</code> moves the appender calls off the logging
+ * threads. It is a bounded, preallocated multi-producer/single-consumer ring
+ * buffer that is drained by one dedicated thread.
+ *
+ * A logging thread claims a sequence number, fills the corresponding slot and
+ * publishes it. The drain thread consumes the slots in sequence order and
+ * calls the appenders of the <code>Logger</code> that published the event.
+ * When the buffer is full the logging thread waits for the drain thread, which
+ * means that no events are lost as long as the dispatcher is running. A slot
+ * without a <code>Logger</code> has been given up by its logging thread and is
+ * skipped.
+ *
+ * @author Johan Karlsson
+ */
+final class AsyncDispatcher implements Runnable {
+	private static final String TAG = "Microlog.AsyncDispatcher";
+
+	static final String THREAD_NAME = "microlog-async-dispatcher";
+
+	private final Slot[] slots;
+
+	private final int mask;
+
+	/**
+	 * The sequence number that is stored in each slot when it is published.
+	 */
+	private final AtomicLongArray published;
+
+	/**
+	 * The next sequence number to hand out to a logging thread.
+	 */
+	private final AtomicLong claimSequence = new AtomicLong();
+
+	/**
+	 * The next sequence number that the drain thread will consume. Only
+	 * written by the drain thread.
+	 */
+	private volatile long consumeSequence;
+
+	private final WaitStrategy waitStrategy;
+
+	private final Thread drainThread;
+
+	private volatile boolean running;
+
+	private volatile boolean drainThreadParked;
+
+	private volatile long drainDeadline;
+
+	/**
+	 * Create an <code>AsyncDispatcher</code>. The buffer size is rounded up to
+	 * the nearest power of two.
+	 *
+	 * @param bufferSize
+	 *            the number of events that can be queued.
+	 * @param waitStrategy
+	 *            the <code>WaitStrategy</code> to use.
+	 * @throws IllegalArgumentException
+	 *             if the <code>bufferSize</code> is less than 1 or the
+	 *             <code>waitStrategy</code> is <code>null</code>.
+	 */
+	AsyncDispatcher(int bufferSize, WaitStrategy waitStrategy) throws IllegalArgumentException {
+		if (bufferSize < 1 || bufferSize > (1 << 30)) {
+			throw new IllegalArgumentException("The buffer size must be between 1 and 2^30.");
+		}
+
+		if (waitStrategy == null) {
+			throw new IllegalArgumentException("The wait strategy must not be null.");
+		}
+
+		int capacity = Integer.highestOneBit(bufferSize);
+		if (capacity < bufferSize) {
+			capacity = capacity << 1;
+		}
+
+		slots = new Slot[capacity];
+		published = new AtomicLongArray(capacity);
+		for (int index = 0; index < capacity; index++) {
+			slots[index] = new Slot();
+			published.set(index, -1);
+		}
+
+		mask = capacity - 1;
+		this.waitStrategy = waitStrategy;
+
+		drainThread = new Thread(this, THREAD_NAME);
+		drainThread.setDaemon(true);
+	}
+
+	/**
+	 * Start the drain thread.
+	 */
+	void start() {
+		running = true;
+		drainThread.start();
+	}
+
+	/**
+	 * Get the number of events that the buffer can hold.
+	 *
+	 * @return the capacity of the buffer.
+	 */
+	int getCapacity() {
+		return slots.length;
+	}
+
+	/**
+	 * Get the wait strategy in use.
+	 *
+	 * @return the <code>WaitStrategy</code>.
+	 */
+	WaitStrategy getWaitStrategy() {
+		return waitStrategy;
+	}
+
+	/**
+	 * Check if the dispatcher accepts new events.
+	 *
+	 * @return <code>true</code> if running.
+	 */
+	boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Publish a log event. This is called on the logging thread after the level
+	 * check has been done.
+	 *
+	 * @return <code>true</code> if the event was queued, <code>false</code> if
+	 *         the caller must do the logging itself, since the dispatcher has
+	 *         been stopped or is called from the drain thread.
+	 */
+	boolean publish(Logger logger, String clientID, long time, Level level, Object message, Throwable t) {
+		long sequence = claim();
+		if (sequence == -1) {
+			return false;
+		}
+
+		Slot slot = slots[(int) sequence & mask];
+		slot.logger = logger;
+		slot.event.set(logger, clientID, time, level, message, t);
+		commit(sequence);
+
+		return true;
+	}
+
+	/**
+	 * Publish a copy of a log event that was created earlier, e.g. on another
+	 * thread.
+	 *
+	 * @see #publish(Logger, String, long, Level, Object, Throwable)
+	 */
+	boolean publish(Logger logger, LogEvent event) {
+		long sequence = claim();
+		if (sequence == -1) {
+			return false;
+		}
+
+		Slot slot = slots[(int) sequence & mask];
+		slot.logger = logger;
+		slot.event.copy(event);
+		commit(sequence);
+
+		return true;
+	}
+
+	/**
+	 * Claim a slot, waiting for space if the buffer is full. If the dispatcher
+	 * is stopped after the slot was claimed, the drain thread may already
+	 * have passed the end of the buffer. The slot is then committed empty, so
+	 * that the drain thread does not wait for it, and the caller does the
+	 * logging itself.
+	 *
+	 * @return the sequence number of the slot, or <code>-1</code> if the
+	 *         event cannot be queued.
+	 */
+	private long claim() {
+		if (!running || Thread.currentThread() == drainThread) {
+			return -1;
+		}
+
+		long sequence = claimSequence.getAndIncrement();
+		int capacity = slots.length;
+		int counter = 0;
+		while (sequence - consumeSequence >= capacity) {
+			if (!running && !drainThread.isAlive()) {
+				return -1;
+			}
+			counter = waitStrategy.waitForSpace(counter);
+		}
+
+		if (!running) {
+			slots[(int) sequence & mask].logger = null;
+			commit(sequence);
+			return -1;
+		}
+
+		return sequence;
+	}
+
+	private void commit(long sequence) {
+		published.set((int) sequence & mask, sequence);
+
+		if (drainThreadParked) {
+			LockSupport.unpark(drainThread);
+		}
+	}
+
+	/**
+	 * Stop the dispatcher. The events already in the buffer are dispatched
+	 * before the drain thread terminates, but it will not wait longer than the
+	 * specified timeout. Events that are not drained in time are dropped.
+	 *
+	 * @param timeoutMillis
+	 *            the maximum time to wait for the buffer to be drained.
+	 * @return <code>true</code> if all the events were drained.
+	 */
+	boolean stop(long timeoutMillis) {
+		drainDeadline = System.nanoTime() + timeoutMillis * 1000L * 1000L;
+		running = false;
+		LockSupport.unpark(drainThread);
+
+		try {
+			drainThread.join(timeoutMillis + 1);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		return !drainThread.isAlive() && consumeSequence >= claimSequence.get();
+	}
+
+	/**
+	 * The drain loop.
+	 */
+	public void run() {
+		long next = consumeSequence;
+		int counter = 0;
+		boolean signalling = waitStrategy.isSignalling();
+
+		while (true) {
+			int index = (int) next & mask;
+
+			if (published.get(index) == next) {
+				Slot slot = slots[index];
+				if (slot.logger != null) {
+					try {
+						slot.logger.callAppenders(slot.event);
+					} catch (RuntimeException e) {
+						Log.e(TAG, "Failed to dispatch log event " + e);
+					}
+					slot.clear();
+				}
+
+				next++;
+				consumeSequence = next;
+				counter = 0;
+			} else if (!running && (next >= claimSequence.get() || System.nanoTime() - drainDeadline >= 0)) {
+				break;
+			} else if (!running) {
+				// Only slots that were claimed before the stop are left
+				counter = WaitStrategy.backOff(counter);
+			} else if (signalling) {
+				drainThreadParked = true;
+				if (published.get(index) != next && running) {
+					counter = waitStrategy.waitForEvent(counter);
+				}
+				drainThreadParked = false;
+			} else {
+				counter = waitStrategy.waitForEvent(counter);
+			}
+		}
+
+		long dropped = claimSequence.get() - next;
+		if (dropped > 0) {
+			Log.w(TAG, "Dropped " + dropped + " log events that were not drained in time");
+		}
+	}
+
+	/**
+	 * A preallocated slot in the ring buffer. The <code>LogEvent</code> is
+	 * filled in on the logging thread and passed to the appenders on the drain
+	 * thread.
+	 */
+	private static final class Slot {
+		Logger logger;
+		final LogEvent event = new LogEvent();
+
+		void clear() {
+			logger = null;
+			event.clear();
+		}
+	}
+}
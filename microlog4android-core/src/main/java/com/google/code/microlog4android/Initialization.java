@@ -0,0 +1,204 @@
+/*
+ * Copyright 2010 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import android.util.Log;
+
+/**
+ * The <code>Initialization</code> makes sure that the log is opened exactly
+ * once, by one thread, and that no logging thread waits for it.
+ * 
+ * The thread that wins the initialization opens the appenders. Events that
+ * are logged in the meantime are kept in a buffer and replayed in order before
+ * the initialization is complete. The buffer starts small and grows when it is
+ * full, up to a maximum size. Events that are logged while the buffer is at
+ * its maximum size are dropped and counted, since a logging thread never
+ * waits for the appenders to be opened.
+ * 
+ * @author Johan Karlsson
+ */
+final class Initialization {
+	private static final String TAG = "Microlog.Initialization";
+
+	static final int DEFAULT_BUFFER_SIZE = 64;
+
+	static final int DEFAULT_MAX_BUFFER_SIZE = 8192;
+
+	private static final int UNINITIALIZED = 0;
+
+	private static final int INITIALIZING = 1;
+
+	private static final int INITIALIZED = 2;
+
+	private final AtomicInteger state = new AtomicInteger(UNINITIALIZED);
+
+	private final int bufferSize;
+
+	private final int maxBufferSize;
+
+	private Logger[] loggers;
+
+	private LogEvent[] events;
+
+	private int size;
+
+	private int dropped;
+
+	/**
+	 * Create an <code>Initialization</code>.
+	 * 
+	 * @param bufferSize
+	 *            the number of events that can be buffered until the buffer
+	 *            grows.
+	 * @param maxBufferSize
+	 *            the number of events that can be buffered until the
+	 *            appenders are open.
+	 */
+	Initialization(int bufferSize, int maxBufferSize) {
+		this.bufferSize = bufferSize;
+		this.maxBufferSize = Math.max(bufferSize, maxBufferSize);
+		loggers = new Logger[bufferSize];
+		events = new LogEvent[bufferSize];
+	}
+
+	/**
+	 * Check if the log is open.
+	 * 
+	 * @return <code>true</code> if the initialization is complete.
+	 */
+	boolean isComplete() {
+		return state.get() == INITIALIZED;
+	}
+
+	/**
+	 * Try to start the initialization.
+	 * 
+	 * @return <code>true</code> if the calling thread shall do the
+	 *         initialization and then call <code>complete()</code>.
+	 */
+	boolean begin() {
+		return state.compareAndSet(UNINITIALIZED, INITIALIZING);
+	}
+
+	/**
+	 * Buffer an event that is logged while the initialization is in progress.
+	 * The event is dropped if the buffer is at its maximum size.
+	 * 
+	 * @return <code>false</code> if the initialization is no longer in
+	 *         progress, which means that the caller shall log the event.
+	 */
+	synchronized boolean buffer(Logger logger, LogEvent event) {
+		if (state.get() != INITIALIZING) {
+			return false;
+		}
+
+		if (size == events.length && size < maxBufferSize) {
+			int newSize = Math.min(size * 2, maxBufferSize);
+			Logger[] newLoggers = new Logger[newSize];
+			LogEvent[] newEvents = new LogEvent[newSize];
+			System.arraycopy(loggers, 0, newLoggers, 0, size);
+			System.arraycopy(events, 0, newEvents, 0, size);
+			loggers = newLoggers;
+			events = newEvents;
+		}
+
+		if (size < events.length) {
+			loggers[size] = logger;
+			events[size] = event;
+			size++;
+		} else {
+			dropped++;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Replay the buffered events and mark the initialization as complete.
+	 * Events that are buffered during the replay are replayed as well, so the
+	 * order is kept without holding a lock while the appenders are called.
+	 */
+	void complete() {
+		Logger[] replayLoggers = null;
+		LogEvent[] replayEvents = null;
+
+		while (true) {
+			int count;
+			synchronized (this) {
+				count = size;
+
+				if (count == 0) {
+					state.set(INITIALIZED);
+					shrinkBuffer();
+
+					if (dropped > 0) {
+						Log.w(TAG, "Dropped " + dropped + " log events that were logged before the log was open");
+						dropped = 0;
+					}
+					return;
+				}
+
+				if (replayLoggers == null || replayLoggers.length < count) {
+					replayLoggers = new Logger[loggers.length];
+					replayEvents = new LogEvent[events.length];
+				}
+				System.arraycopy(loggers, 0, replayLoggers, 0, count);
+				System.arraycopy(events, 0, replayEvents, 0, count);
+				clearBuffer();
+			}
+
+			for (int index = 0; index < count; index++) {
+				try {
+					replayLoggers[index].replay(replayEvents[index]);
+				} catch (RuntimeException e) {
+					Log.e(TAG, "Failed to replay log event " + e);
+				}
+				replayLoggers[index] = null;
+				replayEvents[index] = null;
+			}
+		}
+	}
+
+	/**
+	 * Go back to the uninitialized state, e.g. when the log is closed. Any
+	 * buffered events are discarded.
+	 */
+	synchronized void reset() {
+		clearBuffer();
+		shrinkBuffer();
+		dropped = 0;
+		state.set(UNINITIALIZED);
+	}
+
+	private void clearBuffer() {
+		for (int index = 0; index < size; index++) {
+			loggers[index] = null;
+			events[index] = null;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Give back the memory of a buffer that has grown, once it is empty.
+	 */
+	private void shrinkBuffer() {
+		if (events.length > bufferSize) {
+			loggers = new Logger[bufferSize];
+			events = new LogEvent[bufferSize];
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2010 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android;
+
+import java.util.ArrayList;
+
+/**
+ * A <code>LevelUpdate</code> changes the effective levels of many loggers as
+ * one change, without making the level checks wait for it.
+ *
+ * While the update is in progress, an effective level that it changes is
+ * pushed to the logger as a <code>PendingLevel</code>, which holds both the
+ * previous and the new level. A level check sees the previous level until the
+ * update is committed with one volatile write, and the new level after that.
+ * A thread that has seen the new level of one logger therefore sees the new
+ * levels of all the loggers of the update. Once committed, the pending levels
+ * are replaced by the new levels, so that a level check is a single volatile
+ * read again.
+ *
+ * An update is started and committed by the same thread, which is the only
+ * thread whose pushed levels become part of it.
+ *
+ * @author Johan Karlsson
+ */
+final class LevelUpdate {
+	private static final ThreadLocal<LevelUpdate> updates = new ThreadLocal<LevelUpdate>();
+
+	private volatile boolean committed;
+
+	private final ArrayList<Logger> loggers = new ArrayList<Logger>();
+
+	private final ArrayList<PendingLevel> pendingLevels = new ArrayList<PendingLevel>();
+
+	private LevelUpdate() {
+	}
+
+	/**
+	 * Start a level update on the current thread.
+	 *
+	 * @throws IllegalStateException
+	 *             if a level update is already in progress on the current
+	 *             thread.
+	 */
+	static void begin() throws IllegalStateException {
+		if (updates.get() != null) {
+			throw new IllegalStateException("A level update is already in progress.");
+		}
+
+		updates.set(new LevelUpdate());
+	}
+
+	/**
+	 * Commit the level update of the current thread, if there is one.
+	 */
+	static void commit() {
+		LevelUpdate update = updates.get();
+
+		if (update != null) {
+			updates.remove();
+			update.committed = true;
+
+			for (int index = 0; index < update.loggers.size(); index++) {
+				update.loggers.get(index).publishEffectiveLevel(update.pendingLevels.get(index));
+			}
+		}
+	}
+
+	/**
+	 * Get the value to push to a logger for a new effective level. This must
+	 * be called while holding the lock of the logger.
+	 *
+	 * @param logger
+	 *            the logger whose effective level changes.
+	 * @param pushedLevel
+	 *            the value that has been pushed to the logger before, i.e. a
+	 *            <code>Level</code>, a <code>PendingLevel</code> or
+	 *            <code>null</code>.
+	 * @param level
+	 *            the new effective level.
+	 * @return the value to push.
+	 */
+	static Object push(Logger logger, Object pushedLevel, Level level) {
+		LevelUpdate update = updates.get();
+		Level previousLevel = pushedLevel instanceof PendingLevel ? ((PendingLevel) pushedLevel).getLevel()
+				: (Level) pushedLevel;
+
+		if (update == null || previousLevel == null || previousLevel == level) {
+			return level;
+		}
+
+		PendingLevel pendingLevel = new PendingLevel(update, previousLevel, level);
+		update.loggers.add(logger);
+		update.pendingLevels.add(pendingLevel);
+
+		return pendingLevel;
+	}
+
+	/**
+	 * An effective level that is changed by a level update that may not have
+	 * been committed yet.
+	 */
+	static final class PendingLevel {
+		private final LevelUpdate update;
+
+		private final Level previousLevel;
+
+		final Level level;
+
+		PendingLevel(LevelUpdate update, Level previousLevel, Level level) {
+			this.update = update;
+			this.previousLevel = previousLevel;
+			this.level = level;
+		}
+
+		/**
+		 * @return the new level if the update has been committed, otherwise
+		 *         the previous level.
+		 */
+		Level getLevel() {
+			return update.committed ? level : previousLevel;
+		}
+	}
+}
@@ -0,0 +1,384 @@
+/*
+ * Copyright 2010 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android;
+
+import com.google.code.microlog4android.format.AppendingFormatter;
+import com.google.code.microlog4android.format.EventFormatter;
+import com.google.code.microlog4android.format.Formatter;
+
+/**
+ * A <code>LogEvent</code> carries the data of one log event from the
+ * <code>Logger</code> to the appenders, formatters and format commands.
+ * 
+ * The <code>Logger</code> reuses its events: each thread has one event for
+ * synchronous logging and the asynchronous dispatcher has one event per slot.
+ * This means that an event is only valid during the call it is passed to. An
+ * appender that needs the data later must copy it. The same goes for the
+ * message, since a <code>PrimitiveMessage</code> is reused as well: an
+ * appender that keeps the message must keep its <code>toString()</code>.
+ * 
+ * Data that is expensive to get, like the name of the logging thread, is
+ * captured cheaply when the event is created and resolved the first time it
+ * is asked for.
+ * 
+ * @author Johan Karlsson
+ */
+public final class LogEvent {
+
+	private static final ThreadLocal<LogEvent> events = new ThreadLocal<LogEvent>() {
+		protected LogEvent initialValue() {
+			return new LogEvent();
+		}
+	};
+
+	private Logger logger;
+
+	private String clientID;
+
+	private String loggerName;
+
+	private long time;
+
+	private long timestamp;
+
+	private Level level;
+
+	private Object message;
+
+	private Throwable throwable;
+
+	private Thread thread;
+
+	private String threadName;
+
+	private boolean inUse;
+
+	/**
+	 * Buffers that grow beyond this capacity are not kept for the next event.
+	 */
+	private static final int MAX_FORMATTED_CAPACITY = 4096;
+
+	/**
+	 * The formatter that the event was last formatted with, and its output.
+	 * The output of an <code>AppendingFormatter</code> is kept as chars in a
+	 * buffer that is reused by the event, and only turned into a
+	 * <code>String</code> when it is asked for.
+	 */
+	private Formatter formattedWith;
+
+	private String formatted;
+
+	private StringBuilder formattedChars;
+
+	LogEvent() {
+	}
+
+	/**
+	 * Create a <code>LogEvent</code> that is logged from the current thread.
+	 * 
+	 * @param clientID
+	 *            the id of the client.
+	 * @param loggerName
+	 *            the name of the logger.
+	 * @param time
+	 *            the time since the first logging has done (in milliseconds).
+	 * @param level
+	 *            the logging level
+	 * @param message
+	 *            the message to log.
+	 * @param throwable
+	 *            the exception to log.
+	 */
+	public LogEvent(String clientID, String loggerName, long time, Level level, Object message, Throwable throwable) {
+		set(clientID, loggerName, time, level, message, throwable);
+	}
+
+	/**
+	 * Create a <code>LogEvent</code> that was logged from the named thread,
+	 * e.g. an event that has been decoded from a log.
+	 * 
+	 * @param clientID
+	 *            the id of the client.
+	 * @param loggerName
+	 *            the name of the logger.
+	 * @param time
+	 *            the time since the first logging has done (in milliseconds).
+	 * @param timestamp
+	 *            the time when the event was logged, in milliseconds since
+	 *            1970.
+	 * @param level
+	 *            the logging level
+	 * @param message
+	 *            the message to log.
+	 * @param throwable
+	 *            the exception to log.
+	 * @param threadName
+	 *            the name of the thread that logged the event.
+	 */
+	public LogEvent(String clientID, String loggerName, long time, long timestamp, Level level, Object message,
+			Throwable throwable, String threadName) {
+		set(clientID, loggerName, time, level, message, throwable);
+		this.timestamp = timestamp;
+		this.thread = null;
+		this.threadName = threadName;
+	}
+
+	/**
+	 * Get the <code>LogEvent</code> of the current thread, or a new one if it
+	 * is already in use, e.g. by an appender that logs.
+	 * 
+	 * @return a <code>LogEvent</code> that must be released after use.
+	 */
+	static LogEvent acquire() {
+		LogEvent event = events.get();
+
+		if (event.inUse) {
+			event = new LogEvent();
+		}
+		event.inUse = true;
+
+		return event;
+	}
+
+	/**
+	 * Release the event so that it can be reused by the current thread.
+	 */
+	void release() {
+		clear();
+		inUse = false;
+	}
+
+	/**
+	 * Fill in the event logged by the logger. This must be called on the
+	 * logging thread.
+	 */
+	void set(Logger logger, String clientID, long time, Level level, Object message, Throwable throwable) {
+		set(clientID, logger.getName(), time, level, message, throwable);
+		this.logger = logger;
+	}
+
+	/**
+	 * Fill in the event. This must be called on the logging thread.
+	 */
+	void set(String clientID, String loggerName, long time, Level level, Object message, Throwable throwable) {
+		this.logger = null;
+		this.clientID = clientID;
+		this.loggerName = loggerName;
+		this.time = time;
+		this.timestamp = System.currentTimeMillis();
+		this.level = level;
+		this.message = message;
+		this.throwable = throwable;
+		this.thread = Thread.currentThread();
+		this.threadName = null;
+		clearFormatted();
+	}
+
+	/**
+	 * Copy all the data of another event, including the logging thread.
+	 */
+	void copy(LogEvent event) {
+		logger = event.logger;
+		clientID = event.clientID;
+		loggerName = event.loggerName;
+		time = event.time;
+		timestamp = event.timestamp;
+		level = event.level;
+		message = event.message;
+		throwable = event.throwable;
+		thread = event.thread;
+		threadName = event.threadName;
+		clearFormatted();
+	}
+
+	/**
+	 * Remove the references held by the event.
+	 */
+	void clear() {
+		logger = null;
+		clientID = null;
+		loggerName = null;
+		level = null;
+		message = null;
+		throwable = null;
+		thread = null;
+		threadName = null;
+		clearFormatted();
+	}
+
+	private void clearFormatted() {
+		formattedWith = null;
+		formatted = null;
+		if (formattedChars != null) {
+			if (formattedChars.capacity() > MAX_FORMATTED_CAPACITY) {
+				formattedChars = null;
+			} else {
+				formattedChars.setLength(0);
+			}
+		}
+	}
+
+	/**
+	 * @return the id of the client.
+	 */
+	public String getClientID() {
+		return clientID;
+	}
+
+	/**
+	 * Get the logger that logged the event. The name of the logger is the
+	 * same as <code>getLoggerName()</code>.
+	 * 
+	 * @return the logger, or <code>null</code> if the event was created
+	 *         outside of a logger.
+	 */
+	public Logger getLogger() {
+		return logger;
+	}
+
+	/**
+	 * @return the name of the logger.
+	 */
+	public String getLoggerName() {
+		return loggerName;
+	}
+
+	/**
+	 * @return the time since the first logging has done (in milliseconds).
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * Get the wall-clock time of the event, which is taken when the event is
+	 * logged rather than when it is formatted, e.g. by the asynchronous
+	 * dispatcher.
+	 * 
+	 * @return the time when the event was logged, in milliseconds since 1970.
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * @return the logging level.
+	 */
+	public Level getLevel() {
+		return level;
+	}
+
+	/**
+	 * Get the message. Like the event, the message is only valid during the
+	 * call that the event is passed to, since it may be a
+	 * <code>PrimitiveMessage</code> that the logger reuses.
+	 * 
+	 * @return the message, which may be <code>null</code>.
+	 */
+	public Object getMessage() {
+		return message;
+	}
+
+	/**
+	 * @return the logged <code>Throwable</code>, which may be
+	 *         <code>null</code>.
+	 */
+	public Throwable getThrowable() {
+		return throwable;
+	}
+
+	/**
+	 * Format the event with the specified formatter. The output is kept in
+	 * the event, which means that when several appenders use the same or
+	 * equivalent formatters, the event is only formatted once. A formatter
+	 * that is not an <code>EventFormatter</code> is called with the six
+	 * argument <code>format()</code> each time.
+	 * 
+	 * @param formatter
+	 *            the <code>Formatter</code> to use.
+	 * @return the formatted event.
+	 */
+	public String format(Formatter formatter) {
+		if (!(formatter instanceof EventFormatter)) {
+			return formatter.format(clientID, loggerName, time, level, message, throwable);
+		}
+
+		EventFormatter eventFormatter = (EventFormatter) formatter;
+		if (formattedWith == null || !eventFormatter.isEquivalent(formattedWith)) {
+			formatted = eventFormatter.format(this);
+			formattedWith = formatter;
+		} else if (formatted == null) {
+			formatted = formattedChars.toString();
+		}
+
+		return formatted;
+	}
+
+	/**
+	 * Format the event with the specified formatter and append the output. If
+	 * the event has been formatted with an equivalent formatter, the kept
+	 * output is appended. Otherwise an <code>AppendingFormatter</code> appends
+	 * the event directly, and the appended chars are copied to a buffer that
+	 * is reused by the event, so that the other appenders of the event do not
+	 * format it again. No <code>String</code> is created for the event unless
+	 * <code>format(Formatter)</code> is called.
+	 * 
+	 * @param formatter
+	 *            the <code>Formatter</code> to use.
+	 * @param builder
+	 *            the <code>StringBuilder</code> to append to.
+	 */
+	public void format(Formatter formatter, StringBuilder builder) {
+		if (!(formatter instanceof AppendingFormatter)) {
+			builder.append(format(formatter));
+			return;
+		}
+
+		AppendingFormatter appendingFormatter = (AppendingFormatter) formatter;
+		if (formattedWith != null && appendingFormatter.isEquivalent(formattedWith)) {
+			if (formatted != null) {
+				builder.append(formatted);
+			} else {
+				builder.append(formattedChars);
+			}
+			return;
+		}
+
+		int start = builder.length();
+		appendingFormatter.format(this, builder);
+		if (formattedChars == null) {
+			formattedChars = new StringBuilder(builder.length() - start);
+		}
+		formattedChars.setLength(0);
+		formattedChars.append(builder, start, builder.length());
+		formatted = null;
+		formattedWith = formatter;
+	}
+
+	/**
+	 * Get the name of the thread that logged the event. The name is looked up
+	 * the first time it is asked for, which means that it is the current name
+	 * of the thread rather than the name it had when the event was logged.
+	 * 
+	 * @return the name of the logging thread.
+	 */
+	public String getThreadName() {
+		if (threadName == null && thread != null) {
+			threadName = thread.getName();
+		}
+
+		return threadName;
+	}
+}
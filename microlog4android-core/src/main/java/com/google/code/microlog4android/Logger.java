@@ -15,14 +15,16 @@
 package com.google.code.microlog4android;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 import android.util.Log;
 
 import com.google.code.microlog4android.appender.Appender;
+import com.google.code.microlog4android.appender.EventAppender;
 import com.google.code.microlog4android.factory.DefaultAppenderFactory;
+import com.google.code.microlog4android.factory.DefaultRepositoryFactory;
+import com.google.code.microlog4android.format.command.util.NameAbbreviation;
 import com.google.code.microlog4android.repository.CommonLoggerRepository;
+import com.google.code.microlog4android.repository.ConfigurationGeneration;
 
 
 /**
@@ -52,13 +54,90 @@ public final class Logger {
 
 	private String name;
 
-	private Level level;
+	private volatile Level level;
+
+	/**
+	 * The effective level, pushed down by the repository when the level of
+	 * this logger or of one of its ancestors changes. It is a
+	 * <code>Level</code>, or a <code>LevelUpdate.PendingLevel</code> while a
+	 * level update that changes it is in progress. It is <code>null</code>
+	 * for a logger that is not part of a repository tree, in which case the
+	 * effective level is resolved through the repository.
+	 */
+	private volatile Object effectiveLevel;
+
+	/**
+	 * The effective level threshold of a logger that is not part of a
+	 * repository tree, cached together with the
+	 * <code>ConfigurationGeneration</code> it was resolved in. Both are kept
+	 * in one immutable object with final fields, so they are read together
+	 * without any locking, and the whole generation is compared.
+	 */
+	private CachedThreshold cachedThreshold;
 
 	private static final StopWatch stopWatch = new StopWatch();
 
-	private final static List<Appender> appenderList = new ArrayList<Appender>(4);
+	private static final Appender[] NO_APPENDERS = new Appender[0];
+
+	/**
+	 * The appenders attached to this logger. The array is never modified once
+	 * published, a modification replaces it with a new copy (copy-on-write).
+	 * This makes it safe to iterate without locking while appenders are added
+	 * or removed.
+	 */
+	private volatile Appender[] appenders = NO_APPENDERS;
+
+	/**
+	 * The lock that serializes modifications of the <code>appenders</code>.
+	 */
+	private final Object appenderLock = new Object();
+
+	private volatile boolean additive = true;
+
+	/**
+	 * The appenders that are called for each log event, i.e. the appenders of
+	 * this logger followed by the inherited appenders. It is rebuilt when the
+	 * <code>ConfigurationGeneration</code> has changed.
+	 */
+	private volatile DispatchArray dispatchArray;
+
+	private static final Object[] NO_ABBREVIATED_NAMES = new Object[0];
+
+	private static final int MAX_ABBREVIATED_NAMES = 4;
+
+	/**
+	 * The abbreviated names of this logger, as pairs of a
+	 * <code>NameAbbreviation</code> followed by the abbreviated name. The
+	 * array is copy-on-write like the <code>appenders</code>, but without a
+	 * lock: if two threads add a name at the same time one of them is lost
+	 * and computed again the next time.
+	 */
+	private volatile Object[] abbreviatedNames = NO_ABBREVIATED_NAMES;
+
+	/**
+	 * The object that adapts this logger to another logging API, e.g. SLF4J.
+	 * It is set lazily, so that the adapter is only created once.
+	 */
+	private volatile Object adapter;
+
+	private static final Initialization initialization = new Initialization(Initialization.DEFAULT_BUFFER_SIZE,
+			Initialization.DEFAULT_MAX_BUFFER_SIZE);
+
+	private static volatile AsyncDispatcher asyncDispatcher;
+
+	/**
+	 * The lock that serializes the opening of the appenders with the
+	 * configuration changes that may have to open an appender.
+	 */
+	private static final Object openLock = new Object();
+
+	/**
+	 * Set when the log has been opened, until it is closed. Only accessed
+	 * while holding the <code>openLock</code>.
+	 */
+	private static boolean appendersOpen;
 
-	private static boolean firstLogEvent = true;
+	static final String OPEN_THREAD_NAME = "microlog-open";
 
 	/**
 	 * Create a logger with the specified <code>name</code>. The
@@ -79,6 +158,10 @@ public final class Logger {
 
 	public synchronized void setCommonRepository(final CommonLoggerRepository commonLoggerRepository) {
 		this.commonLoggerRepository = commonLoggerRepository;
+
+		// Only the caches of this logger depend on its repository
+		dispatchArray = null;
+		cachedThreshold = null;
 	}
 
 	/**
@@ -103,15 +186,91 @@ public final class Logger {
 			throw new IllegalArgumentException("The level must not be null.");
 		}
 		this.level = level;
+		setEffectiveLevel(level);
+
+		CommonLoggerRepository repository = commonLoggerRepository;
+		if (repository != null) {
+			repository.propagateLevel(this);
+		}
+		ConfigurationGeneration.increment();
+	}
+
+	/**
+	 * Set the effective level. This is called by the repository when the
+	 * level of this logger or of one of its ancestors has changed, and should
+	 * not be called by anyone else. During a level update the new level is
+	 * only seen by the level checks when the update is committed.
+	 * 
+	 * @param effectiveLevel
+	 *            the effective level.
+	 */
+	public synchronized void setEffectiveLevel(Level effectiveLevel) {
+		this.effectiveLevel = LevelUpdate.push(this, this.effectiveLevel, effectiveLevel);
+	}
+
+	/**
+	 * Replace a pending level with its new level, once its level update has
+	 * been committed.
+	 */
+	synchronized void publishEffectiveLevel(LevelUpdate.PendingLevel pendingLevel) {
+		if (effectiveLevel == pendingLevel) {
+			effectiveLevel = pendingLevel.level;
+		}
+	}
+
+	/**
+	 * Start a level update on the current thread. The effective levels that
+	 * are set until the update is committed are seen all at once by the level
+	 * checks, which do not wait for the update. This is called by the
+	 * repository when it sets the levels of many loggers as one change, and
+	 * should not be called by anyone else.
+	 * 
+	 * @throws IllegalStateException
+	 *             if a level update is already in progress on the current
+	 *             thread.
+	 */
+	public static void beginLevelUpdate() throws IllegalStateException {
+		LevelUpdate.begin();
+	}
+
+	/**
+	 * Commit the level update of the current thread, which makes its levels
+	 * seen by the level checks. This should only be called by the repository.
+	 */
+	public static void commitLevelUpdate() {
+		LevelUpdate.commit();
+	}
+
+	/**
+	 * Set the level without updating the effective levels. This is called by
+	 * the repository when it sets the levels of many loggers as one change,
+	 * after which it updates the effective levels itself, and should not be
+	 * called by anyone else.
+	 * 
+	 * @param level
+	 *            the level to set.
+	 */
+	public void stageLevel(Level level) {
+		this.level = level;
 	}
 
 	/**
-	 * Get the effective log level. If we have a hierarchy of loggers, this is
-	 * searched to get the effective level.
+	 * Get the effective log level. This is the level that the repository has
+	 * pushed down to this logger, if the logger is part of a repository tree.
+	 * While a level update is in progress, it is the level that the update
+	 * sets. Otherwise the hierarchy of loggers is searched.
 	 * 
 	 * @return the effective logger level.
 	 */
 	public Level getEffectiveLevel() {
+		Object pushedLevel = this.effectiveLevel;
+		if (pushedLevel instanceof Level) {
+			return (Level) pushedLevel;
+		}
+		if (pushedLevel != null) {
+			return ((LevelUpdate.PendingLevel) pushedLevel).level;
+		}
+
 		Level effectiveLevel = level;
 
 		if (effectiveLevel == null && !name.equals("")) {
@@ -125,6 +284,35 @@ public final class Logger {
 		return effectiveLevel;
 	}
 
+	/**
+	 * Get the effective level as an <code>int</code>. For a logger in a
+	 * repository tree this is a single volatile read of the pushed level, and
+	 * a second one of the level update while an update of the level has not
+	 * been committed. Otherwise the value is cached and only resolved again
+	 * when the <code>ConfigurationGeneration</code> has changed.
+	 * 
+	 * @return the effective level threshold.
+	 */
+	private int getEffectiveThreshold() {
+		Object pushedLevel = effectiveLevel;
+		if (pushedLevel instanceof Level) {
+			return ((Level) pushedLevel).toInt();
+		}
+		if (pushedLevel != null) {
+			return ((LevelUpdate.PendingLevel) pushedLevel).getLevel().toInt();
+		}
+
+		int generation = ConfigurationGeneration.current();
+		CachedThreshold cached = cachedThreshold;
+
+		if (cached == null || cached.generation != generation) {
+			cached = new CachedThreshold(generation, getEffectiveLevel().toInt());
+			cachedThreshold = cached;
+		}
+
+		return cached.threshold;
+	}
+
 	/**
 	 * Get the client ID.
 	 * 
@@ -142,6 +330,7 @@ public final class Logger {
 	 */
 	public void setClientID(String clientID) {
 		this.clientID = clientID;
+		pin();
 	}
 
 	/**
@@ -153,6 +342,64 @@ public final class Logger {
 		return name;
 	}
 
+	/**
+	 * Get the name of the <code>Logger</code> abbreviated with the specified
+	 * abbreviation. The abbreviated name is computed the first time and kept
+	 * in the logger, which means that formatting the name of a logger is
+	 * usually a lookup in a small array.
+	 * 
+	 * @param abbreviation
+	 *            the <code>NameAbbreviation</code> to use.
+	 * @return the abbreviated name.
+	 * @throws IllegalArgumentException
+	 *             if the <code>abbreviation</code> is <code>null</code>.
+	 */
+	public String getAbbreviatedName(NameAbbreviation abbreviation) throws IllegalArgumentException {
+		if (abbreviation == null) {
+			throw new IllegalArgumentException("The abbreviation must not be null.");
+		}
+
+		Object[] names = abbreviatedNames;
+		for (int index = 0; index < names.length; index += 2) {
+			if (names[index] == abbreviation || names[index].equals(abbreviation)) {
+				return (String) names[index + 1];
+			}
+		}
+
+		String abbreviatedName = abbreviation.abbreviate(name);
+		if (names.length < MAX_ABBREVIATED_NAMES * 2) {
+			Object[] newNames = new Object[names.length + 2];
+			System.arraycopy(names, 0, newNames, 0, names.length);
+			newNames[names.length] = abbreviation;
+			newNames[names.length + 1] = abbreviatedName;
+			abbreviatedNames = newNames;
+		}
+
+		return abbreviatedName;
+	}
+
+	/**
+	 * Get the object that adapts this logger to another logging API.
+	 * 
+	 * @return the adapter, or <code>null</code> if it has not been set.
+	 */
+	public Object getAdapter() {
+		return adapter;
+	}
+
+	/**
+	 * Set the object that adapts this logger to another logging API, e.g. the
+	 * SLF4J logger of this logger. If two threads set an adapter at the same
+	 * time, the last one is kept, so adapters of the same logger should be
+	 * equal.
+	 * 
+	 * @param adapter
+	 *            the adapter.
+	 */
+	public void setAdapter(Object adapter) {
+		this.adapter = adapter;
+	}
+
 	/**
 	 * Add the specified appender to the output appenders.
 	 * 
@@ -166,8 +413,29 @@ public final class Logger {
 			throw new IllegalArgumentException("Appender not allowed to be null");
 		}
 
-		if (!appenderList.contains(appender)) {
-			appenderList.add(appender);
+		synchronized (appenderLock) {
+			Appender[] current = appenders;
+
+			if (indexOf(current, appender) == -1) {
+				Appender[] updated = new Appender[current.length + 1];
+				System.arraycopy(current, 0, updated, 0, current.length);
+				updated[current.length] = appender;
+				appenders = updated;
+				ConfigurationGeneration.increment();
+			}
+		}
+		pin();
+
+		// An appender that is added after the log has been opened is opened
+		// here, so that the logging threads never open appenders
+		synchronized (openLock) {
+			if (appendersOpen && !appender.isLogOpen()) {
+				try {
+					appender.open();
+				} catch (IOException e) {
+					Log.e(TAG, "Failed to open appender. " + e);
+				}
+			}
 		}
 	}
 
@@ -189,7 +457,29 @@ public final class Logger {
 				Log.e(TAG, "Failed to close appender. " + e);
 			}
 		}
-		appenderList.remove(appender);
+
+		synchronized (appenderLock) {
+			Appender[] current = appenders;
+			int index = indexOf(current, appender);
+
+			if (index != -1) {
+				Appender[] updated = new Appender[current.length - 1];
+				System.arraycopy(current, 0, updated, 0, index);
+				System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+				appenders = updated.length == 0 ? NO_APPENDERS : updated;
+				ConfigurationGeneration.increment();
+			}
+		}
+	}
+
+	private static int indexOf(Appender[] appenderArray, Appender appender) {
+		for (int index = 0; index < appenderArray.length; index++) {
+			if (appenderArray[index].equals(appender)) {
+				return index;
+			}
+		}
+
+		return -1;
 	}
 
 	/**
@@ -197,7 +487,14 @@ public final class Logger {
 	 * 
 	 */
 	public void removeAllAppenders() {
-		for (Appender appender : appenderList) {
+		Appender[] removed;
+		synchronized (appenderLock) {
+			removed = appenders;
+			appenders = NO_APPENDERS;
+		}
+		ConfigurationGeneration.increment();
+
+		for (Appender appender : removed) {
 			if (appender.isLogOpen()) {
 				try {
 					appender.close();
@@ -206,16 +503,16 @@ public final class Logger {
 				}
 			}
 		}
-		appenderList.clear();
 	}
 
 	/**
-	 * Get the number of appenders.
+	 * Get the number of appenders attached to this logger. The inherited
+	 * appenders are not included.
 	 * 
 	 * @return the number of appenders.
 	 */
 	public int getNumberOfAppenders() {
-		return appenderList.size();
+		return appenders.length;
 	}
 
 	/**
@@ -226,7 +523,108 @@ public final class Logger {
 	 * @return the appender.
 	 */
 	public Appender getAppender(int index) {
-		return appenderList.get(index);
+		return appenders[index];
+	}
+
+	/**
+	 * Get the appenders attached to this logger. The returned array must not be
+	 * modified.
+	 * 
+	 * @return the appenders of this logger, never <code>null</code>.
+	 */
+	public Appender[] getAppenders() {
+		return appenders;
+	}
+
+	/**
+	 * Check if this logger inherits the appenders of its ancestors.
+	 * 
+	 * @return <code>true</code> if the logger is additive (the default).
+	 */
+	public boolean getAdditivity() {
+		return additive;
+	}
+
+	/**
+	 * Set whether this logger inherits the appenders of its ancestors, like
+	 * the additivity flag in Log4j. A logger that is not additive only logs to
+	 * its own appenders, and so do its descendants unless they have appenders
+	 * of their own.
+	 * 
+	 * @param additive
+	 *            <code>false</code> to stop inheriting appenders.
+	 */
+	public void setAdditivity(boolean additive) {
+		this.additive = additive;
+		ConfigurationGeneration.increment();
+		pin();
+	}
+
+	/**
+	 * Tell the repository that this logger has been configured, so that it is
+	 * kept even if the repository evicts unused loggers.
+	 */
+	private void pin() {
+		CommonLoggerRepository repository = commonLoggerRepository;
+		if (repository != null) {
+			repository.pinLogger(this);
+		}
+	}
+
+	/**
+	 * Get the appenders that are called when this logger logs, i.e. its own
+	 * appenders followed by the appenders inherited from its ancestors. The
+	 * flattened array is cached, so the hierarchy is only walked when the
+	 * configuration has changed.
+	 * 
+	 * @return the appenders to dispatch to, never <code>null</code>.
+	 */
+	Appender[] getDispatchAppenders() {
+		int generation = ConfigurationGeneration.current();
+		DispatchArray dispatch = dispatchArray;
+
+		if (dispatch == null || dispatch.generation != generation) {
+			dispatch = new DispatchArray(generation, buildDispatchAppenders());
+			dispatchArray = dispatch;
+		}
+
+		return dispatch.appenders;
+	}
+
+	private Appender[] buildDispatchAppenders() {
+		Appender[] own = appenders;
+		Appender[] inherited = NO_APPENDERS;
+
+		if (additive && commonLoggerRepository != null) {
+			inherited = commonLoggerRepository.getInheritedAppenders(name);
+		}
+
+		if (inherited.length == 0) {
+			return own;
+		}
+
+		Appender[] merged = new Appender[own.length + inherited.length];
+		System.arraycopy(own, 0, merged, 0, own.length);
+		int length = own.length;
+
+		for (Appender appender : inherited) {
+			boolean duplicate = false;
+			for (int index = 0; index < length && !duplicate; index++) {
+				duplicate = merged[index] == appender;
+			}
+
+			if (!duplicate) {
+				merged[length++] = appender;
+			}
+		}
+
+		if (length < merged.length) {
+			Appender[] trimmed = new Appender[length];
+			System.arraycopy(merged, 0, trimmed, 0, length);
+			merged = trimmed;
+		}
+
+		return merged;
 	}
 
 	/**
@@ -260,32 +658,251 @@ public final class Logger {
 			throw new IllegalArgumentException("The level must not be null.");
 		}
 
-		if (getEffectiveLevel().toInt() <= level.toInt() && level.toInt() > Level.OFF_INT) {
-			
-			if (firstLogEvent == true) {
-				addDefaultAppender();
+		if (isEnabledFor(level)) {
+			dispatch(level, message, t);
+		}
+	}
+
+	/**
+	 * Check if the specified level is enabled for this logger.
+	 */
+	private boolean isEnabledFor(Level level) {
+		int levelInt = level.toInt();
+		return getEffectiveThreshold() <= levelInt && levelInt > Level.OFF_INT;
+	}
+
+	/**
+	 * Format the message template and log it at the specified level. The
+	 * level has already been checked. If the last argument is a
+	 * <code>Throwable</code> that has no placeholder, it is logged as the
+	 * <code>Throwable</code> of the event.
+	 */
+	private void logTemplate(Level level, String template, Object[] arguments) {
+		int argumentCount = arguments == null ? 0 : arguments.length;
+		Throwable t = null;
+
+		if (argumentCount > 0 && arguments[argumentCount - 1] instanceof Throwable
+				&& MessageFormatter.countPlaceholders(template) < argumentCount) {
+			t = (Throwable) arguments[--argumentCount];
+		}
+
+		dispatch(level, MessageFormatter.format(template, arguments, argumentCount), t);
+	}
+
+	/**
+	 * Log the message created by the supplier at the specified level. The
+	 * supplier is only asked for the message if the level is enabled.
+	 */
+	private void logSupplied(Level level, MessageSupplier supplier, Throwable t) {
+		if (isEnabledFor(level)) {
+			dispatch(level, supplier == null ? null : supplier.getMessage(), t);
+		}
+	}
+
+	/**
+	 * Send the log event to the appenders, or to the asynchronous dispatcher.
+	 * The level has already been checked.
+	 */
+	private void dispatch(Level level, Object message, Throwable t) {
+		if (initialization.isComplete()) {
+			dispatchOpen(stopWatch.getCurrentTime(), level, message, t);
+		} else {
+			dispatchBeforeOpen(level, message, t);
+		}
+	}
+
+	/**
+	 * Dispatch an event when the log is open.
+	 */
+	private void dispatchOpen(long time, Level level, Object message, Throwable t) {
+		AsyncDispatcher dispatcher = asyncDispatcher;
+		if (dispatcher == null || !dispatcher.publish(this, clientID, time, level, message, t)) {
+			dispatchSynchronously(time, level, message, t);
+		}
+	}
+
+	/**
+	 * Dispatch an event before the log is open. The first thread to get here
+	 * opens the log, while the events of the other threads are buffered until
+	 * the log is open. This means that the appenders are opened once and that
+	 * only one thread waits for it.
+	 */
+	private void dispatchBeforeOpen(Level level, Object message, Throwable t) {
+		if (initialization.begin()) {
+			stopWatch.start();
+
+			try {
+				openLog();
+				dispatchOpen(stopWatch.getCurrentTime(), level, message, t);
+			} finally {
+				initialization.complete();
+			}
+		} else {
+			LogEvent event = new LogEvent();
+			event.set(this, clientID, stopWatch.getCurrentTime(), level, message, t);
+
+			if (!initialization.buffer(this, event)) {
+				replay(event);
+			}
+		}
+	}
+
+	/**
+	 * Dispatch an event that was created earlier, e.g. an event that was
+	 * buffered before the log was open.
+	 */
+	void replay(LogEvent event) {
+		AsyncDispatcher dispatcher = asyncDispatcher;
+		if (dispatcher == null || !dispatcher.publish(this, event)) {
+			callAppenders(event);
+		}
+	}
+
+	/**
+	 * Open the log on a background thread, instead of on the first log event.
+	 * The events that are logged before the log is open are buffered.
+	 * 
+	 * @param logger
+	 *            the <code>Logger</code> whose appenders to open, normally the
+	 *            root logger.
+	 * @return <code>false</code> if the log is already open or being opened.
+	 */
+	static boolean openInBackground(final Logger logger) {
+		if (!initialization.begin()) {
+			return false;
+		}
 
+		stopWatch.start();
+		Thread openThread = new Thread(OPEN_THREAD_NAME) {
+			public void run() {
 				try {
-					open();
-				} catch (IOException e) {
-					Log.e(TAG, "Failed to open the log. " + e);
+					logger.openLog();
+				} finally {
+					initialization.complete();
 				}
+			}
+		};
+		openThread.setDaemon(true);
+		openThread.start();
+
+		return true;
+	}
+
+	/**
+	 * Check if the log is open, i.e. if the first log event has been logged
+	 * or the log has been opened in the background.
+	 */
+	static boolean isOpen() {
+		return initialization.isComplete();
+	}
+
+	/**
+	 * Call the appenders on the logging thread, using the
+	 * <code>LogEvent</code> of the current thread.
+	 */
+	private void dispatchSynchronously(long time, Level level, Object message, Throwable t) {
+		LogEvent event = LogEvent.acquire();
+		event.set(this, clientID, time, level, message, t);
+
+		try {
+			callAppenders(event);
+		} finally {
+			event.release();
+		}
+	}
+
+	/**
+	 * Log a template with primitive arguments at the specified level. The
+	 * level has already been checked. When logging synchronously the
+	 * <code>PrimitiveMessage</code> of the current thread is reused, which
+	 * means that the event does not create any objects.
+	 */
+	private void logPrimitives(Level level, String template, int argumentCount, long value1, boolean double1,
+			long value2, boolean double2) {
+		if (asyncDispatcher == null && initialization.isComplete()) {
+			PrimitiveMessage message = PrimitiveMessage.acquire();
+			message.set(template, argumentCount, value1, double1, value2, double2);
 
-				stopWatch.start();
-				firstLogEvent = false;
+			try {
+				dispatchSynchronously(stopWatch.getCurrentTime(), level, message, null);
+			} finally {
+				message.release();
 			}
+		} else {
+			PrimitiveMessage message = new PrimitiveMessage();
+			message.set(template, argumentCount, value1, double1, value2, double2);
+			dispatch(level, message, null);
+		}
+	}
+
+	/**
+	 * Open the log, adding the default appender if no appender is set.
+	 */
+	private void openLog() {
+		addDefaultAppender();
+
+		try {
+			open();
+		} catch (IOException e) {
+			Log.e(TAG, "Failed to open the log. " + e);
+		}
+	}
+
+	/**
+	 * Call all the appenders with the log event. This is done on the logging
+	 * thread, or on the drain thread when asynchronous logging is used.
+	 * Appenders that are not <code>EventAppender</code>s are called with the
+	 * six argument <code>doLog()</code>.
+	 */
+	void callAppenders(LogEvent event) {
+		Appender[] snapshot = getDispatchAppenders();
+		for (int index = 0; index < snapshot.length; index++) {
+			Appender appender = snapshot[index];
 
-			for (Appender appender : appenderList) {
-				appender.doLog(clientID, name, stopWatch.getCurrentTime(), level, message, t);
+			if (appender instanceof EventAppender) {
+				((EventAppender) appender).doLog(event);
+			} else {
+				appender.doLog(event.getClientID(), event.getLoggerName(), event.getTime(), event.getLevel(),
+						event.getMessage(), event.getThrowable());
 			}
 		}
 	}
+
+	/**
+	 * Set the dispatcher that is used for asynchronous logging, or
+	 * <code>null</code> to log synchronously.
+	 */
+	static void setAsyncDispatcher(AsyncDispatcher dispatcher) {
+		asyncDispatcher = dispatcher;
+	}
+
+	static AsyncDispatcher getAsyncDispatcher() {
+		return asyncDispatcher;
+	}
+
+	/**
+	 * Set the coarse clock that is used for timestamps, or <code>null</code>
+	 * to read <code>System.nanoTime()</code> for each event.
+	 */
+	static void setTickingClock(TickingClock tickingClock) {
+		stopWatch.setTickingClock(tickingClock);
+	}
+
+	static TickingClock getTickingClock() {
+		return stopWatch.getTickingClock();
+	}
 	
 	private void addDefaultAppender() {
-		if(appenderList.size() == 0) {
-			Log.w(TAG, "Warning! No appender is set, using LogCatAppender with PatternFormatter");
-			Appender appender = DefaultAppenderFactory.createDefaultAppender();
-			addAppender(appender);
+		if (getDispatchAppenders().length == 0) {
+			Logger rootLogger = DefaultRepositoryFactory.getDefaultLoggerRepository().getRootLogger();
+
+			synchronized (rootLogger.appenderLock) {
+				if (rootLogger.appenders.length == 0) {
+					Log.w(TAG, "Warning! No appender is set, using LogCatAppender with PatternFormatter");
+					Appender appender = DefaultAppenderFactory.createDefaultAppender();
+					rootLogger.addAppender(appender);
+				}
+			}
 		}
 	}
 
@@ -295,8 +912,7 @@ public final class Logger {
 	 * @return true if logging is enabled.
 	 */
 	public boolean isTraceEnabled() {
-		Level effectiveLevel = getEffectiveLevel();
-		return effectiveLevel.toInt() <= Level.TRACE_INT;
+		return getEffectiveThreshold() <= Level.TRACE_INT;
 	}
 
 	/**
@@ -323,13 +939,195 @@ public final class Logger {
 	}
 
 	/**
-	 * Is this <code>Logger</code> enabled for DEBUG level?
+	 * Log the message and the <code>Throwable</code> object at
+	 * <code>Level.TRACE</code> level.
 	 * 
-	 * @return true if logging is enabled.
+	 * @param message
+	 *            the message to log.
+	 * @param t
+	 *            the <code>Throwable</code> object to log.
+	 */
+	public void trace(String message, Throwable t) {
+		log(Level.TRACE, message, t);
+	}
+
+	/**
+	 * Log the message template with one argument at <code>Level.TRACE</code> level.
+	 * The message is only formatted if the level is enabled.
+	 * 
+	 * @param template
+	 *            the message template, with a <code>{}</code> placeholder.
+	 * @param argument
+	 *            the argument to insert.
+	 */
+	public void trace(String template, Object argument) {
+		if (isEnabledFor(Level.TRACE)) {
+			logTemplate(Level.TRACE, template, new Object[] { argument });
+		}
+	}
+
+	/**
+	 * Log the message template with two arguments at <code>Level.TRACE</code> level.
+	 * The message is only formatted if the level is enabled.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void trace(String template, Object argument1, Object argument2) {
+		if (isEnabledFor(Level.TRACE)) {
+			logTemplate(Level.TRACE, template, new Object[] { argument1, argument2 });
+		}
+	}
+
+	/**
+	 * Log the message template with one <code>long</code> argument at
+	 * <code>Level.TRACE</code> level. The argument is not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with a <code>{}</code> placeholder.
+	 * @param argument
+	 *            the argument to insert.
+	 */
+	public void trace(String template, long argument) {
+		if (isEnabledFor(Level.TRACE)) {
+			logPrimitives(Level.TRACE, template, 1, argument, false, 0, false);
+		}
+	}
+
+	/**
+	 * Log the message template with one <code>double</code> argument at
+	 * <code>Level.TRACE</code> level. The argument is not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with a <code>{}</code> placeholder.
+	 * @param argument
+	 *            the argument to insert.
+	 */
+	public void trace(String template, double argument) {
+		if (isEnabledFor(Level.TRACE)) {
+			logPrimitives(Level.TRACE, template, 1, Double.doubleToRawLongBits(argument), true, 0, false);
+		}
+	}
+
+	/**
+	 * Log the message template with two <code>long</code> arguments at
+	 * <code>Level.TRACE</code> level. The arguments are not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void trace(String template, long argument1, long argument2) {
+		if (isEnabledFor(Level.TRACE)) {
+			logPrimitives(Level.TRACE, template, 2, argument1, false, argument2, false);
+		}
+	}
+
+	/**
+	 * Log the message template with a <code>long</code> and a <code>double</code> argument at
+	 * <code>Level.TRACE</code> level. The arguments are not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void trace(String template, long argument1, double argument2) {
+		if (isEnabledFor(Level.TRACE)) {
+			logPrimitives(Level.TRACE, template, 2, argument1, false, Double.doubleToRawLongBits(argument2), true);
+		}
+	}
+
+	/**
+	 * Log the message template with a <code>double</code> and a <code>long</code> argument at
+	 * <code>Level.TRACE</code> level. The arguments are not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void trace(String template, double argument1, long argument2) {
+		if (isEnabledFor(Level.TRACE)) {
+			logPrimitives(Level.TRACE, template, 2, Double.doubleToRawLongBits(argument1), true, argument2, false);
+		}
+	}
+
+	/**
+	 * Log the message template with two <code>double</code> arguments at
+	 * <code>Level.TRACE</code> level. The arguments are not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void trace(String template, double argument1, double argument2) {
+		if (isEnabledFor(Level.TRACE)) {
+			logPrimitives(Level.TRACE, template, 2, Double.doubleToRawLongBits(argument1), true, Double.doubleToRawLongBits(argument2), true);
+		}
+	}
+
+	/**
+	 * Log the message template with the arguments at <code>Level.TRACE</code> level.
+	 * The message is only formatted if the level is enabled.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param arguments
+	 *            the arguments to insert.
+	 */
+	public void trace(String template, Object... arguments) {
+		if (isEnabledFor(Level.TRACE)) {
+			logTemplate(Level.TRACE, template, arguments);
+		}
+	}
+
+	/**
+	 * Log the message created by the supplier at <code>Level.TRACE</code> level. The
+	 * supplier is only called if the level is enabled.
+	 * 
+	 * @param supplier
+	 *            the <code>MessageSupplier</code> that creates the message.
+	 */
+	public void trace(MessageSupplier supplier) {
+		logSupplied(Level.TRACE, supplier, null);
+	}
+
+	/**
+	 * Log the message created by the supplier and the <code>Throwable</code>
+	 * at <code>Level.TRACE</code> level. The supplier is only called if the level is
+	 * enabled.
+	 * 
+	 * @param supplier
+	 *            the <code>MessageSupplier</code> that creates the message.
+	 * @param t
+	 *            the <code>Throwable</code> object to log.
+	 */
+	public void trace(MessageSupplier supplier, Throwable t) {
+		logSupplied(Level.TRACE, supplier, t);
+	}
+
+	/**
+	 * Is this <code>Logger</code> enabled for DEBUG level?
+	 * 
+	 * @return true if logging is enabled.
 	 */
 	public boolean isDebugEnabled() {
-		Level effectiveLevel = getEffectiveLevel();
-		return effectiveLevel.toInt() <= Level.DEBUG_INT;
+		return getEffectiveThreshold() <= Level.DEBUG_INT;
 	}
 
 	/**
@@ -355,14 +1153,196 @@ public final class Logger {
 		log(Level.DEBUG, message, t);
 	}
 
+	/**
+	 * Log the message and the <code>Throwable</code> object at
+	 * <code>Level.DEBUG</code> level.
+	 * 
+	 * @param message
+	 *            the message to log.
+	 * @param t
+	 *            the <code>Throwable</code> object to log.
+	 */
+	public void debug(String message, Throwable t) {
+		log(Level.DEBUG, message, t);
+	}
+
+	/**
+	 * Log the message template with one argument at <code>Level.DEBUG</code> level.
+	 * The message is only formatted if the level is enabled.
+	 * 
+	 * @param template
+	 *            the message template, with a <code>{}</code> placeholder.
+	 * @param argument
+	 *            the argument to insert.
+	 */
+	public void debug(String template, Object argument) {
+		if (isEnabledFor(Level.DEBUG)) {
+			logTemplate(Level.DEBUG, template, new Object[] { argument });
+		}
+	}
+
+	/**
+	 * Log the message template with two arguments at <code>Level.DEBUG</code> level.
+	 * The message is only formatted if the level is enabled.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void debug(String template, Object argument1, Object argument2) {
+		if (isEnabledFor(Level.DEBUG)) {
+			logTemplate(Level.DEBUG, template, new Object[] { argument1, argument2 });
+		}
+	}
+
+	/**
+	 * Log the message template with one <code>long</code> argument at
+	 * <code>Level.DEBUG</code> level. The argument is not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with a <code>{}</code> placeholder.
+	 * @param argument
+	 *            the argument to insert.
+	 */
+	public void debug(String template, long argument) {
+		if (isEnabledFor(Level.DEBUG)) {
+			logPrimitives(Level.DEBUG, template, 1, argument, false, 0, false);
+		}
+	}
+
+	/**
+	 * Log the message template with one <code>double</code> argument at
+	 * <code>Level.DEBUG</code> level. The argument is not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with a <code>{}</code> placeholder.
+	 * @param argument
+	 *            the argument to insert.
+	 */
+	public void debug(String template, double argument) {
+		if (isEnabledFor(Level.DEBUG)) {
+			logPrimitives(Level.DEBUG, template, 1, Double.doubleToRawLongBits(argument), true, 0, false);
+		}
+	}
+
+	/**
+	 * Log the message template with two <code>long</code> arguments at
+	 * <code>Level.DEBUG</code> level. The arguments are not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void debug(String template, long argument1, long argument2) {
+		if (isEnabledFor(Level.DEBUG)) {
+			logPrimitives(Level.DEBUG, template, 2, argument1, false, argument2, false);
+		}
+	}
+
+	/**
+	 * Log the message template with a <code>long</code> and a <code>double</code> argument at
+	 * <code>Level.DEBUG</code> level. The arguments are not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void debug(String template, long argument1, double argument2) {
+		if (isEnabledFor(Level.DEBUG)) {
+			logPrimitives(Level.DEBUG, template, 2, argument1, false, Double.doubleToRawLongBits(argument2), true);
+		}
+	}
+
+	/**
+	 * Log the message template with a <code>double</code> and a <code>long</code> argument at
+	 * <code>Level.DEBUG</code> level. The arguments are not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void debug(String template, double argument1, long argument2) {
+		if (isEnabledFor(Level.DEBUG)) {
+			logPrimitives(Level.DEBUG, template, 2, Double.doubleToRawLongBits(argument1), true, argument2, false);
+		}
+	}
+
+	/**
+	 * Log the message template with two <code>double</code> arguments at
+	 * <code>Level.DEBUG</code> level. The arguments are not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void debug(String template, double argument1, double argument2) {
+		if (isEnabledFor(Level.DEBUG)) {
+			logPrimitives(Level.DEBUG, template, 2, Double.doubleToRawLongBits(argument1), true, Double.doubleToRawLongBits(argument2), true);
+		}
+	}
+
+	/**
+	 * Log the message template with the arguments at <code>Level.DEBUG</code> level.
+	 * The message is only formatted if the level is enabled.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param arguments
+	 *            the arguments to insert.
+	 */
+	public void debug(String template, Object... arguments) {
+		if (isEnabledFor(Level.DEBUG)) {
+			logTemplate(Level.DEBUG, template, arguments);
+		}
+	}
+
+	/**
+	 * Log the message created by the supplier at <code>Level.DEBUG</code> level. The
+	 * supplier is only called if the level is enabled.
+	 * 
+	 * @param supplier
+	 *            the <code>MessageSupplier</code> that creates the message.
+	 */
+	public void debug(MessageSupplier supplier) {
+		logSupplied(Level.DEBUG, supplier, null);
+	}
+
+	/**
+	 * Log the message created by the supplier and the <code>Throwable</code>
+	 * at <code>Level.DEBUG</code> level. The supplier is only called if the level is
+	 * enabled.
+	 * 
+	 * @param supplier
+	 *            the <code>MessageSupplier</code> that creates the message.
+	 * @param t
+	 *            the <code>Throwable</code> object to log.
+	 */
+	public void debug(MessageSupplier supplier, Throwable t) {
+		logSupplied(Level.DEBUG, supplier, t);
+	}
+
 	/**
 	 * Is this <code>Logger</code> enabled for INFO level?
 	 * 
 	 * @return true if the <code>Level.INFO</code> level is enabled.
 	 */
 	public boolean isInfoEnabled() {
-		Level effectiveLevel = getEffectiveLevel();
-		return effectiveLevel.toInt() <= Level.INFO_INT;
+		return getEffectiveThreshold() <= Level.INFO_INT;
 	}
 
 	/**
@@ -388,6 +1368,189 @@ public final class Logger {
 		log(Level.INFO, message, t);
 	}
 
+	/**
+	 * Log the message and the <code>Throwable</code> object at
+	 * <code>Level.INFO</code> level.
+	 * 
+	 * @param message
+	 *            the message to log.
+	 * @param t
+	 *            the <code>Throwable</code> object to log.
+	 */
+	public void info(String message, Throwable t) {
+		log(Level.INFO, message, t);
+	}
+
+	/**
+	 * Log the message template with one argument at <code>Level.INFO</code> level.
+	 * The message is only formatted if the level is enabled.
+	 * 
+	 * @param template
+	 *            the message template, with a <code>{}</code> placeholder.
+	 * @param argument
+	 *            the argument to insert.
+	 */
+	public void info(String template, Object argument) {
+		if (isEnabledFor(Level.INFO)) {
+			logTemplate(Level.INFO, template, new Object[] { argument });
+		}
+	}
+
+	/**
+	 * Log the message template with two arguments at <code>Level.INFO</code> level.
+	 * The message is only formatted if the level is enabled.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void info(String template, Object argument1, Object argument2) {
+		if (isEnabledFor(Level.INFO)) {
+			logTemplate(Level.INFO, template, new Object[] { argument1, argument2 });
+		}
+	}
+
+	/**
+	 * Log the message template with one <code>long</code> argument at
+	 * <code>Level.INFO</code> level. The argument is not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with a <code>{}</code> placeholder.
+	 * @param argument
+	 *            the argument to insert.
+	 */
+	public void info(String template, long argument) {
+		if (isEnabledFor(Level.INFO)) {
+			logPrimitives(Level.INFO, template, 1, argument, false, 0, false);
+		}
+	}
+
+	/**
+	 * Log the message template with one <code>double</code> argument at
+	 * <code>Level.INFO</code> level. The argument is not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with a <code>{}</code> placeholder.
+	 * @param argument
+	 *            the argument to insert.
+	 */
+	public void info(String template, double argument) {
+		if (isEnabledFor(Level.INFO)) {
+			logPrimitives(Level.INFO, template, 1, Double.doubleToRawLongBits(argument), true, 0, false);
+		}
+	}
+
+	/**
+	 * Log the message template with two <code>long</code> arguments at
+	 * <code>Level.INFO</code> level. The arguments are not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void info(String template, long argument1, long argument2) {
+		if (isEnabledFor(Level.INFO)) {
+			logPrimitives(Level.INFO, template, 2, argument1, false, argument2, false);
+		}
+	}
+
+	/**
+	 * Log the message template with a <code>long</code> and a <code>double</code> argument at
+	 * <code>Level.INFO</code> level. The arguments are not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void info(String template, long argument1, double argument2) {
+		if (isEnabledFor(Level.INFO)) {
+			logPrimitives(Level.INFO, template, 2, argument1, false, Double.doubleToRawLongBits(argument2), true);
+		}
+	}
+
+	/**
+	 * Log the message template with a <code>double</code> and a <code>long</code> argument at
+	 * <code>Level.INFO</code> level. The arguments are not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void info(String template, double argument1, long argument2) {
+		if (isEnabledFor(Level.INFO)) {
+			logPrimitives(Level.INFO, template, 2, Double.doubleToRawLongBits(argument1), true, argument2, false);
+		}
+	}
+
+	/**
+	 * Log the message template with two <code>double</code> arguments at
+	 * <code>Level.INFO</code> level. The arguments are not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void info(String template, double argument1, double argument2) {
+		if (isEnabledFor(Level.INFO)) {
+			logPrimitives(Level.INFO, template, 2, Double.doubleToRawLongBits(argument1), true, Double.doubleToRawLongBits(argument2), true);
+		}
+	}
+
+	/**
+	 * Log the message template with the arguments at <code>Level.INFO</code> level.
+	 * The message is only formatted if the level is enabled.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param arguments
+	 *            the arguments to insert.
+	 */
+	public void info(String template, Object... arguments) {
+		if (isEnabledFor(Level.INFO)) {
+			logTemplate(Level.INFO, template, arguments);
+		}
+	}
+
+	/**
+	 * Log the message created by the supplier at <code>Level.INFO</code> level. The
+	 * supplier is only called if the level is enabled.
+	 * 
+	 * @param supplier
+	 *            the <code>MessageSupplier</code> that creates the message.
+	 */
+	public void info(MessageSupplier supplier) {
+		logSupplied(Level.INFO, supplier, null);
+	}
+
+	/**
+	 * Log the message created by the supplier and the <code>Throwable</code>
+	 * at <code>Level.INFO</code> level. The supplier is only called if the level is
+	 * enabled.
+	 * 
+	 * @param supplier
+	 *            the <code>MessageSupplier</code> that creates the message.
+	 * @param t
+	 *            the <code>Throwable</code> object to log.
+	 */
+	public void info(MessageSupplier supplier, Throwable t) {
+		logSupplied(Level.INFO, supplier, t);
+	}
+
 	/**
 	 * Log the specified message at <code>Level.WARN</code> level.
 	 * 
@@ -411,6 +1574,189 @@ public final class Logger {
 		log(Level.WARN, message, t);
 	}
 
+	/**
+	 * Log the message and the <code>Throwable</code> object at
+	 * <code>Level.WARN</code> level.
+	 * 
+	 * @param message
+	 *            the message to log.
+	 * @param t
+	 *            the <code>Throwable</code> object to log.
+	 */
+	public void warn(String message, Throwable t) {
+		log(Level.WARN, message, t);
+	}
+
+	/**
+	 * Log the message template with one argument at <code>Level.WARN</code> level.
+	 * The message is only formatted if the level is enabled.
+	 * 
+	 * @param template
+	 *            the message template, with a <code>{}</code> placeholder.
+	 * @param argument
+	 *            the argument to insert.
+	 */
+	public void warn(String template, Object argument) {
+		if (isEnabledFor(Level.WARN)) {
+			logTemplate(Level.WARN, template, new Object[] { argument });
+		}
+	}
+
+	/**
+	 * Log the message template with two arguments at <code>Level.WARN</code> level.
+	 * The message is only formatted if the level is enabled.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void warn(String template, Object argument1, Object argument2) {
+		if (isEnabledFor(Level.WARN)) {
+			logTemplate(Level.WARN, template, new Object[] { argument1, argument2 });
+		}
+	}
+
+	/**
+	 * Log the message template with one <code>long</code> argument at
+	 * <code>Level.WARN</code> level. The argument is not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with a <code>{}</code> placeholder.
+	 * @param argument
+	 *            the argument to insert.
+	 */
+	public void warn(String template, long argument) {
+		if (isEnabledFor(Level.WARN)) {
+			logPrimitives(Level.WARN, template, 1, argument, false, 0, false);
+		}
+	}
+
+	/**
+	 * Log the message template with one <code>double</code> argument at
+	 * <code>Level.WARN</code> level. The argument is not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with a <code>{}</code> placeholder.
+	 * @param argument
+	 *            the argument to insert.
+	 */
+	public void warn(String template, double argument) {
+		if (isEnabledFor(Level.WARN)) {
+			logPrimitives(Level.WARN, template, 1, Double.doubleToRawLongBits(argument), true, 0, false);
+		}
+	}
+
+	/**
+	 * Log the message template with two <code>long</code> arguments at
+	 * <code>Level.WARN</code> level. The arguments are not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void warn(String template, long argument1, long argument2) {
+		if (isEnabledFor(Level.WARN)) {
+			logPrimitives(Level.WARN, template, 2, argument1, false, argument2, false);
+		}
+	}
+
+	/**
+	 * Log the message template with a <code>long</code> and a <code>double</code> argument at
+	 * <code>Level.WARN</code> level. The arguments are not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void warn(String template, long argument1, double argument2) {
+		if (isEnabledFor(Level.WARN)) {
+			logPrimitives(Level.WARN, template, 2, argument1, false, Double.doubleToRawLongBits(argument2), true);
+		}
+	}
+
+	/**
+	 * Log the message template with a <code>double</code> and a <code>long</code> argument at
+	 * <code>Level.WARN</code> level. The arguments are not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void warn(String template, double argument1, long argument2) {
+		if (isEnabledFor(Level.WARN)) {
+			logPrimitives(Level.WARN, template, 2, Double.doubleToRawLongBits(argument1), true, argument2, false);
+		}
+	}
+
+	/**
+	 * Log the message template with two <code>double</code> arguments at
+	 * <code>Level.WARN</code> level. The arguments are not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void warn(String template, double argument1, double argument2) {
+		if (isEnabledFor(Level.WARN)) {
+			logPrimitives(Level.WARN, template, 2, Double.doubleToRawLongBits(argument1), true, Double.doubleToRawLongBits(argument2), true);
+		}
+	}
+
+	/**
+	 * Log the message template with the arguments at <code>Level.WARN</code> level.
+	 * The message is only formatted if the level is enabled.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param arguments
+	 *            the arguments to insert.
+	 */
+	public void warn(String template, Object... arguments) {
+		if (isEnabledFor(Level.WARN)) {
+			logTemplate(Level.WARN, template, arguments);
+		}
+	}
+
+	/**
+	 * Log the message created by the supplier at <code>Level.WARN</code> level. The
+	 * supplier is only called if the level is enabled.
+	 * 
+	 * @param supplier
+	 *            the <code>MessageSupplier</code> that creates the message.
+	 */
+	public void warn(MessageSupplier supplier) {
+		logSupplied(Level.WARN, supplier, null);
+	}
+
+	/**
+	 * Log the message created by the supplier and the <code>Throwable</code>
+	 * at <code>Level.WARN</code> level. The supplier is only called if the level is
+	 * enabled.
+	 * 
+	 * @param supplier
+	 *            the <code>MessageSupplier</code> that creates the message.
+	 * @param t
+	 *            the <code>Throwable</code> object to log.
+	 */
+	public void warn(MessageSupplier supplier, Throwable t) {
+		logSupplied(Level.WARN, supplier, t);
+	}
+
 	/**
 	 * Log the specified message at ERROR level.
 	 * 
@@ -433,6 +1779,189 @@ public final class Logger {
 		log(Level.ERROR, message, t);
 	}
 
+	/**
+	 * Log the message and the <code>Throwable</code> object at
+	 * <code>Level.ERROR</code> level.
+	 * 
+	 * @param message
+	 *            the message to log.
+	 * @param t
+	 *            the <code>Throwable</code> object to log.
+	 */
+	public void error(String message, Throwable t) {
+		log(Level.ERROR, message, t);
+	}
+
+	/**
+	 * Log the message template with one argument at <code>Level.ERROR</code> level.
+	 * The message is only formatted if the level is enabled.
+	 * 
+	 * @param template
+	 *            the message template, with a <code>{}</code> placeholder.
+	 * @param argument
+	 *            the argument to insert.
+	 */
+	public void error(String template, Object argument) {
+		if (isEnabledFor(Level.ERROR)) {
+			logTemplate(Level.ERROR, template, new Object[] { argument });
+		}
+	}
+
+	/**
+	 * Log the message template with two arguments at <code>Level.ERROR</code> level.
+	 * The message is only formatted if the level is enabled.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void error(String template, Object argument1, Object argument2) {
+		if (isEnabledFor(Level.ERROR)) {
+			logTemplate(Level.ERROR, template, new Object[] { argument1, argument2 });
+		}
+	}
+
+	/**
+	 * Log the message template with one <code>long</code> argument at
+	 * <code>Level.ERROR</code> level. The argument is not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with a <code>{}</code> placeholder.
+	 * @param argument
+	 *            the argument to insert.
+	 */
+	public void error(String template, long argument) {
+		if (isEnabledFor(Level.ERROR)) {
+			logPrimitives(Level.ERROR, template, 1, argument, false, 0, false);
+		}
+	}
+
+	/**
+	 * Log the message template with one <code>double</code> argument at
+	 * <code>Level.ERROR</code> level. The argument is not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with a <code>{}</code> placeholder.
+	 * @param argument
+	 *            the argument to insert.
+	 */
+	public void error(String template, double argument) {
+		if (isEnabledFor(Level.ERROR)) {
+			logPrimitives(Level.ERROR, template, 1, Double.doubleToRawLongBits(argument), true, 0, false);
+		}
+	}
+
+	/**
+	 * Log the message template with two <code>long</code> arguments at
+	 * <code>Level.ERROR</code> level. The arguments are not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void error(String template, long argument1, long argument2) {
+		if (isEnabledFor(Level.ERROR)) {
+			logPrimitives(Level.ERROR, template, 2, argument1, false, argument2, false);
+		}
+	}
+
+	/**
+	 * Log the message template with a <code>long</code> and a <code>double</code> argument at
+	 * <code>Level.ERROR</code> level. The arguments are not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void error(String template, long argument1, double argument2) {
+		if (isEnabledFor(Level.ERROR)) {
+			logPrimitives(Level.ERROR, template, 2, argument1, false, Double.doubleToRawLongBits(argument2), true);
+		}
+	}
+
+	/**
+	 * Log the message template with a <code>double</code> and a <code>long</code> argument at
+	 * <code>Level.ERROR</code> level. The arguments are not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void error(String template, double argument1, long argument2) {
+		if (isEnabledFor(Level.ERROR)) {
+			logPrimitives(Level.ERROR, template, 2, Double.doubleToRawLongBits(argument1), true, argument2, false);
+		}
+	}
+
+	/**
+	 * Log the message template with two <code>double</code> arguments at
+	 * <code>Level.ERROR</code> level. The arguments are not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void error(String template, double argument1, double argument2) {
+		if (isEnabledFor(Level.ERROR)) {
+			logPrimitives(Level.ERROR, template, 2, Double.doubleToRawLongBits(argument1), true, Double.doubleToRawLongBits(argument2), true);
+		}
+	}
+
+	/**
+	 * Log the message template with the arguments at <code>Level.ERROR</code> level.
+	 * The message is only formatted if the level is enabled.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param arguments
+	 *            the arguments to insert.
+	 */
+	public void error(String template, Object... arguments) {
+		if (isEnabledFor(Level.ERROR)) {
+			logTemplate(Level.ERROR, template, arguments);
+		}
+	}
+
+	/**
+	 * Log the message created by the supplier at <code>Level.ERROR</code> level. The
+	 * supplier is only called if the level is enabled.
+	 * 
+	 * @param supplier
+	 *            the <code>MessageSupplier</code> that creates the message.
+	 */
+	public void error(MessageSupplier supplier) {
+		logSupplied(Level.ERROR, supplier, null);
+	}
+
+	/**
+	 * Log the message created by the supplier and the <code>Throwable</code>
+	 * at <code>Level.ERROR</code> level. The supplier is only called if the level is
+	 * enabled.
+	 * 
+	 * @param supplier
+	 *            the <code>MessageSupplier</code> that creates the message.
+	 * @param t
+	 *            the <code>Throwable</code> object to log.
+	 */
+	public void error(MessageSupplier supplier, Throwable t) {
+		logSupplied(Level.ERROR, supplier, t);
+	}
+
 	/**
 	 * Log the specified message at FATAL level.
 	 * 
@@ -455,6 +1984,189 @@ public final class Logger {
 		log(Level.FATAL, message, t);
 	}
 
+	/**
+	 * Log the message and the <code>Throwable</code> object at
+	 * <code>Level.FATAL</code> level.
+	 * 
+	 * @param message
+	 *            the message to log.
+	 * @param t
+	 *            the <code>Throwable</code> object to log.
+	 */
+	public void fatal(String message, Throwable t) {
+		log(Level.FATAL, message, t);
+	}
+
+	/**
+	 * Log the message template with one argument at <code>Level.FATAL</code> level.
+	 * The message is only formatted if the level is enabled.
+	 * 
+	 * @param template
+	 *            the message template, with a <code>{}</code> placeholder.
+	 * @param argument
+	 *            the argument to insert.
+	 */
+	public void fatal(String template, Object argument) {
+		if (isEnabledFor(Level.FATAL)) {
+			logTemplate(Level.FATAL, template, new Object[] { argument });
+		}
+	}
+
+	/**
+	 * Log the message template with two arguments at <code>Level.FATAL</code> level.
+	 * The message is only formatted if the level is enabled.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void fatal(String template, Object argument1, Object argument2) {
+		if (isEnabledFor(Level.FATAL)) {
+			logTemplate(Level.FATAL, template, new Object[] { argument1, argument2 });
+		}
+	}
+
+	/**
+	 * Log the message template with one <code>long</code> argument at
+	 * <code>Level.FATAL</code> level. The argument is not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with a <code>{}</code> placeholder.
+	 * @param argument
+	 *            the argument to insert.
+	 */
+	public void fatal(String template, long argument) {
+		if (isEnabledFor(Level.FATAL)) {
+			logPrimitives(Level.FATAL, template, 1, argument, false, 0, false);
+		}
+	}
+
+	/**
+	 * Log the message template with one <code>double</code> argument at
+	 * <code>Level.FATAL</code> level. The argument is not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with a <code>{}</code> placeholder.
+	 * @param argument
+	 *            the argument to insert.
+	 */
+	public void fatal(String template, double argument) {
+		if (isEnabledFor(Level.FATAL)) {
+			logPrimitives(Level.FATAL, template, 1, Double.doubleToRawLongBits(argument), true, 0, false);
+		}
+	}
+
+	/**
+	 * Log the message template with two <code>long</code> arguments at
+	 * <code>Level.FATAL</code> level. The arguments are not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void fatal(String template, long argument1, long argument2) {
+		if (isEnabledFor(Level.FATAL)) {
+			logPrimitives(Level.FATAL, template, 2, argument1, false, argument2, false);
+		}
+	}
+
+	/**
+	 * Log the message template with a <code>long</code> and a <code>double</code> argument at
+	 * <code>Level.FATAL</code> level. The arguments are not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void fatal(String template, long argument1, double argument2) {
+		if (isEnabledFor(Level.FATAL)) {
+			logPrimitives(Level.FATAL, template, 2, argument1, false, Double.doubleToRawLongBits(argument2), true);
+		}
+	}
+
+	/**
+	 * Log the message template with a <code>double</code> and a <code>long</code> argument at
+	 * <code>Level.FATAL</code> level. The arguments are not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void fatal(String template, double argument1, long argument2) {
+		if (isEnabledFor(Level.FATAL)) {
+			logPrimitives(Level.FATAL, template, 2, Double.doubleToRawLongBits(argument1), true, argument2, false);
+		}
+	}
+
+	/**
+	 * Log the message template with two <code>double</code> arguments at
+	 * <code>Level.FATAL</code> level. The arguments are not boxed.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param argument1
+	 *            the first argument to insert.
+	 * @param argument2
+	 *            the second argument to insert.
+	 */
+	public void fatal(String template, double argument1, double argument2) {
+		if (isEnabledFor(Level.FATAL)) {
+			logPrimitives(Level.FATAL, template, 2, Double.doubleToRawLongBits(argument1), true, Double.doubleToRawLongBits(argument2), true);
+		}
+	}
+
+	/**
+	 * Log the message template with the arguments at <code>Level.FATAL</code> level.
+	 * The message is only formatted if the level is enabled.
+	 * 
+	 * @param template
+	 *            the message template, with <code>{}</code> placeholders.
+	 * @param arguments
+	 *            the arguments to insert.
+	 */
+	public void fatal(String template, Object... arguments) {
+		if (isEnabledFor(Level.FATAL)) {
+			logTemplate(Level.FATAL, template, arguments);
+		}
+	}
+
+	/**
+	 * Log the message created by the supplier at <code>Level.FATAL</code> level. The
+	 * supplier is only called if the level is enabled.
+	 * 
+	 * @param supplier
+	 *            the <code>MessageSupplier</code> that creates the message.
+	 */
+	public void fatal(MessageSupplier supplier) {
+		logSupplied(Level.FATAL, supplier, null);
+	}
+
+	/**
+	 * Log the message created by the supplier and the <code>Throwable</code>
+	 * at <code>Level.FATAL</code> level. The supplier is only called if the level is
+	 * enabled.
+	 * 
+	 * @param supplier
+	 *            the <code>MessageSupplier</code> that creates the message.
+	 * @param t
+	 *            the <code>Throwable</code> object to log.
+	 */
+	public void fatal(MessageSupplier supplier, Throwable t) {
+		logSupplied(Level.FATAL, supplier, t);
+	}
+
 	/**
 	 * @see java.lang.Object#toString()
 	 */
@@ -463,7 +2175,7 @@ public final class Logger {
 		stringBuffer.append(super.toString());
 		stringBuffer.append('[');
 
-		for (Appender appender : appenderList) {
+		for (Appender appender : appenders) {
 			stringBuffer.append(appender);
 			stringBuffer.append(';');
 		}
@@ -477,33 +2189,109 @@ public final class Logger {
 	 * default level.
 	 */
 	public synchronized void resetLogger() {
-		Logger.appenderList.clear();
+		synchronized (appenderLock) {
+			appenders = NO_APPENDERS;
+		}
+		additive = true;
 		Logger.stopWatch.stop();
 		Logger.stopWatch.reset();
-		Logger.firstLogEvent = true;
+		Logger.initialization.reset();
+		synchronized (openLock) {
+			appendersOpen = false;
+		}
+		ConfigurationGeneration.increment();
 	}
 
 	/**
-	 * Open the log. The logging is now turned on.
+	 * Open the log. The logging is now turned on. The appenders of all the
+	 * loggers in the repository are opened, and the appenders that are added
+	 * from now on are opened when they are added.
 	 */
 	void open() throws IOException {
-		for (Appender appender : appenderList) {
-			appender.open();
+		synchronized (openLock) {
+			try {
+				CommonLoggerRepository repository = commonLoggerRepository;
+				if (repository != null) {
+					repository.openAppenders();
+				}
+
+				for (Appender appender : getDispatchAppenders()) {
+					if (!appender.isLogOpen()) {
+						appender.open();
+					}
+				}
+			} finally {
+				appendersOpen = true;
+			}
 		}
 	}
 
 	/**
-	 * Close the log. From this point on, no logging is done.
+	 * Open the appenders of this logger that are not open. This is called by
+	 * the repository when the log is opened, and should not be called by
+	 * anyone else.
+	 */
+	public void openAppenders() {
+		openAppenders(appenders);
+	}
+
+	private static void openAppenders(Appender[] appenderArray) {
+		for (Appender appender : appenderArray) {
+			if (!appender.isLogOpen()) {
+				try {
+					appender.open();
+				} catch (IOException e) {
+					Log.e(TAG, "Failed to open appender. " + e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Close the appenders of this logger. From this point on, no logging is
+	 * done to them until the next log event opens the log again.
 	 * 
 	 * @throws IOException
 	 *             if the <code>Logger</code> failed to close.
 	 */
 	public void close() throws IOException {
-		for (Appender appender : appenderList) {
-			appender.close();
+		synchronized (openLock) {
+			appendersOpen = false;
+			for (Appender appender : appenders) {
+				appender.close();
+			}
 		}
 
 		stopWatch.stop();
-		Logger.firstLogEvent = true;
+		Logger.initialization.reset();
+	}
+
+	/**
+	 * The flattened appenders together with the configuration generation they
+	 * were built in. They are kept in one immutable object so that they are
+	 * always read and published together.
+	 */
+	private static final class DispatchArray {
+		final int generation;
+		final Appender[] appenders;
+
+		DispatchArray(int generation, Appender[] appenders) {
+			this.generation = generation;
+			this.appenders = appenders;
+		}
+	}
+
+	/**
+	 * An effective level threshold together with the configuration generation
+	 * it was resolved in.
+	 */
+	private static final class CachedThreshold {
+		final int generation;
+		final int threshold;
+
+		CachedThreshold(int generation, int threshold) {
+			this.generation = generation;
+			this.threshold = threshold;
+		}
 	}
 }
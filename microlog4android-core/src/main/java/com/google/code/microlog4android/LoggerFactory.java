@@ -26,6 +26,18 @@ import com.google.code.microlog4android.repository.LoggerRepository;
  * 
  */
 public class LoggerFactory {
+
+	/**
+	 * The maximum time in milliseconds that <code>shutdown()</code> waits for
+	 * queued log events to be dispatched.
+	 */
+	public static final long DEFAULT_SHUTDOWN_TIMEOUT = 2000;
+
+	/**
+	 * The default number of events that can be queued when asynchronous
+	 * logging is used.
+	 */
+	public static final int DEFAULT_ASYNC_BUFFER_SIZE = 1024;
 	
 	/**
 	 * The reference to the underlying logger repository.
@@ -76,9 +88,126 @@ public class LoggerFactory {
 	}
 
 	/**
-	 * Shutdown Microlog.
+	 * Switch to asynchronous logging using the default buffer size and the
+	 * <code>WaitStrategy.BLOCKING</code> wait strategy.
+	 * 
+	 * @see #startAsync(int, WaitStrategy)
+	 */
+	public static void startAsync() {
+		startAsync(DEFAULT_ASYNC_BUFFER_SIZE, WaitStrategy.BLOCKING);
+	}
+
+	/**
+	 * Switch to asynchronous logging. The logging threads only do the level
+	 * check and put the event in a bounded buffer, while a dedicated thread
+	 * calls the appenders. If asynchronous logging is already started, this
+	 * call has no effect.
+	 * 
+	 * @param bufferSize
+	 *            the number of events that can be queued. It is rounded up to
+	 *            the nearest power of two.
+	 * @param waitStrategy
+	 *            the <code>WaitStrategy</code> to use when the buffer is empty
+	 *            or full.
+	 * @throws IllegalArgumentException
+	 *             if the <code>bufferSize</code> is less than 1 or the
+	 *             <code>waitStrategy</code> is <code>null</code>.
+	 */
+	public static synchronized void startAsync(int bufferSize, WaitStrategy waitStrategy)
+			throws IllegalArgumentException {
+		if (Logger.getAsyncDispatcher() == null) {
+			AsyncDispatcher dispatcher = new AsyncDispatcher(bufferSize, waitStrategy);
+			dispatcher.start();
+			Logger.setAsyncDispatcher(dispatcher);
+		}
+	}
+
+	/**
+	 * Switch back to synchronous logging. The events that are queued are
+	 * dispatched before this method returns, but it does not wait longer than
+	 * the specified timeout.
+	 * 
+	 * @param timeoutMillis
+	 *            the maximum time to wait for the queued events to be
+	 *            dispatched.
+	 * @return <code>true</code> if all the queued events were dispatched.
+	 */
+	public static synchronized boolean stopAsync(long timeoutMillis) {
+		AsyncDispatcher dispatcher = Logger.getAsyncDispatcher();
+		boolean drained = true;
+
+		if (dispatcher != null) {
+			Logger.setAsyncDispatcher(null);
+			drained = dispatcher.stop(timeoutMillis);
+		}
+
+		return drained;
+	}
+
+	/**
+	 * Check if asynchronous logging is used.
+	 * 
+	 * @return <code>true</code> if asynchronous logging is used.
+	 */
+	public static boolean isAsync() {
+		return Logger.getAsyncDispatcher() != null;
+	}
+
+	/**
+	 * Open the appenders on a background thread now, instead of on the thread
+	 * that logs the first event. This keeps slow appenders, e.g. a
+	 * <code>FileAppender</code> on external storage, from delaying the first
+	 * log call. Events that are logged before the appenders are open are kept
+	 * in a small buffer and logged in order when they are. This has no effect
+	 * if the log is already open.
+	 */
+	public static void openInBackground() {
+		Logger.openInBackground(loggerRepository.getRootLogger());
+	}
+
+	/**
+	 * Use a coarse clock for the timestamps. The time is cached and updated by
+	 * a background thread at the specified resolution, instead of being read
+	 * for each log event. This is only worth it at very high event rates. If a
+	 * coarse clock is already used, it is replaced.
+	 * 
+	 * @param resolutionMillis
+	 *            the time between two updates of the clock.
+	 * @throws IllegalArgumentException
+	 *             if the <code>resolutionMillis</code> is less than 1.
+	 */
+	public static synchronized void startCoarseClock(long resolutionMillis) throws IllegalArgumentException {
+		TickingClock tickingClock = new TickingClock(resolutionMillis);
+		tickingClock.start();
+
+		TickingClock previous = Logger.getTickingClock();
+		Logger.setTickingClock(tickingClock);
+
+		if (previous != null) {
+			previous.stop();
+		}
+	}
+
+	/**
+	 * Stop using the coarse clock, i.e. read the time for each log event.
+	 */
+	public static synchronized void stopCoarseClock() {
+		TickingClock tickingClock = Logger.getTickingClock();
+
+		if (tickingClock != null) {
+			Logger.setTickingClock(null);
+			tickingClock.stop();
+		}
+	}
+
+	/**
+	 * Shutdown Microlog. If asynchronous logging is used, the queued events are
+	 * dispatched first, waiting at most
+	 * <code>DEFAULT_SHUTDOWN_TIMEOUT</code> milliseconds.
 	 */
 	public static void shutdown() {
+		stopAsync(DEFAULT_SHUTDOWN_TIMEOUT);
+		stopCoarseClock();
 		loggerRepository.shutdown();
 	}
 
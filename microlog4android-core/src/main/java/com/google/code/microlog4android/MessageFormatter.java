@@ -0,0 +1,184 @@
+/*
+ * Copyright 2010 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android;
+
+import java.util.Arrays;
+
+/**
+ * The <code>MessageFormatter</code> replaces the <code>{}</code> placeholders
+ * of a message template with the arguments, in the same way as SLF4J. A
+ * placeholder that is preceded by a backslash is not replaced, e.g.
+ * <code>"Set \\{} is {}"</code> gives <code>"Set {} is 42"</code>.
+ * 
+ * The message is built in a <code>StringBuilder</code> that is reused by each
+ * thread, which means that the only object created is the resulting
+ * <code>String</code>.
+ * 
+ * @author Johan Karlsson
+ */
+enum MessageFormatter {
+	;
+
+	private static final char DELIMITER_START = '{';
+
+	private static final char DELIMITER_STOP = '}';
+
+	private static final char ESCAPE_CHAR = '\\';
+
+	private static final int INITIAL_BUFFER_CAPACITY = 128;
+
+	/**
+	 * Buffers that have grown beyond this are not kept, to avoid holding on to
+	 * the memory of a single huge message.
+	 */
+	private static final int MAX_BUFFER_CAPACITY = 4096;
+
+	private static final ThreadLocal<Buffer> buffers = new ThreadLocal<Buffer>() {
+		protected Buffer initialValue() {
+			return new Buffer();
+		}
+	};
+
+	/**
+	 * Format the template with the specified arguments.
+	 * 
+	 * @param template
+	 *            the message template, may be <code>null</code>.
+	 * @param arguments
+	 *            the arguments to insert.
+	 * @param argumentCount
+	 *            the number of arguments to use.
+	 * @return the formatted message.
+	 */
+	static String format(String template, Object[] arguments, int argumentCount) {
+		if (template == null) {
+			return null;
+		}
+
+		Buffer buffer = buffers.get();
+		StringBuilder builder;
+		if (buffer.inUse) {
+			// An argument logs from its toString() method
+			builder = new StringBuilder(template.length() + INITIAL_BUFFER_CAPACITY);
+		} else {
+			builder = buffer.builder;
+			builder.setLength(0);
+			buffer.inUse = true;
+		}
+
+		try {
+			appendTo(builder, template, arguments, argumentCount);
+			return builder.toString();
+		} finally {
+			if (builder == buffer.builder) {
+				if (builder.capacity() > MAX_BUFFER_CAPACITY) {
+					buffer.builder = new StringBuilder(INITIAL_BUFFER_CAPACITY);
+				}
+				buffer.inUse = false;
+			}
+		}
+	}
+
+	/**
+	 * Append the formatted template to the specified
+	 * <code>StringBuilder</code>.
+	 */
+	static void appendTo(StringBuilder builder, String template, Object[] arguments, int argumentCount) {
+		int start = 0;
+		int argumentIndex = 0;
+
+		while (argumentIndex < argumentCount) {
+			start = appendToPlaceholder(builder, template, start);
+
+			if (start == -1) {
+				return;
+			}
+
+			appendArgument(builder, arguments[argumentIndex++]);
+		}
+
+		builder.append(template, start, template.length());
+	}
+
+	/**
+	 * Append the template from the specified index up to the next
+	 * placeholder. Escaped placeholders are appended as <code>{}</code>. If
+	 * there are no more placeholders, the rest of the template is appended.
+	 * 
+	 * @return the index after the placeholder, or <code>-1</code> if there
+	 *         are no more placeholders.
+	 */
+	static int appendToPlaceholder(StringBuilder builder, String template, int start) {
+		int length = template.length();
+		int placeholder = template.indexOf(DELIMITER_START, start);
+
+		while (placeholder != -1 && placeholder + 1 < length) {
+			if (template.charAt(placeholder + 1) != DELIMITER_STOP) {
+				placeholder = template.indexOf(DELIMITER_START, placeholder + 1);
+			} else if (placeholder > 0 && template.charAt(placeholder - 1) == ESCAPE_CHAR) {
+				builder.append(template, start, placeholder - 1);
+				builder.append(DELIMITER_START).append(DELIMITER_STOP);
+				start = placeholder + 2;
+				placeholder = template.indexOf(DELIMITER_START, start);
+			} else {
+				builder.append(template, start, placeholder);
+				return placeholder + 2;
+			}
+		}
+
+		builder.append(template, start, length);
+		return -1;
+	}
+
+	/**
+	 * Count the number of placeholders in the template.
+	 * 
+	 * @return the number of placeholders.
+	 */
+	static int countPlaceholders(String template) {
+		if (template == null) {
+			return 0;
+		}
+
+		int count = 0;
+		int placeholder = template.indexOf(DELIMITER_START);
+
+		while (placeholder != -1 && placeholder + 1 < template.length()) {
+			if (template.charAt(placeholder + 1) == DELIMITER_STOP
+					&& (placeholder == 0 || template.charAt(placeholder - 1) != ESCAPE_CHAR)) {
+				count++;
+			}
+			placeholder = template.indexOf(DELIMITER_START, placeholder + 1);
+		}
+
+		return count;
+	}
+
+	private static void appendArgument(StringBuilder builder, Object argument) {
+		if (argument instanceof Object[]) {
+			builder.append(Arrays.deepToString((Object[]) argument));
+		} else {
+			builder.append(argument);
+		}
+	}
+
+	/**
+	 * The reusable <code>StringBuilder</code> of a thread.
+	 */
+	private static final class Buffer {
+		StringBuilder builder = new StringBuilder(INITIAL_BUFFER_CAPACITY);
+		boolean inUse;
+	}
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2010 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android;
+
+/**
+ * A <code>MessageSupplier</code> creates a log message on demand. It is used
+ * when the message is expensive to create, since the <code>Logger</code> only
+ * asks for the message if the level is enabled.
+ * 
+ * <pre>
+ * logger.debug(new MessageSupplier() {
+ * 	public Object getMessage() {
+ * 		return cache.dumpStatistics();
+ * 	}
+ * });
+ * </pre>
+ * 
+ * @author Johan Karlsson
+ */
+public interface MessageSupplier {
+
+	/**
+	 * Create the message to log.
+	 * 
+	 * @return the message.
+	 */
+	Object getMessage();
+}
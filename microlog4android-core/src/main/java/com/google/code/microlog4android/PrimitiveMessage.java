@@ -0,0 +1,136 @@
+/*
+ * Copyright 2010 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android;
+
+/**
+ * A message template with one or two primitive arguments. The arguments are
+ * kept unboxed and are appended directly to the output buffer of the
+ * formatter, i.e. no wrapper objects or intermediate strings are created.
+ * 
+ * When logging synchronously, each thread reuses the same
+ * <code>PrimitiveMessage</code>. This means that an appender must not keep a
+ * reference to it after <code>doLog()</code> has returned; it shall be
+ * formatted or converted with <code>toString()</code> first.
+ * 
+ * @author Johan Karlsson
+ */
+public final class PrimitiveMessage {
+
+	static final int MAX_ARGUMENTS = 2;
+
+	private static final ThreadLocal<PrimitiveMessage> messages = new ThreadLocal<PrimitiveMessage>() {
+		protected PrimitiveMessage initialValue() {
+			return new PrimitiveMessage();
+		}
+	};
+
+	private String template;
+
+	private int argumentCount;
+
+	/**
+	 * The arguments. A <code>double</code> is stored as its raw bits.
+	 */
+	private final long[] values = new long[MAX_ARGUMENTS];
+
+	private final boolean[] doubles = new boolean[MAX_ARGUMENTS];
+
+	private boolean inUse;
+
+	PrimitiveMessage() {
+	}
+
+	/**
+	 * Get the <code>PrimitiveMessage</code> of the current thread, or a new
+	 * one if it is already in use, e.g. by an appender that logs.
+	 * 
+	 * @return a <code>PrimitiveMessage</code> that must be released after
+	 *         use.
+	 */
+	static PrimitiveMessage acquire() {
+		PrimitiveMessage message = messages.get();
+
+		if (message.inUse) {
+			message = new PrimitiveMessage();
+		}
+		message.inUse = true;
+
+		return message;
+	}
+
+	/**
+	 * Release the message so that it can be reused by the current thread.
+	 */
+	void release() {
+		template = null;
+		inUse = false;
+	}
+
+	void set(String template, int argumentCount, long value1, boolean double1, long value2, boolean double2) {
+		this.template = template;
+		this.argumentCount = argumentCount;
+		values[0] = value1;
+		doubles[0] = double1;
+		values[1] = value2;
+		doubles[1] = double2;
+	}
+
+	/**
+	 * Get the message template.
+	 * 
+	 * @return the template.
+	 */
+	public String getTemplate() {
+		return template;
+	}
+
+	/**
+	 * Append the formatted message to the specified buffer.
+	 * 
+	 * @param builder
+	 *            the <code>StringBuilder</code> to append to.
+	 */
+	public void appendTo(StringBuilder builder) {
+		if (template == null) {
+			return;
+		}
+
+		int start = 0;
+		for (int index = 0; index < argumentCount; index++) {
+			start = MessageFormatter.appendToPlaceholder(builder, template, start);
+
+			if (start == -1) {
+				return;
+			}
+
+			if (doubles[index]) {
+				builder.append(Double.longBitsToDouble(values[index]));
+			} else {
+				builder.append(values[index]);
+			}
+		}
+
+		builder.append(template, start, template.length());
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		StringBuilder builder = new StringBuilder(template == null ? 4 : template.length() + 16);
+		appendTo(builder);
+		return builder.toString();
+	}
+}
@@ -16,22 +16,30 @@
 package com.google.code.microlog4android;
 
 /**
- * A class that works as a stop watch.
+ * A class that works as a stop watch. It is lock-free when reading the time,
+ * which means that logging threads never block each other to get a
+ * timestamp. The time is based on <code>System.nanoTime()</code>, so it is
+ * not affected by changes of the wall clock.
+ * 
+ * If a <code>TickingClock</code> is set, its cached time is used instead of
+ * calling <code>System.nanoTime()</code> for each reading.
  * 
  * @author Johan Karlsson (johan.karlsson@jayway.se)
  */
 class StopWatch {
 
-	private boolean started;
-	private long startTime;
-	private long currentTime;
-	private long stopTime;
+	private static final long NANOS_PER_MILLI = 1000L * 1000L;
+
+	private volatile boolean started;
+	private volatile long startTime;
+	private volatile long stopTime;
+	private volatile TickingClock tickingClock;
 
 	/**
 	 * Start the <code>StopWatch</code>.
 	 */
 	public synchronized void start() {
-		this.startTime = System.currentTimeMillis();
+		this.startTime = nanoTime();
 		started = true;
 	}
 
@@ -41,13 +49,16 @@ class StopWatch {
 	 * @return the current time as milliseconds since the <code>StopWatch</code>
 	 *         was started.
 	 */
-	public synchronized long getCurrentTime() {
+	public long getCurrentTime() {
 
 		if (started) {
-			currentTime = System.currentTimeMillis() - startTime;
+			long currentTime = (nanoTime() - startTime) / NANOS_PER_MILLI;
+
+			// A coarse clock may lag behind the start time
+			return currentTime < 0 ? 0 : currentTime;
 		}
 
-		return currentTime;
+		return stopTime;
 	}
 
 	/**
@@ -57,8 +68,8 @@ class StopWatch {
 	 */
 	public synchronized long stop() {
 
-		stopTime = System.currentTimeMillis();
-		currentTime = stopTime - startTime;
+		long currentTime = getCurrentTime();
+		stopTime = currentTime;
 		started = false;
 
 		return currentTime;
@@ -70,13 +81,37 @@ class StopWatch {
 	public synchronized void reset() {
 
 		if (started) {
-			startTime = System.currentTimeMillis();
+			startTime = nanoTime();
 		} else {
 			startTime = 0;
 		}
 
 		stopTime = 0;
-		currentTime = 0;
+	}
+
+	/**
+	 * Set the <code>TickingClock</code> to read the time from, or
+	 * <code>null</code> to read <code>System.nanoTime()</code> directly.
+	 * 
+	 * @param tickingClock
+	 *            the <code>TickingClock</code> to use.
+	 */
+	void setTickingClock(TickingClock tickingClock) {
+		this.tickingClock = tickingClock;
+	}
+
+	/**
+	 * Get the <code>TickingClock</code> in use.
+	 * 
+	 * @return the <code>TickingClock</code> or <code>null</code>.
+	 */
+	TickingClock getTickingClock() {
+		return tickingClock;
+	}
+
+	private long nanoTime() {
+		TickingClock clock = tickingClock;
+		return clock == null ? System.nanoTime() : clock.nanoTime();
 	}
 
 	/**
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2010 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A coarse clock that caches <code>System.nanoTime()</code> in a volatile
+ * field, which is updated by a background thread at a fixed resolution.
+ * Reading the time is then a plain memory read, which pays off at very high
+ * event rates. The timestamps are never more than about one resolution behind
+ * the real time.
+ * 
+ * @author Johan Karlsson
+ */
+final class TickingClock implements Runnable {
+
+	static final String THREAD_NAME = "microlog-clock-ticker";
+
+	private final long resolutionNanos;
+
+	private final Thread tickerThread;
+
+	private volatile long nanoTime = System.nanoTime();
+
+	private volatile boolean running;
+
+	/**
+	 * Create a <code>TickingClock</code>.
+	 * 
+	 * @param resolutionMillis
+	 *            the time between two updates of the clock.
+	 * @throws IllegalArgumentException
+	 *             if the <code>resolutionMillis</code> is less than 1.
+	 */
+	TickingClock(long resolutionMillis) throws IllegalArgumentException {
+		if (resolutionMillis < 1) {
+			throw new IllegalArgumentException("The resolution must be at least 1 ms.");
+		}
+
+		resolutionNanos = resolutionMillis * 1000L * 1000L;
+		tickerThread = new Thread(this, THREAD_NAME);
+		tickerThread.setDaemon(true);
+	}
+
+	/**
+	 * Start the ticker thread.
+	 */
+	void start() {
+		running = true;
+		tickerThread.start();
+	}
+
+	/**
+	 * Stop the ticker thread. The clock keeps the last time it was updated
+	 * with.
+	 */
+	void stop() {
+		running = false;
+		LockSupport.unpark(tickerThread);
+	}
+
+	/**
+	 * Get the cached time.
+	 * 
+	 * @return the value of <code>System.nanoTime()</code> at the last tick.
+	 */
+	long nanoTime() {
+		return nanoTime;
+	}
+
+	/**
+	 * Get the resolution of the clock.
+	 * 
+	 * @return the time between two updates in milliseconds.
+	 */
+	long getResolutionMillis() {
+		return resolutionNanos / (1000L * 1000L);
+	}
+
+	/**
+	 * The tick loop.
+	 */
+	public void run() {
+		while (running) {
+			nanoTime = System.nanoTime();
+			LockSupport.parkNanos(resolutionNanos);
+		}
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2010 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The strategy used by the asynchronous dispatcher when there is nothing to
+ * do, i.e. when the drain thread waits for new log events or when a logging
+ * thread waits for a free slot in a full buffer.
+ *
+ * The strategies trade CPU usage against latency. On a device
+ * <code>BLOCKING</code> is normally the right choice, since it lets the drain
+ * thread sleep until an event is published.
+ *
+ * @author Johan Karlsson
+ */
+public enum WaitStrategy {
+
+	/**
+	 * Park the drain thread until a logging thread signals that an event has
+	 * been published. This uses the least CPU.
+	 */
+	BLOCKING {
+		int waitForEvent(int counter) {
+			LockSupport.parkNanos(BLOCKING_PARK_NANOS);
+			return counter;
+		}
+
+		boolean isSignalling() {
+			return true;
+		}
+	},
+
+	/**
+	 * Spin, then yield and finally park for the shortest possible time.
+	 */
+	SLEEPING {
+		int waitForEvent(int counter) {
+			return backOff(counter);
+		}
+	},
+
+	/**
+	 * Spin for a while and then yield the processor between each check.
+	 */
+	YIELDING {
+		int waitForEvent(int counter) {
+			if (counter < SPIN_TRIES) {
+				return counter + 1;
+			}
+
+			Thread.yield();
+			return counter;
+		}
+	},
+
+	/**
+	 * Never give up the processor. Only useful when there are more cores than
+	 * busy threads.
+	 */
+	BUSY_SPIN {
+		int waitForEvent(int counter) {
+			return counter;
+		}
+
+		int waitForSpace(int counter) {
+			return counter;
+		}
+	};
+
+	private static final int SPIN_TRIES = 100;
+
+	private static final int YIELD_TRIES = 100;
+
+	private static final long BLOCKING_PARK_NANOS = 10L * 1000L * 1000L;
+
+	/**
+	 * Wait for a logging thread to publish an event. Called on the drain
+	 * thread.
+	 *
+	 * @param counter
+	 *            the number of times we have waited so far, <code>0</code> on
+	 *            the first call.
+	 * @return the counter to pass in on the next call.
+	 */
+	abstract int waitForEvent(int counter);
+
+	/**
+	 * Wait for the drain thread to free a slot in the buffer. Called on a
+	 * logging thread.
+	 *
+	 * @param counter
+	 *            the number of times we have waited so far, <code>0</code> on
+	 *            the first call.
+	 * @return the counter to pass in on the next call.
+	 */
+	int waitForSpace(int counter) {
+		return backOff(counter);
+	}
+
+	/**
+	 * Check if the drain thread must be explicitly woken up when an event has
+	 * been published.
+	 *
+	 * @return <code>true</code> if the logging threads shall signal the drain
+	 *         thread.
+	 */
+	boolean isSignalling() {
+		return false;
+	}
+
+	static int backOff(int counter) {
+		if (counter < SPIN_TRIES) {
+			return counter + 1;
+		} else if (counter < SPIN_TRIES + YIELD_TRIES) {
+			Thread.yield();
+			return counter + 1;
+		}
+
+		LockSupport.parkNanos(1L);
+		return counter;
+	}
+}
@@ -17,6 +17,7 @@ package com.google.code.microlog4android.appender;
 import java.io.IOException;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 import com.google.code.microlog4android.format.Formatter;
 import com.google.code.microlog4android.format.SimpleFormatter;
 
@@ -27,7 +28,7 @@ import com.google.code.microlog4android.format.SimpleFormatter;
  * @author Johan Karlsson (johan.karlsson@jayway.se)
  * @since 0.1
  */
-public abstract class AbstractAppender implements Appender {
+public abstract class AbstractAppender implements EventAppender {
 
 	/**
 	 * This is the default formatter used by all subclasses. The subclass can
@@ -93,6 +94,47 @@ public abstract class AbstractAppender implements Appender {
 	public abstract void doLog(String clientID, String name, long time,
 			Level level, Object message, Throwable t);
 
+	/**
+	 * Do the logging of the event. The default implementation calls the six
+	 * argument <code>doLog()</code>, which means that existing subclasses
+	 * work unchanged. Subclasses that use the event data, e.g. the thread
+	 * name, shall override this.
+	 * 
+	 * @see com.google.code.microlog4android.appender.EventAppender#doLog(com.google.code.microlog4android.LogEvent)
+	 */
+	public void doLog(LogEvent event) {
+		doLog(event.getClientID(), event.getLoggerName(), event.getTime(), event.getLevel(), event.getMessage(),
+				event.getThrowable());
+	}
+
+	/**
+	 * Format the event with the <code>Formatter</code> of this appender. The
+	 * output is shared with the other appenders that use an equivalent
+	 * formatter, so the event is only formatted once.
+	 * 
+	 * @param event
+	 *            the <code>LogEvent</code> to format.
+	 * @return the formatted event.
+	 */
+	protected String format(LogEvent event) {
+		return event.format(formatter);
+	}
+
+	/**
+	 * Format the event with the <code>Formatter</code> of this appender and
+	 * append the output. An <code>AppendingFormatter</code> does this without
+	 * creating a <code>String</code>, also when the event already has been
+	 * formatted for another appender.
+	 * 
+	 * @param event
+	 *            the <code>LogEvent</code> to format.
+	 * @param builder
+	 *            the <code>StringBuilder</code> to append to.
+	 */
+	protected void format(LogEvent event, StringBuilder builder) {
+		event.format(formatter, builder);
+	}
+
 	/**
 	 * Clear the log.
 	 * 
@@ -36,7 +36,9 @@ public interface Appender {
 	int SIZE_UNDEFINED = -1;
 
 	/**
-	 * Do the logging.
+	 * Do the logging. The message may be reused by the logger once this call
+	 * has returned, e.g. a <code>PrimitiveMessage</code>, so an appender that
+	 * keeps the message for later must keep its <code>toString()</code>.
 	 * 
 	 * @param clientID
 	 *            the id of the client.
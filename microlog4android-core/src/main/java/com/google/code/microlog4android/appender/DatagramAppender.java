@@ -18,10 +18,14 @@ import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.nio.ByteBuffer;
 
 import android.util.Log;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.format.BinaryEncoder;
+import com.google.code.microlog4android.format.Utf8Encoder;
 
 
 
@@ -30,6 +34,12 @@ import com.google.code.microlog4android.Level;
  * <code>Datagram</code> to a server. This can be used on Android or in a
  * Java SE environment.
  * 
+ * The messages are encoded as UTF-8 into a buffer that is reused, so sending
+ * an event does not create a byte array. A binary appender sends the events
+ * encoded by a <code>BinaryEncoder</code> instead. Datagrams may be lost or
+ * reordered, so each datagram is a binary stream of its own that can be
+ * decoded without the others.
+ * 
  * @author Johan Karlsson
  * 
  */
@@ -48,6 +58,12 @@ public class DatagramAppender extends AbstractAppender {
 
 	private DatagramPacket datagramPacket;
 
+	private final Utf8Encoder encoder = new Utf8Encoder();
+
+	private final BinaryEncoder binaryEncoder = new BinaryEncoder();
+
+	private boolean binary = false;
+
 	/**
 	 * @see com.google.code.microlog4android.appender.AbstractAppender#open()
 	 */
@@ -72,10 +88,19 @@ public class DatagramAppender extends AbstractAppender {
 	@Override
 	public void doLog(String clientID, String name, long time, Level level,
 			Object message, Throwable t) {
-		if (logOpen && formatter != null) {
-			String logMessage = formatter.format(clientID, name, time, level,
-					message, t);
-			sendMessage(logMessage);
+		doLog(new LogEvent(clientID, name, time, level, message, t));
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.AbstractAppender#doLog(com.google.code.microlog4android.LogEvent)
+	 */
+	@Override
+	public synchronized void doLog(LogEvent event) {
+		if (logOpen && binary) {
+			binaryEncoder.reset();
+			sendData(binaryEncoder.encode(event));
+		} else if (logOpen && formatter != null) {
+			sendData(encoder.encode(event, formatter, null));
 		}
 	}
 
@@ -86,8 +111,44 @@ public class DatagramAppender extends AbstractAppender {
 	 *            the message to send.
 	 */
 	public void sendMessage(String message) {
+		sendChars(message);
+	}
+
+	/**
+	 * Encode the chars as UTF-8 and send them as a <code>Datagram</code>.
+	 * 
+	 * @param chars
+	 *            the chars to send.
+	 */
+	protected synchronized void sendChars(CharSequence chars) {
+		sendData(encoder.encode(chars));
+	}
+
+	/**
+	 * Send the remaining bytes of the buffer as a <code>Datagram</code>. The
+	 * buffer must have an accessible array.
+	 * 
+	 * @param buffer
+	 *            the data to send.
+	 */
+	protected void sendData(ByteBuffer buffer) {
+		datagramPacket.setData(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+
+		try {
+			datagramSocket.send(datagramPacket);
+		} catch (IOException e) {
+			Log.e(TAG, "Failed to send datagram log " + e);
+		}
+	}
 
-		byte[] datagramData = message.getBytes();
+	/**
+	 * Send the specified data as a <code>Datagram</code>. The data is not
+	 * modified.
+	 * 
+	 * @param datagramData
+	 *            the data to send.
+	 */
+	protected void sendData(byte[] datagramData) {
 		datagramPacket.setData(datagramData);
 
 		try {
@@ -129,4 +190,15 @@ public class DatagramAppender extends AbstractAppender {
 		this.port = port;
 	}
 
+	/**
+	 * Set if the events shall be sent in the binary format of the
+	 * <code>BinaryEncoder</code> instead of as formatted text.
+	 * 
+	 * @param binary
+	 *            the binary to set (default = false)
+	 */
+	public synchronized void setBinary(boolean binary) {
+		this.binary = binary;
+	}
+
 }
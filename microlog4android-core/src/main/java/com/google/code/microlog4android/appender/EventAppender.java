@@ -0,0 +1,40 @@
+/*
+ * Copyright 2010 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.appender;
+
+import com.google.code.microlog4android.LogEvent;
+
+/**
+ * An <code>Appender</code> that takes the whole <code>LogEvent</code>. The
+ * <code>Logger</code> calls <code>doLog(LogEvent)</code> on appenders that
+ * implement this interface, and the six argument <code>doLog()</code> on all
+ * the others. All the appenders that extend <code>AbstractAppender</code> are
+ * <code>EventAppender</code>s.
+ * 
+ * @author Johan Karlsson
+ */
+public interface EventAppender extends Appender {
+
+	/**
+	 * Do the logging. The event is only valid during this call, and so is its
+	 * message, which may be reused by the logger afterwards, e.g. a
+	 * <code>PrimitiveMessage</code>. An appender that keeps the message for
+	 * later must keep its <code>toString()</code>.
+	 * 
+	 * @param event
+	 *            the <code>LogEvent</code> to log.
+	 */
+	void doLog(LogEvent event);
+}
@@ -17,8 +17,9 @@ package com.google.code.microlog4android.appender;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 
 import android.content.Context;
 import android.os.Build;
@@ -26,10 +27,17 @@ import android.os.Environment;
 import android.util.Log;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.format.BinaryEncoder;
+import com.google.code.microlog4android.format.Utf8Encoder;
 
 /**
  * An appender to log to a file in on the SDCard.
  * 
+ * The events are written as formatted lines of text, or, when the appender is
+ * binary, encoded by a <code>BinaryEncoder</code>. A binary log is much
+ * smaller and is read back with the <code>BinaryDecoder</code>.
+ * 
  * @author Johan Karlsson
  * @author Dan Walkes
  * 
@@ -38,10 +46,26 @@ public class FileAppender extends AbstractAppender {
 	private static final String TAG = "Microlog.FileAppender";
 	
 	public static final String DEFAULT_FILENAME = "microlog.txt";
+
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
 	
 	private String fileName = DEFAULT_FILENAME;
 
-	private PrintWriter writer;
+	private OutputStream outputStream;
+
+	/**
+	 * Encodes the events into a buffer that is reused. It is only used while
+	 * holding the lock of the appender.
+	 */
+	private final Utf8Encoder encoder = new Utf8Encoder();
+
+	/**
+	 * Encodes the events when the appender is binary. It is only used while
+	 * holding the lock of the appender.
+	 */
+	private final BinaryEncoder binaryEncoder = new BinaryEncoder();
+
+	private boolean binary = false;
 
 	private boolean append = false;
 	
@@ -89,7 +113,8 @@ public class FileAppender extends AbstractAppender {
 			FileOutputStream fileOutputStream = new FileOutputStream(logFile, append);
 			
 			if(fileOutputStream != null) {
-				writer = new PrintWriter(fileOutputStream);
+				outputStream = fileOutputStream;
+				binaryEncoder.reset();
 				logOpen = true;
 			} else {
 				Log.e(TAG, "Failed to create the log file (no stream)");
@@ -111,8 +136,10 @@ public class FileAppender extends AbstractAppender {
 	@Override
 	public synchronized void close() throws IOException {
 		Log.i(TAG, "Closing the FileAppender");
-		if (writer != null) {
-			writer.close();
+		logOpen = false;
+		if (outputStream != null) {
+			outputStream.close();
+			outputStream = null;
 		}
 	}
 
@@ -122,13 +149,22 @@ public class FileAppender extends AbstractAppender {
 	 *      java.lang.Object, java.lang.Throwable)
 	 */
 	@Override
-	public synchronized void doLog(String clientID, String name, long time, Level level,
+	public void doLog(String clientID, String name, long time, Level level,
 			Object message, Throwable throwable) {
-		if (logOpen && formatter != null && writer != null) {
-			writer.println(formatter.format(clientID, name, time, level,
-					message, throwable));
-			writer.flush();
+		doLog(new LogEvent(clientID, name, time, level, message, throwable));
+	}
 
+	/**
+	 * @see com.google.code.microlog4android.appender.AbstractAppender#doLog(com.google.code.microlog4android.LogEvent)
+	 */
+	@Override
+	public synchronized void doLog(LogEvent event) {
+		if (logOpen && binary && outputStream != null) {
+			write(binaryEncoder.encode(event));
+		} else if (logOpen && formatter != null && outputStream != null) {
+			writeLine(event);
+
+			Throwable throwable = event.getThrowable();
 			if (throwable != null) {
 				throwable.printStackTrace();
 			}
@@ -138,6 +174,24 @@ public class FileAppender extends AbstractAppender {
 
 	}
 
+	/**
+	 * Write the formatted event and a line separator, encoded as UTF-8. The
+	 * event is encoded into the buffer of the encoder and written with one
+	 * write to the file, so that no <code>String</code> or byte array is
+	 * created for it when the formatter can append.
+	 */
+	private void writeLine(LogEvent event) {
+		write(encoder.encode(event, formatter, LINE_SEPARATOR));
+	}
+
+	private void write(ByteBuffer bytes) {
+		try {
+			outputStream.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+		} catch (IOException e) {
+			Log.e(TAG, "Failed to write to the log file " + e);
+		}
+	}
+
 	/**
 	 * @see com.google.code.microlog4android.appender.Appender#getLogSize()
 	 */
@@ -169,6 +223,18 @@ public class FileAppender extends AbstractAppender {
 		this.append = append;
 	}
 
+	/**
+	 * Set if the events shall be written in the binary format of the
+	 * <code>BinaryEncoder</code> instead of as formatted text. The formatter
+	 * is not used for a binary log.
+	 * 
+	 * @param binary
+	 *            the binary to set (default = false)
+	 */
+	public synchronized void setBinary(boolean binary) {
+		this.binary = binary;
+	}
+
 	/**
 	 * Android 1.6-2.1 used {@link Environment#getExternalStorageDirectory()} 
 	 *  to return the (root)
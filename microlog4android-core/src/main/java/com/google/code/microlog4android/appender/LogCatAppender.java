@@ -5,6 +5,7 @@ import java.io.IOException;
 import android.util.Log;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 
 public class LogCatAppender extends AbstractAppender {
 
@@ -15,26 +16,32 @@ public class LogCatAppender extends AbstractAppender {
 
 	@Override
 	public void doLog(String clientID, String name, long time, Level level, Object message, Throwable t) {
+		doLog(new LogEvent(clientID, name, time, level, message, t));
+	}
+
+	@Override
+	public void doLog(LogEvent event) {
 
 		if (logOpen && formatter != null) {
+			String clientID = event.getClientID();
 						
-			switch (level) {
+			switch (event.getLevel()) {
 			case FATAL:
 			case ERROR:
-				Log.e(clientID, formatter.format(clientID, name, time, level, message, t));
+				Log.e(clientID, format(event));
 				break;
 			
 			case WARN:
-				Log.w(clientID, formatter.format(clientID, name, time, level, message, t));
+				Log.w(clientID, format(event));
 				break;
 			
 			case INFO:
-				Log.i(clientID, formatter.format(clientID, name, time, level, message, t));
+				Log.i(clientID, format(event));
 				break;
 				
 			case DEBUG:
 			case TRACE:
-				Log.d(clientID, formatter.format(clientID, name, time, level, message, t));
+				Log.d(clientID, format(event));
 				break;
 			default:
 				break;
@@ -4,6 +4,7 @@
 package com.google.code.microlog4android.appender;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 
 /**
  * 
@@ -13,6 +14,12 @@ import com.google.code.microlog4android.Level;
 public class SyslogAppender extends DatagramAppender {
 	
 	private SyslogMessage syslogMessage = new SyslogMessage();
+
+	/**
+	 * The buffer that the messages are built in. It is only used while
+	 * holding the lock of the appender.
+	 */
+	private final StringBuilder messageBuilder = new StringBuilder(256);
 	
 	public SyslogAppender(){
 		super.setPort(SyslogMessage.DEFAULT_SYSLOG_PORT);
@@ -33,8 +40,21 @@ public class SyslogAppender extends DatagramAppender {
 	 */
 	public void doLog(String clientID, String name, long time, Level level,
 			Object message, Throwable t) {
+		doLog(new LogEvent(clientID, name, time, level, message, t));
+	}
+
+	/**
+	 * Do the logging of the event.
+	 * 
+	 * @param event
+	 *            the <code>LogEvent</code> to log.
+	 */
+	public synchronized void doLog(LogEvent event) {
 		if (logOpen && formatter != null) {
-			sendMessage(syslogMessage.createMessageData(formatter.format(clientID, name, time, level, message, t)));
+			messageBuilder.setLength(0);
+			syslogMessage.appendMessageHeader(messageBuilder);
+			format(event, messageBuilder);
+			sendChars(messageBuilder);
 		}
 	}
 
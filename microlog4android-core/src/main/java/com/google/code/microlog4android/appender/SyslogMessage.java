@@ -15,7 +15,6 @@
 package com.google.code.microlog4android.appender;
 
 import java.util.Calendar;
-import java.util.Date;
 import java.util.TimeZone;
 
 /**
@@ -90,7 +89,7 @@ public class SyslogMessage {
 
 	private boolean header;
 
-	private final StringBuffer messageStringBuffer;
+	private final StringBuilder messageStringBuffer;
 
 	private String hostname;
 
@@ -101,7 +100,7 @@ public class SyslogMessage {
 	public static final String DEFAULT_SYSLOG_TAG = "microlog";
 
 	public SyslogMessage() {
-		messageStringBuffer = new StringBuffer(
+		messageStringBuffer = new StringBuilder(
 				SyslogMessage.DEFAULT_MESSAGE_BUFFER_SIZE);
 	}
 
@@ -117,63 +116,73 @@ public class SyslogMessage {
 	public String createMessageData(String message) {
 
 		messageStringBuffer.delete(0, messageStringBuffer.length());
+		appendMessageHeader(messageStringBuffer);
+		messageStringBuffer.append(message);
+
+		return messageStringBuffer.toString();
+	}
+
+	/**
+	 * Append the start of the syslog message data, i.e. everything that comes
+	 * before the message itself.
+	 * 
+	 * @param builder
+	 *            the <code>StringBuilder</code> to append to.
+	 */
+	public void appendMessageHeader(StringBuilder builder) {
 
 		// Create the PRI part
-		messageStringBuffer.append('<');
+		builder.append('<');
 		int priority = facility * 8 + severity;
-		messageStringBuffer.append(priority);
-		messageStringBuffer.append('>');
+		builder.append(priority);
+		builder.append('>');
 
 		// Create the HEADER part.
 		if (header) {
 			// Add the TIMESTAMP field of the HEADER
 			// Time format is "Mmm dd hh:mm:ss". For more info see rfc3164.
-			long currentTime = System.currentTimeMillis();
-			calendar.setTime(new Date(currentTime));
+			calendar.setTimeInMillis(System.currentTimeMillis());
 
-			messageStringBuffer.append(SyslogMessage.MONTHS[calendar
+			builder.append(SyslogMessage.MONTHS[calendar
 					.get(Calendar.MONTH)]);
-			messageStringBuffer.append(' ');
+			builder.append(' ');
 
 			int dayOfMonth = calendar.get(Calendar.DAY_OF_MONTH);
 			if (dayOfMonth < SyslogMessage.TEN) {
-				messageStringBuffer.append('0');
+				builder.append('0');
 			}
-			messageStringBuffer.append(dayOfMonth);
-			messageStringBuffer.append(' ');
+			builder.append(dayOfMonth);
+			builder.append(' ');
 
 			int hour = calendar.get(Calendar.HOUR_OF_DAY);
 			if (hour < SyslogMessage.TEN) {
-				messageStringBuffer.append('0');
+				builder.append('0');
 			}
-			messageStringBuffer.append(hour);
-			messageStringBuffer.append(':');
+			builder.append(hour);
+			builder.append(':');
 
 			int minute = calendar.get(Calendar.MINUTE);
 			if (minute < SyslogMessage.TEN) {
-				messageStringBuffer.append('0');
+				builder.append('0');
 			}
-			messageStringBuffer.append(minute);
-			messageStringBuffer.append(':');
+			builder.append(minute);
+			builder.append(':');
 
 			int second = calendar.get(Calendar.SECOND);
 			if (second < SyslogMessage.TEN) {
-				messageStringBuffer.append('0');
+				builder.append('0');
 			}
-			messageStringBuffer.append(second);
-			messageStringBuffer.append(' ');
+			builder.append(second);
+			builder.append(' ');
 
 			// Add the HOSTNAME part of the message
-			messageStringBuffer.append(hostname);
+			builder.append(hostname);
 		}
 
 		// Create the MSG part.
-		messageStringBuffer.append(' ');
-		messageStringBuffer.append(tag);
-		messageStringBuffer.append(": ");
-		messageStringBuffer.append(message);
-
-		return messageStringBuffer.toString();
+		builder.append(' ');
+		builder.append(tag);
+		builder.append(": ");
 	}
 
 	/**
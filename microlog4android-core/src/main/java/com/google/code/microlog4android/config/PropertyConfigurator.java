@@ -6,6 +6,7 @@ package com.google.code.microlog4android.config;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Properties;
@@ -19,8 +20,12 @@ import android.util.Log;
 
 import com.google.code.microlog4android.Level;
 import com.google.code.microlog4android.Logger;
+import com.google.code.microlog4android.LoggerFactory;
+import com.google.code.microlog4android.WaitStrategy;
 import com.google.code.microlog4android.appender.Appender;
+import com.google.code.microlog4android.appender.FileAppender;
 import com.google.code.microlog4android.format.Formatter;
+import com.google.code.microlog4android.format.PatternFormatter;
 import com.google.code.microlog4android.repository.DefaultLoggerRepository;
 import com.google.code.microlog4android.repository.LoggerRepository;
 
@@ -79,9 +84,49 @@ public class PropertyConfigurator {
 	 */
 	public static final String FILE_APPENDER_APPEND_KEY = "microlog.appender.FileAppender.Append";
 
+	/**
+	 * The key for writing the file in the binary format.
+	 */
+	public static final String FILE_APPENDER_BINARY_KEY = "microlog.appender.FileAppender.Binary";
+
+
+	/**
+	 * The key for turning on asynchronous logging.
+	 */
+	public static final String ASYNC_KEY = "microlog.async";
+
+	/**
+	 * The key for setting the buffer size used for asynchronous logging.
+	 */
+	public static final String ASYNC_BUFFER_SIZE_KEY = "microlog.async.bufferSize";
+
+	/**
+	 * The key for setting the wait strategy used for asynchronous logging.
+	 */
+	public static final String ASYNC_WAIT_STRATEGY_KEY = "microlog.async.waitStrategy";
+
+	/**
+	 * The key for using a coarse clock with the given resolution in
+	 * milliseconds for the timestamps.
+	 */
+	public static final String CLOCK_RESOLUTION_KEY = "microlog.clock.resolution";
+
+	/**
+	 * The key for opening the appenders on a background thread when the
+	 * configuration is done, instead of on the first log event.
+	 */
+	public static final String OPEN_IN_BACKGROUND_KEY = "microlog.openInBackground";
+
+	/**
+	 * The key for evicting the loggers that have not been configured from the
+	 * repository when they are no longer used.
+	 */
+	public static final String EVICTION_KEY = "microlog.eviction";
 
 	/**
-	 * The key for setting the level.
+	 * The key for setting the level. A key that starts with this key and a dot
+	 * sets the level of the loggers that match the rest of the key, e.g.
+	 * <code>microlog.level.com.acme.net.*=WARN</code>.
 	 */
 	public static final String LOG_LEVEL_PREFIX_KEY = "microlog.level";
 
@@ -95,10 +140,11 @@ public class PropertyConfigurator {
 	public static final String[] APPENDER_CLASS_NAMES = { "com.google.code.microlog4android.appender.LogCatAppender",
 			"com.google.code.microlog4android.appender.FileAppender" };
 
-	public static final String[] FORMATTER_ALIASES = { "SimpleFormatter", "PatternFormatter" };
+	public static final String[] FORMATTER_ALIASES = { "SimpleFormatter", "PatternFormatter", "JsonFormatter" };
 
 	public static final String[] FORMATTER_CLASS_NAMES = { "com.google.code.microlog4android.format.SimpleFormatter",
-			"com.google.code.microlog4android.format.PatternFormatter" };
+			"com.google.code.microlog4android.format.PatternFormatter",
+			"com.google.code.microlog4android.format.JsonFormatter" };
 
 	private static final HashMap<String, String> appenderAliases = new HashMap<String, String>(43);
 
@@ -220,12 +266,70 @@ public class PropertyConfigurator {
 	private void configureSimpleStyle(Properties properties) {
 
 		setLevel(properties);
+		setLevelRules(properties);
 
 		String appenderString = properties.getProperty(PropertyConfigurator.APPENDER_PREFIX_KEY, "LogCatAppender");
 		List<String> appenderList = parseAppenderString(appenderString);
 		setAppenders(appenderList, properties);
 
 		setFormatter(properties);
+
+		setAsync(properties);
+		setClock(properties);
+		setEviction(properties);
+
+		if (Boolean.parseBoolean(properties.getProperty(OPEN_IN_BACKGROUND_KEY, "false"))) {
+			LoggerFactory.openInBackground();
+		}
+	}
+
+	private void setEviction(Properties properties) {
+		if (Boolean.parseBoolean(properties.getProperty(EVICTION_KEY, "false"))) {
+			LoggerRepository loggerRepository = LoggerFactory.getLoggerRepository();
+
+			if (loggerRepository instanceof DefaultLoggerRepository) {
+				((DefaultLoggerRepository) loggerRepository).setEvictionEnabled(true);
+				Log.i(TAG, "Evicting unused loggers");
+			} else {
+				Log.e(TAG, "The logger repository does not support eviction");
+			}
+		}
+	}
+
+	private void setClock(Properties properties) {
+		String resolutionString = properties.getProperty(CLOCK_RESOLUTION_KEY);
+
+		if (resolutionString != null) {
+			try {
+				long resolution = Long.parseLong(resolutionString.trim());
+				LoggerFactory.startCoarseClock(resolution);
+				Log.i(TAG, "Coarse clock, resolution " + resolution + " ms");
+			} catch (IllegalArgumentException e) {
+				Log.e(TAG, "Failed to set up the coarse clock: " + e);
+			}
+		}
+	}
+
+	private void setAsync(Properties properties) {
+		String asyncString = properties.getProperty(ASYNC_KEY, "false");
+
+		if (Boolean.parseBoolean(asyncString)) {
+			String bufferSizeString = properties.getProperty(ASYNC_BUFFER_SIZE_KEY);
+			String waitStrategyString = properties.getProperty(ASYNC_WAIT_STRATEGY_KEY, "BLOCKING");
+
+			try {
+				int bufferSize = LoggerFactory.DEFAULT_ASYNC_BUFFER_SIZE;
+				if (bufferSizeString != null) {
+					bufferSize = Integer.parseInt(bufferSizeString.trim());
+				}
+
+				WaitStrategy waitStrategy = WaitStrategy.valueOf(waitStrategyString.trim());
+				LoggerFactory.startAsync(bufferSize, waitStrategy);
+				Log.i(TAG, "Asynchronous logging, buffer size " + bufferSize + ", wait strategy " + waitStrategy);
+			} catch (IllegalArgumentException e) {
+				Log.e(TAG, "Failed to set up asynchronous logging: " + e);
+			}
+		}
 	}
 
 	private void setLevel(Properties properties) {
@@ -239,6 +343,36 @@ public class PropertyConfigurator {
 
 	}
 
+	private void setLevelRules(Properties properties) {
+		String rulePrefix = LOG_LEVEL_PREFIX_KEY + '.';
+		LoggerRepository loggerRepository = LoggerFactory.getLoggerRepository();
+		Enumeration<?> propertyNames = properties.propertyNames();
+
+		while (propertyNames.hasMoreElements()) {
+			String key = (String) propertyNames.nextElement();
+
+			if (key.startsWith(rulePrefix)) {
+				String pattern = key.substring(rulePrefix.length());
+
+				try {
+					Level level = stringToLevel(properties.getProperty(key).trim());
+
+					if (loggerRepository instanceof DefaultLoggerRepository) {
+						((DefaultLoggerRepository) loggerRepository).setLevelRule(pattern, level);
+					} else if (pattern.indexOf('*') == -1) {
+						loggerRepository.setLevel(pattern, level);
+					} else {
+						Log.e(TAG, "The logger repository does not support wildcard levels: " + pattern);
+						continue;
+					}
+					Log.i(TAG, "Level of " + pattern + ": " + level);
+				} catch (IllegalArgumentException e) {
+					Log.e(TAG, "Failed to set the level of " + pattern + ": " + e);
+				}
+			}
+		}
+	}
+
 	private List<String> parseAppenderString(String appenderString) {
 		StringTokenizer tokenizer = new StringTokenizer(appenderString, ";,");
 		List<String> appenderList = new ArrayList<String>();
@@ -298,6 +432,9 @@ public class PropertyConfigurator {
 			String append_string = (String) properties.getProperty(FILE_APPENDER_APPEND_KEY, "true");
 			boolean append_bool = Boolean.parseBoolean(append_string);
 			((FileAppender)appender).setAppend(append_bool);
+
+			String binaryString = (String) properties.getProperty(FILE_APPENDER_BINARY_KEY, "false");
+			((FileAppender) appender).setBinary(Boolean.parseBoolean(binaryString));
 	}
 
 	private void setFormatter(Properties properties) {
@@ -322,6 +459,8 @@ public class PropertyConfigurator {
 			if(formatter instanceof PatternFormatter){
 				String pattern = (String) properties.getProperty(PATTERN_LAYOUT_PREFIX_KEY, "%r %c{1} [%P] %m %T");
 				((PatternFormatter) formatter).setPattern(pattern);
+			} else if (formatter != null) {
+				setFormatterProperties(formatter, properties);
 			}
 			if(formatter != null){
 				Logger rootLogger = loggerRepository.getRootLogger();
@@ -343,6 +482,24 @@ public class PropertyConfigurator {
 		}		
 	}
 
+	/**
+	 * Set the properties of the formatter, i.e. the properties with keys like
+	 * <code>microlog.formatter.JsonFormatter.fields</code>.
+	 */
+	private void setFormatterProperties(Formatter formatter, Properties properties) {
+		String[] propertyNames = formatter.getPropertyNames();
+
+		if (propertyNames != null) {
+			String prefix = FORMATTER_PREFIX_KEY + '.' + formatter.getClass().getSimpleName() + '.';
+			for (int index = 0; index < propertyNames.length; index++) {
+				String value = properties.getProperty(prefix + propertyNames[index]);
+				if (value != null) {
+					formatter.setProperty(propertyNames[index], value);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Convert a <code>String</code> containing a level to a <code>Level</code>
 	 * object.
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2010 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.format;
+
+import com.google.code.microlog4android.LogEvent;
+
+/**
+ * An <code>EventFormatter</code> that can append the formatted event to a
+ * buffer, so that an appender that writes characters does not need a
+ * <code>String</code> for each event.
+ * 
+ * @author Johan Karlsson
+ */
+public interface AppendingFormatter extends EventFormatter {
+
+	/**
+	 * Format the event and append the result.
+	 * 
+	 * @param event
+	 *            the <code>LogEvent</code> to format.
+	 * @param builder
+	 *            the <code>StringBuilder</code> to append to.
+	 */
+	void format(LogEvent event, StringBuilder builder);
+}
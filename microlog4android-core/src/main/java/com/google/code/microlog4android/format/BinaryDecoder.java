@@ -0,0 +1,334 @@
+/*
+ * Copyright 2010 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.format;
+
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+
+/**
+ * The <code>BinaryDecoder</code> reads the events written by the
+ * <code>BinaryEncoder</code>. The stream may contain several headers, e.g.
+ * when a file has been appended to, and each header starts a new dictionary.
+ *
+ * The decoder can also be used from the command line to print a binary log as
+ * text with a <code>PatternFormatter</code>:
+ *
+ * <pre>
+ * java com.google.code.microlog4android.format.BinaryDecoder microlog.bin [pattern]
+ * </pre>
+ *
+ * The throwables are decoded as rendered text, which means that the decoded
+ * events have a <code>Throwable</code> whose <code>toString()</code> is the
+ * whole rendering and that has no stack trace of its own.
+ *
+ * A decoder is not thread safe.
+ *
+ * @author Johan Karlsson
+ */
+public final class BinaryDecoder {
+	private static final String UTF_8 = "UTF-8";
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private static final Level[] LEVELS_BY_BYTE = new Level[256];
+
+	static {
+		Level[] levels = Level.values();
+		for (int index = 0; index < levels.length; index++) {
+			LEVELS_BY_BYTE[levels[index].toInt() & 0xFF] = levels[index];
+		}
+	}
+
+	private final InputStream inputStream;
+
+	private final ArrayList<String> dictionary = new ArrayList<String>();
+
+	private byte[] buffer = new byte[BUFFER_SIZE];
+
+	private int position;
+
+	private int limit;
+
+	private boolean streamStarted;
+
+	private long previousTime;
+
+	private long previousTimestamp;
+
+	/**
+	 * Create a decoder that reads from the specified stream.
+	 *
+	 * @param inputStream
+	 *            the <code>InputStream</code> to read from.
+	 * @throws IllegalArgumentException
+	 *             if the <code>inputStream</code> is <code>null</code>.
+	 */
+	public BinaryDecoder(InputStream inputStream) throws IllegalArgumentException {
+		if (inputStream == null) {
+			throw new IllegalArgumentException("The inputStream must not be null.");
+		}
+
+		this.inputStream = inputStream;
+	}
+
+	/**
+	 * Read the next event.
+	 *
+	 * @return the next <code>LogEvent</code>, or <code>null</code> at the end
+	 *         of the stream.
+	 * @throws IOException
+	 *             if the stream could not be read or is not a valid binary
+	 *             log.
+	 */
+	public LogEvent read() throws IOException {
+		if (!ensureAvailable(1, false)) {
+			return null;
+		}
+
+		int flags = buffer[position++] & 0xFF;
+		while (flags == 0) {
+			readHeader();
+			if (!ensureAvailable(1, false)) {
+				return null;
+			}
+			flags = buffer[position++] & 0xFF;
+		}
+
+		if ((flags & BinaryEncoder.EVENT_FLAG) == 0 || !streamStarted) {
+			throw new IOException("Not a binary log event: " + flags);
+		}
+
+		Level level = null;
+		if ((flags & BinaryEncoder.LEVEL_FLAG) != 0) {
+			ensureAvailable(1, true);
+			level = LEVELS_BY_BYTE[buffer[position++] & 0xFF];
+		}
+
+		long time = previousTime + unzigzag(readVarint());
+		previousTime = time;
+		long timestamp = previousTimestamp + unzigzag(readVarint());
+		previousTimestamp = timestamp;
+
+		String loggerName = (flags & BinaryEncoder.LOGGER_NAME_FLAG) != 0 ? readReference() : null;
+		String clientID = (flags & BinaryEncoder.CLIENT_ID_FLAG) != 0 ? readReference() : null;
+		String threadName = (flags & BinaryEncoder.THREAD_NAME_FLAG) != 0 ? readReference() : null;
+		String message = (flags & BinaryEncoder.MESSAGE_FLAG) != 0 ? readString() : null;
+		Throwable throwable = null;
+		if ((flags & BinaryEncoder.THROWABLE_FLAG) != 0) {
+			throwable = new DecodedThrowable(readString());
+		}
+
+		return new LogEvent(clientID, loggerName, time, timestamp, level, message, throwable, threadName);
+	}
+
+	/**
+	 * Read the rest of the header, after the zero byte, and start a new
+	 * dictionary and a new base time.
+	 */
+	private void readHeader() throws IOException {
+		int length = BinaryEncoder.HEADER.length;
+		ensureAvailable(length, true);
+
+		for (int index = 1; index < length; index++) {
+			if (buffer[position++] != BinaryEncoder.HEADER[index]) {
+				throw new IOException("Not a binary log header");
+			}
+		}
+
+		int version = buffer[position++] & 0xFF;
+		if (version != BinaryEncoder.VERSION) {
+			throw new IOException("Unsupported binary log version " + version);
+		}
+
+		dictionary.clear();
+		previousTime = 0;
+		previousTimestamp = readVarint();
+		streamStarted = true;
+	}
+
+	private String readReference() throws IOException {
+		long number = readVarint();
+
+		if (number == 0) {
+			String string = readString();
+			if (dictionary.size() < BinaryEncoder.MAX_DICTIONARY_SIZE) {
+				dictionary.add(string);
+			}
+			return string;
+		}
+
+		if (number > dictionary.size()) {
+			throw new IOException("Unknown dictionary reference " + number);
+		}
+
+		return dictionary.get((int) number - 1);
+	}
+
+	private String readString() throws IOException {
+		long length = readVarint();
+		if (length > Integer.MAX_VALUE) {
+			throw new IOException("Invalid string length " + length);
+		}
+
+		ensureAvailable((int) length, true);
+		String string = new String(buffer, position, (int) length, UTF_8);
+		position += (int) length;
+
+		return string;
+	}
+
+	private long readVarint() throws IOException {
+		long value = 0;
+
+		for (int shift = 0; shift < 64; shift += 7) {
+			ensureAvailable(1, true);
+			int b = buffer[position++];
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+
+		throw new IOException("Invalid varint");
+	}
+
+	private static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Make sure that the buffer holds the specified number of bytes after the
+	 * position.
+	 *
+	 * @return <code>false</code> if the stream ended before any byte was read
+	 *         and <code>required</code> is <code>false</code>.
+	 * @throws EOFException
+	 *             if the stream ended in the middle of the bytes.
+	 */
+	private boolean ensureAvailable(int count, boolean required) throws IOException {
+		if (limit - position >= count) {
+			return true;
+		}
+
+		int available = limit - position;
+		if (count > buffer.length) {
+			byte[] newBuffer = new byte[Math.max(count, buffer.length * 2)];
+			System.arraycopy(buffer, position, newBuffer, 0, available);
+			buffer = newBuffer;
+		} else {
+			System.arraycopy(buffer, position, buffer, 0, available);
+		}
+		position = 0;
+		limit = available;
+
+		while (limit < count) {
+			int read = inputStream.read(buffer, limit, buffer.length - limit);
+			if (read == -1) {
+				if (limit == 0 && !required) {
+					return false;
+				}
+				throw new EOFException("Unexpected end of the binary log");
+			}
+			limit += read;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Decode the events of the stream and write them as text, one line per
+	 * event.
+	 *
+	 * @param inputStream
+	 *            the binary log to read.
+	 * @param formatter
+	 *            the <code>Formatter</code> to format the events with.
+	 * @param writer
+	 *            the <code>Writer</code> to write the text to.
+	 * @return the number of events.
+	 * @throws IOException
+	 *             if the log could not be read or the text could not be
+	 *             written.
+	 */
+	public static int printAsText(InputStream inputStream, Formatter formatter, Writer writer) throws IOException {
+		BinaryDecoder decoder = new BinaryDecoder(inputStream);
+		String lineSeparator = System.getProperty("line.separator");
+		int count = 0;
+
+		for (LogEvent event = decoder.read(); event != null; event = decoder.read()) {
+			writer.write(event.format(formatter));
+			writer.write(lineSeparator);
+			count++;
+		}
+		writer.flush();
+
+		return count;
+	}
+
+	/**
+	 * Print a binary log as text.
+	 *
+	 * @param args
+	 *            the name of the file, optionally followed by the pattern of
+	 *            the <code>PatternFormatter</code>.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.err.println("Usage: BinaryDecoder <file> [pattern]");
+			return;
+		}
+
+		PatternFormatter formatter = new PatternFormatter();
+		if (args.length > 1) {
+			formatter.setPattern(args[1]);
+		}
+
+		InputStream inputStream = new FileInputStream(args[0]);
+		try {
+			printAsText(inputStream, formatter, new OutputStreamWriter(System.out, UTF_8));
+		} finally {
+			inputStream.close();
+		}
+	}
+
+	/**
+	 * A throwable that has been decoded as its rendered text.
+	 */
+	private static final class DecodedThrowable extends Throwable {
+		private static final long serialVersionUID = 1L;
+
+		private final String rendering;
+
+		DecodedThrowable(String rendering) {
+			this.rendering = rendering;
+		}
+
+		public synchronized Throwable fillInStackTrace() {
+			return this;
+		}
+
+		public String toString() {
+			return rendering;
+		}
+	}
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2010 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.format;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.format.command.MessageFormatCommand;
+import com.google.code.microlog4android.format.command.util.ThrowableRenderer;
+
+/**
+ * The <code>BinaryEncoder</code> encodes events into a compact binary stream,
+ * which is read back with the <code>BinaryDecoder</code>.
+ *
+ * A stream starts with a header: a zero byte, <code>'M'</code>,
+ * <code>'L'</code>, <code>'B'</code>, the version and, as a varint, the
+ * wall-clock time of the first event in milliseconds since 1970. Each event is
+ * then encoded as
+ * <ul>
+ * <li>a flags byte, with the high bit set and one bit for each of the
+ * optional fields,</li>
+ * <li>the level as a byte,</li>
+ * <li>the relative time, as for <code>%r</code>, as a zigzag varint of the
+ * difference to the relative time of the previous event,</li>
+ * <li>the wall-clock time as a zigzag varint of the difference to the
+ * wall-clock time of the previous event, or of the header for the first
+ * event,</li>
+ * <li>the logger name, the client id and the thread name as references to the
+ * dictionary of the stream,</li>
+ * <li>the message and the rendered throwable as a varint length followed by
+ * the UTF-8 bytes.</li>
+ * </ul>
+ * A dictionary reference is a varint: 0 is followed by the length and the
+ * UTF-8 bytes of a new string, which gets the next number of the dictionary,
+ * and any other value refers to an earlier string. The dictionary is limited
+ * to <code>MAX_DICTIONARY_SIZE</code> strings. Since a header can be written
+ * in the middle of a file, e.g. when a file is appended to, a header starts a
+ * new dictionary.
+ *
+ * An encoder is not thread safe. Each appender should have its own encoder,
+ * used while holding the lock of the appender.
+ *
+ * @author Johan Karlsson
+ */
+public final class BinaryEncoder {
+	static final byte[] HEADER = { 0, 'M', 'L', 'B' };
+
+	static final int VERSION = 2;
+
+	static final int EVENT_FLAG = 0x80;
+
+	static final int LEVEL_FLAG = 0x01;
+
+	static final int LOGGER_NAME_FLAG = 0x02;
+
+	static final int CLIENT_ID_FLAG = 0x04;
+
+	static final int THREAD_NAME_FLAG = 0x08;
+
+	static final int MESSAGE_FLAG = 0x10;
+
+	static final int THROWABLE_FLAG = 0x20;
+
+	/**
+	 * The maximum number of strings in the dictionary of a stream. Strings
+	 * that are not in the dictionary when it is full are written in full.
+	 */
+	public static final int MAX_DICTIONARY_SIZE = 1024;
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	/**
+	 * Buffers that grow beyond this capacity are not kept for the next event.
+	 */
+	private static final int MAX_CAPACITY = 16384;
+
+	/**
+	 * The maximum number of bytes of a varint.
+	 */
+	private static final int MAX_VARINT_BYTES = 10;
+
+	private final HashMap<String, Integer> dictionary = new HashMap<String, Integer>();
+
+	private final ThrowableRenderer throwableRenderer = new ThrowableRenderer();
+
+	private StringBuilder builder = new StringBuilder(INITIAL_CAPACITY);
+
+	private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY * 3);
+
+	private byte[] bytes = buffer.array();
+
+	private int position;
+
+	private boolean streamStarted;
+
+	private long previousTime;
+
+	private long previousTimestamp;
+
+	/**
+	 * Start a new stream. The next event is encoded after a header, with a
+	 * new dictionary.
+	 */
+	public void reset() {
+		dictionary.clear();
+		streamStarted = false;
+		previousTime = 0;
+	}
+
+	/**
+	 * Encode the event. The first event of a stream is preceded by the
+	 * header.
+	 *
+	 * @param event
+	 *            the <code>LogEvent</code> to encode.
+	 * @return a buffer with the encoded event between its position and its
+	 *         limit. It is only valid until the encoder is used again.
+	 */
+	public ByteBuffer encode(LogEvent event) {
+		if (buffer.capacity() > MAX_CAPACITY) {
+			buffer = ByteBuffer.allocate(INITIAL_CAPACITY * 3);
+			bytes = buffer.array();
+		}
+		if (builder.capacity() > MAX_CAPACITY) {
+			builder = new StringBuilder(INITIAL_CAPACITY);
+		}
+		position = 0;
+
+		if (!streamStarted) {
+			ensureCapacity(HEADER.length + 1 + MAX_VARINT_BYTES);
+			System.arraycopy(HEADER, 0, bytes, 0, HEADER.length);
+			bytes[HEADER.length] = VERSION;
+			position = HEADER.length + 1;
+			previousTimestamp = event.getTimestamp();
+			writeVarint(previousTimestamp);
+			streamStarted = true;
+		}
+
+		Level level = event.getLevel();
+		String loggerName = event.getLoggerName();
+		String clientID = event.getClientID();
+		String threadName = event.getThreadName();
+		Object message = event.getMessage();
+		Throwable throwable = event.getThrowable();
+
+		int flags = EVENT_FLAG;
+		flags |= level != null ? LEVEL_FLAG : 0;
+		flags |= loggerName != null ? LOGGER_NAME_FLAG : 0;
+		flags |= clientID != null ? CLIENT_ID_FLAG : 0;
+		flags |= threadName != null ? THREAD_NAME_FLAG : 0;
+		flags |= message != null ? MESSAGE_FLAG : 0;
+		flags |= throwable != null ? THROWABLE_FLAG : 0;
+
+		ensureCapacity(2 + 2 * MAX_VARINT_BYTES);
+		bytes[position++] = (byte) flags;
+		if (level != null) {
+			bytes[position++] = (byte) level.toInt();
+		}
+		long time = event.getTime();
+		writeVarint(zigzag(time - previousTime));
+		previousTime = time;
+		long timestamp = event.getTimestamp();
+		writeVarint(zigzag(timestamp - previousTimestamp));
+		previousTimestamp = timestamp;
+
+		if (loggerName != null) {
+			writeReference(loggerName);
+		}
+		if (clientID != null) {
+			writeReference(clientID);
+		}
+		if (threadName != null) {
+			writeReference(threadName);
+		}
+		if (message != null) {
+			builder.setLength(0);
+			MessageFormatCommand.appendMessage(builder, message);
+			writeString(builder);
+		}
+		if (throwable != null) {
+			builder.setLength(0);
+			throwableRenderer.appendTo(builder, throwable);
+			writeString(builder);
+		}
+
+		buffer.clear();
+		buffer.limit(position);
+
+		return buffer;
+	}
+
+	private void writeReference(String string) {
+		Integer number = dictionary.get(string);
+
+		if (number != null) {
+			ensureCapacity(MAX_VARINT_BYTES);
+			writeVarint(number.intValue());
+		} else {
+			ensureCapacity(MAX_VARINT_BYTES);
+			writeVarint(0);
+			writeString(string);
+			if (dictionary.size() < MAX_DICTIONARY_SIZE) {
+				dictionary.put(string, Integer.valueOf(dictionary.size() + 1));
+			}
+		}
+	}
+
+	/**
+	 * Write the length of the UTF-8 bytes of the chars followed by the bytes.
+	 */
+	private void writeString(CharSequence chars) {
+		int length = chars.length();
+		int byteCount = Utf8Encoder.getEncodedLength(chars, 0, length);
+
+		ensureCapacity(MAX_VARINT_BYTES + byteCount);
+		writeVarint(byteCount);
+		position = Utf8Encoder.encode(chars, 0, length, bytes, position);
+	}
+
+	/**
+	 * Write an unsigned varint, seven bits per byte with the high bit set on
+	 * all bytes but the last. There must be room for it.
+	 */
+	private void writeVarint(long value) {
+		while ((value & ~0x7FL) != 0) {
+			bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		bytes[position++] = (byte) value;
+	}
+
+	/**
+	 * Map a signed value to an unsigned value, so that small negative values
+	 * are small varints too.
+	 */
+	private static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private void ensureCapacity(int byteCount) {
+		if (position + byteCount > bytes.length) {
+			ByteBuffer newBuffer = ByteBuffer.allocate(Math.max(bytes.length * 2, position + byteCount));
+			System.arraycopy(bytes, 0, newBuffer.array(), 0, position);
+			buffer = newBuffer;
+			bytes = newBuffer.array();
+		}
+	}
+}
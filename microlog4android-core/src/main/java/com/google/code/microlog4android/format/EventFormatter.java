@@ -0,0 +1,45 @@
+/*
+ * Copyright 2010 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.format;
+
+import com.google.code.microlog4android.LogEvent;
+
+/**
+ * A <code>Formatter</code> that formats a whole <code>LogEvent</code>.
+ * 
+ * @author Johan Karlsson
+ */
+public interface EventFormatter extends Formatter {
+
+	/**
+	 * Format the event.
+	 * 
+	 * @param event
+	 *            the <code>LogEvent</code> to format.
+	 * @return a String that is not null.
+	 */
+	String format(LogEvent event);
+
+	/**
+	 * Check if the specified formatter gives the same output as this one for
+	 * every event. An event is only formatted once for all the appenders that
+	 * use equivalent formatters.
+	 * 
+	 * @param formatter
+	 *            the <code>Formatter</code> to compare with.
+	 * @return <code>true</code> if the output is always the same.
+	 */
+	boolean isEquivalent(Formatter formatter);
+}
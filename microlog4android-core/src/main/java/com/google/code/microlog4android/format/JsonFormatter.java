@@ -0,0 +1,525 @@
+/*
+ * Copyright 2010 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.format;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringTokenizer;
+
+import android.util.Log;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.format.command.MessageFormatCommand;
+import com.google.code.microlog4android.format.command.util.ThrowableRenderer;
+
+/**
+ * The <code>JsonFormatter</code> formats each event as one JSON object on a
+ * single line, e.g.
+ *
+ * <pre>
+ * {&quot;timestamp&quot;:1262304000000,&quot;level&quot;:&quot;INFO&quot;,&quot;logger&quot;:&quot;com.acme.Main&quot;,&quot;thread&quot;:&quot;main&quot;,&quot;message&quot;:&quot;Started&quot;}
+ * </pre>
+ *
+ * <pre>
+ *  Q: How do I setup the JsonFormatter in my microlog.properties file?
+ *
+ *  A: Set the formatter to JsonFormatter and optionally the fields and the key-values.
+ *
+ *  Example:
+ *  microlog.formatter=JsonFormatter
+ *  microlog.formatter.JsonFormatter.fields=timestamp,level,logger,message,throwable
+ *  microlog.formatter.JsonFormatter.keyValues=app=demo,env=test
+ *
+ *  The available fields are:
+ *  timestamp : the time of the logging in milliseconds since 1970
+ *  time      : the relative time of the logging, as for %r
+ *  level     : the Level of the message
+ *  logger    : the name of the Logger
+ *  thread    : the thread name
+ *  clientID  : the client id
+ *  message   : the logged message
+ *  throwable : the Throwable object, including its causes
+ *
+ *  The key-values are added to each object as strings.
+ * </pre>
+ *
+ * A field without a value, e.g. the throwable of most events, is left out.
+ * The values are escaped as they are appended, without a JSON library, and
+ * the event is formatted into a buffer that is reused by each thread. An
+ * appender that writes characters can have the event appended to its own
+ * buffer instead, with no allocation apart from the <code>toString()</code>
+ * of the message and the throwable.
+ *
+ * @author Johan Karlsson
+ */
+public class JsonFormatter implements AppendingFormatter {
+	private static final String TAG = "Microlog.JsonFormatter";
+
+	/**
+	 * A buffer that grows beyond this capacity is not kept for the next event.
+	 */
+	private static final int MAX_BUFFER_CAPACITY = 4096;
+
+	/**
+	 * The buffer of each thread. It is taken out while it is used, so that an
+	 * event that is formatted while formatting another event, e.g. by the
+	 * <code>toString()</code> of a message, gets a buffer of its own.
+	 */
+	private static final ThreadLocal<StringBuilder> buffers = new ThreadLocal<StringBuilder>() {
+		protected StringBuilder initialValue() {
+			return new StringBuilder(256);
+		}
+	};
+
+	public static final String FIELDS_PROPERTY = "fields";
+
+	public static final String KEY_VALUES_PROPERTY = "keyValues";
+
+	public static final String TIMESTAMP_FIELD = "timestamp";
+
+	public static final String TIME_FIELD = "time";
+
+	public static final String LEVEL_FIELD = "level";
+
+	public static final String LOGGER_FIELD = "logger";
+
+	public static final String THREAD_FIELD = "thread";
+
+	public static final String CLIENT_ID_FIELD = "clientID";
+
+	public static final String MESSAGE_FIELD = "message";
+
+	public static final String THROWABLE_FIELD = "throwable";
+
+	public static final String DEFAULT_FIELDS = "timestamp,level,logger,thread,message,throwable";
+
+	private static final String[] FIELD_NAMES = { TIMESTAMP_FIELD, TIME_FIELD, LEVEL_FIELD, LOGGER_FIELD,
+			THREAD_FIELD, CLIENT_ID_FIELD, MESSAGE_FIELD, THROWABLE_FIELD };
+
+	private static final int TIMESTAMP = 0;
+
+	private static final int TIME = 1;
+
+	private static final int LEVEL = 2;
+
+	private static final int LOGGER = 3;
+
+	private static final int THREAD = 4;
+
+	private static final int CLIENT_ID = 5;
+
+	private static final int MESSAGE = 6;
+
+	private static final int THROWABLE = 7;
+
+	/**
+	 * The keys of the fields, quoted and followed by the colon.
+	 */
+	private static final String[] FIELD_KEYS = new String[FIELD_NAMES.length];
+
+	static {
+		for (int index = 0; index < FIELD_NAMES.length; index++) {
+			FIELD_KEYS[index] = '"' + FIELD_NAMES[index] + "\":";
+		}
+	}
+
+	private static final String[] PROPERTY_NAMES = { FIELDS_PROPERTY, KEY_VALUES_PROPERTY };
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	private final ThrowableRenderer throwableRenderer = new ThrowableRenderer();
+
+	private String fields = DEFAULT_FIELDS;
+
+	private String keyValues = "";
+
+	/**
+	 * The fields to format, in order.
+	 */
+	private volatile int[] fieldIds = parseFields(DEFAULT_FIELDS);
+
+	/**
+	 * The key-values as a JSON fragment that starts with a comma, or an empty
+	 * <code>String</code>.
+	 */
+	private volatile String keyValuesJson = "";
+
+	/**
+	 * Create a <code>JsonFormatter</code> with the default fields.
+	 */
+	public JsonFormatter() {
+	}
+
+	/**
+	 * Format the input parameters.
+	 *
+	 * @see com.google.code.microlog4android.format.Formatter#format(String,
+	 *      String, long, com.google.code.microlog4android.Level,
+	 *      java.lang.Object, java.lang.Throwable)
+	 */
+	public String format(String clientID, String name, long time, Level level, Object message, Throwable t) {
+		return format(new LogEvent(clientID, name, time, level, message, t));
+	}
+
+	/**
+	 * Format the event into the buffer of the current thread.
+	 *
+	 * @see com.google.code.microlog4android.format.EventFormatter#format(com.google.code.microlog4android.LogEvent)
+	 */
+	public String format(LogEvent event) {
+		StringBuilder builder = buffers.get();
+		if (builder == null) {
+			builder = new StringBuilder(256);
+		} else {
+			buffers.set(null);
+			builder.setLength(0);
+		}
+
+		try {
+			format(event, builder);
+			return builder.toString();
+		} finally {
+			if (builder.capacity() <= MAX_BUFFER_CAPACITY) {
+				buffers.set(builder);
+			}
+		}
+	}
+
+	/**
+	 * Format the event as a JSON object and append it.
+	 *
+	 * @see com.google.code.microlog4android.format.AppendingFormatter#format(com.google.code.microlog4android.LogEvent,
+	 *      java.lang.StringBuilder)
+	 */
+	public void format(LogEvent event, StringBuilder builder) {
+		int[] ids = fieldIds;
+		boolean first = true;
+
+		builder.append('{');
+		for (int index = 0; index < ids.length; index++) {
+			int id = ids[index];
+			if (!hasValue(id, event)) {
+				continue;
+			}
+
+			if (!first) {
+				builder.append(',');
+			}
+			first = false;
+			builder.append(FIELD_KEYS[id]);
+			appendValue(builder, id, event);
+		}
+
+		String json = keyValuesJson;
+		if (json.length() > 0) {
+			builder.append(json, first ? 1 : 0, json.length());
+		}
+		builder.append('}');
+	}
+
+	private static boolean hasValue(int id, LogEvent event) {
+		switch (id) {
+		case LEVEL:
+			return event.getLevel() != null;
+		case LOGGER:
+			return event.getLoggerName() != null;
+		case THREAD:
+			return event.getThreadName() != null;
+		case CLIENT_ID:
+			return event.getClientID() != null;
+		case MESSAGE:
+			return event.getMessage() != null;
+		case THROWABLE:
+			return event.getThrowable() != null;
+		default:
+			return true;
+		}
+	}
+
+	private void appendValue(StringBuilder builder, int id, LogEvent event) {
+		switch (id) {
+		case TIMESTAMP:
+			builder.append(event.getTimestamp());
+			break;
+		case TIME:
+			builder.append(event.getTime());
+			break;
+		case LEVEL:
+			appendString(builder, event.getLevel().toString());
+			break;
+		case LOGGER:
+			appendString(builder, event.getLoggerName());
+			break;
+		case THREAD:
+			appendString(builder, event.getThreadName());
+			break;
+		case CLIENT_ID:
+			appendString(builder, event.getClientID());
+			break;
+		case MESSAGE:
+			builder.append('"');
+			int start = builder.length();
+			MessageFormatCommand.appendMessage(builder, event.getMessage());
+			escapeAppended(builder, start);
+			builder.append('"');
+			break;
+		case THROWABLE:
+			builder.append('"');
+			start = builder.length();
+			throwableRenderer.appendTo(builder, event.getThrowable());
+			escapeAppended(builder, start);
+			builder.append('"');
+			break;
+		}
+	}
+
+	/**
+	 * Append the <code>String</code> as a quoted and escaped JSON string.
+	 *
+	 * @param builder
+	 *            the <code>StringBuilder</code> to append to.
+	 * @param value
+	 *            the <code>String</code> to append.
+	 */
+	public static void appendString(StringBuilder builder, String value) {
+		builder.append('"');
+		int length = value.length();
+		int start = 0;
+
+		for (int index = 0; index < length; index++) {
+			char c = value.charAt(index);
+			if (needsEscape(c)) {
+				builder.append(value, start, index);
+				appendEscaped(builder, c);
+				start = index + 1;
+			}
+		}
+		builder.append(value, start, length);
+		builder.append('"');
+	}
+
+	/**
+	 * Escape the chars that have been appended from the start index. The
+	 * escaped chars are appended after the raw chars, which are then removed,
+	 * so that the text does not have to be copied into a <code>String</code>
+	 * first.
+	 */
+	private static void escapeAppended(StringBuilder builder, int start) {
+		int end = builder.length();
+		int firstEscape = start;
+
+		while (firstEscape < end && !needsEscape(builder.charAt(firstEscape))) {
+			firstEscape++;
+		}
+		if (firstEscape == end) {
+			return;
+		}
+
+		for (int index = firstEscape; index < end; index++) {
+			char c = builder.charAt(index);
+			if (needsEscape(c)) {
+				appendEscaped(builder, c);
+			} else {
+				builder.append(c);
+			}
+		}
+		builder.delete(firstEscape, end);
+	}
+
+	/**
+	 * The line and paragraph separators are escaped as well, since they end
+	 * a line for some JSON readers.
+	 */
+	private static boolean needsEscape(char c) {
+		return c < 0x20 || c == '"' || c == '\\' || c == '\u2028' || c == '\u2029';
+	}
+
+	private static void appendEscaped(StringBuilder builder, char c) {
+		builder.append('\\');
+
+		switch (c) {
+		case '"':
+		case '\\':
+			builder.append(c);
+			break;
+		case '\n':
+			builder.append('n');
+			break;
+		case '\r':
+			builder.append('r');
+			break;
+		case '\t':
+			builder.append('t');
+			break;
+		case '\b':
+			builder.append('b');
+			break;
+		case '\f':
+			builder.append('f');
+			break;
+		default:
+			builder.append('u');
+			builder.append(HEX_DIGITS[(c >> 12) & 0xF]);
+			builder.append(HEX_DIGITS[(c >> 8) & 0xF]);
+			builder.append(HEX_DIGITS[(c >> 4) & 0xF]);
+			builder.append(HEX_DIGITS[c & 0xF]);
+			break;
+		}
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.format.EventFormatter#isEquivalent(com.google.code.microlog4android.format.Formatter)
+	 */
+	public boolean isEquivalent(Formatter formatter) {
+		if (formatter == this) {
+			return true;
+		}
+
+		if (formatter == null || formatter.getClass() != getClass()) {
+			return false;
+		}
+
+		JsonFormatter jsonFormatter = (JsonFormatter) formatter;
+		return fields.equals(jsonFormatter.fields) && keyValues.equals(jsonFormatter.keyValues);
+	}
+
+	/**
+	 * Get the fields that are formatted.
+	 *
+	 * @return the comma separated field names.
+	 */
+	public String getFields() {
+		return fields;
+	}
+
+	/**
+	 * Set the fields to format. Unknown field names are ignored.
+	 *
+	 * @param fields
+	 *            the comma separated field names, e.g.
+	 *            <code>timestamp,level,message</code>.
+	 * @throws IllegalArgumentException
+	 *             if the fields is null.
+	 */
+	public void setFields(String fields) throws IllegalArgumentException {
+		if (fields == null) {
+			throw new IllegalArgumentException("The fields must not be null.");
+		}
+
+		this.fields = fields;
+		fieldIds = parseFields(fields);
+	}
+
+	/**
+	 * Get the key-values that are added to each event.
+	 *
+	 * @return the comma separated key-values.
+	 */
+	public String getKeyValues() {
+		return keyValues;
+	}
+
+	/**
+	 * Set the key-values that are added to each event. A key-value without an
+	 * '=' is ignored.
+	 *
+	 * @param keyValues
+	 *            the comma separated key-values, e.g.
+	 *            <code>app=demo,env=test</code>.
+	 * @throws IllegalArgumentException
+	 *             if the keyValues is null.
+	 */
+	public void setKeyValues(String keyValues) throws IllegalArgumentException {
+		if (keyValues == null) {
+			throw new IllegalArgumentException("The keyValues must not be null.");
+		}
+
+		this.keyValues = keyValues;
+		keyValuesJson = createKeyValuesJson(keyValues);
+	}
+
+	private static int[] parseFields(String fields) {
+		List<Integer> ids = new ArrayList<Integer>();
+		StringTokenizer tokenizer = new StringTokenizer(fields, ",");
+
+		while (tokenizer.hasMoreTokens()) {
+			String field = tokenizer.nextToken().trim();
+			int id = indexOf(field);
+			if (id == -1) {
+				Log.e(TAG, "Unknown field for the JsonFormatter " + field);
+			} else {
+				ids.add(id);
+			}
+		}
+
+		int[] fieldIds = new int[ids.size()];
+		for (int index = 0; index < fieldIds.length; index++) {
+			fieldIds[index] = ids.get(index);
+		}
+
+		return fieldIds;
+	}
+
+	private static int indexOf(String field) {
+		for (int index = 0; index < FIELD_NAMES.length; index++) {
+			if (FIELD_NAMES[index].equals(field)) {
+				return index;
+			}
+		}
+
+		return -1;
+	}
+
+	private static String createKeyValuesJson(String keyValues) {
+		StringBuilder builder = new StringBuilder();
+		StringTokenizer tokenizer = new StringTokenizer(keyValues, ",");
+
+		while (tokenizer.hasMoreTokens()) {
+			String keyValue = tokenizer.nextToken();
+			int separatorIndex = keyValue.indexOf('=');
+			if (separatorIndex == -1) {
+				Log.e(TAG, "Missing '=' in the key-value for the JsonFormatter " + keyValue);
+				continue;
+			}
+
+			builder.append(',');
+			appendString(builder, keyValue.substring(0, separatorIndex).trim());
+			builder.append(':');
+			appendString(builder, keyValue.substring(separatorIndex + 1).trim());
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.format.Formatter#getPropertyNames()
+	 */
+	public String[] getPropertyNames() {
+		return PROPERTY_NAMES;
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.format.Formatter#setProperty(java.lang.String,
+	 *      java.lang.String)
+	 */
+	public void setProperty(String name, String value) {
+		if (name.equals(FIELDS_PROPERTY)) {
+			setFields(value);
+		} else if (name.equals(KEY_VALUES_PROPERTY)) {
+			setKeyValues(value);
+		}
+	}
+}
@@ -20,9 +20,12 @@ import java.util.Vector;
 import android.util.Log;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.format.command.AppendingFormatCommand;
 import com.google.code.microlog4android.format.command.CategoryFormatCommand;
 import com.google.code.microlog4android.format.command.ClientIdFormatCommand;
 import com.google.code.microlog4android.format.command.DateFormatCommand;
+import com.google.code.microlog4android.format.command.EventFormatCommand;
 import com.google.code.microlog4android.format.command.FormatCommandInterface;
 import com.google.code.microlog4android.format.command.MessageFormatCommand;
 import com.google.code.microlog4android.format.command.NoFormatCommand;
@@ -30,6 +33,7 @@ import com.google.code.microlog4android.format.command.PriorityFormatCommand;
 import com.google.code.microlog4android.format.command.ThreadFormatCommand;
 import com.google.code.microlog4android.format.command.ThrowableFormatCommand;
 import com.google.code.microlog4android.format.command.TimeFormatCommand;
+import com.google.code.microlog4android.format.command.WidthFormatCommand;
 
 
 /**
@@ -57,13 +61,41 @@ import com.google.code.microlog4android.format.command.TimeFormatCommand;
  *  %t : prints the thread name.
  *  %T : prints the Throwable object.
  *  %% : prints the '%' sign.
+ * 
+ *  A format modifier between the '%' and the conversion char pads or truncates the output:
+ *  %5P      : pads on the left to at least 5 chars.
+ *  %-5P     : pads on the right to at least 5 chars.
+ *  %.30c    : truncates to at most 30 chars by removing chars from the beginning.
+ *  %.-30m   : truncates to at most 30 chars by removing chars from the end.
+ *  %-20.30c : pads on the right to 20 chars and truncates to 30 chars.
  * </pre>
  * 
+ * The commands append their output to a <code>StringBuilder</code> that is
+ * reused by each thread, so formatting an event only creates the resulting
+ * <code>String</code>. An appender that writes characters can have the event
+ * appended to its own buffer instead, with no allocation at all.
+ * 
  * @author Johan Karlsson (johan.karlsson@jayway.se)
  * @since 0.6
  */
-public class PatternFormatter implements Formatter {
+public class PatternFormatter implements AppendingFormatter {
 	private static final String TAG = "Microlog.PatternFormatter";
+
+	/**
+	 * A buffer that grows beyond this capacity is not kept for the next event.
+	 */
+	private static final int MAX_BUFFER_CAPACITY = 4096;
+
+	/**
+	 * The buffer of each thread. It is taken out while it is used, so that an
+	 * event that is formatted while formatting another event, e.g. by the
+	 * <code>toString()</code> of a message, gets a buffer of its own.
+	 */
+	private static final ThreadLocal<StringBuilder> buffers = new ThreadLocal<StringBuilder>() {
+		protected StringBuilder initialValue() {
+			return new StringBuilder(256);
+		}
+	};
 	
 	public static final String PATTERN_PROPERTY = "pattern";
 
@@ -109,25 +141,76 @@ public class PatternFormatter implements Formatter {
 	 */
 	public String format(String clientID, String name, long time, Level level,
 			Object message, Throwable t) {
+		return format(new LogEvent(clientID, name, time, level, message, t));
+	}
+
+	/**
+	 * Format the event into the buffer of the current thread.
+	 * 
+	 * @see com.google.code.microlog4android.format.EventFormatter#format(com.google.code.microlog4android.LogEvent)
+	 */
+	public String format(LogEvent event) {
+		StringBuilder builder = buffers.get();
+		if (builder == null) {
+			builder = new StringBuilder(256);
+		} else {
+			buffers.set(null);
+			builder.setLength(0);
+		}
+
+		try {
+			format(event, builder);
+			return builder.toString();
+		} finally {
+			if (builder.capacity() <= MAX_BUFFER_CAPACITY) {
+				buffers.set(builder);
+			}
+		}
+	}
+
+	/**
+	 * Format the event. Commands that are <code>AppendingFormatCommand</code>s
+	 * append their output directly, <code>EventFormatCommand</code>s get the
+	 * whole event and the others are called with the six argument
+	 * <code>execute()</code>.
+	 * 
+	 * @see com.google.code.microlog4android.format.AppendingFormatter#format(com.google.code.microlog4android.LogEvent,
+	 *      java.lang.StringBuilder)
+	 */
+	public void format(LogEvent event, StringBuilder builder) {
 
 		if (!patternParsed && pattern != null) {
 			parsePattern(pattern);
 		}
 
-		StringBuffer formattedStringBuffer = new StringBuffer(64);
-		if (commandArray != null) {
-			int length = commandArray.length;
+		FormatCommandInterface[] commands = commandArray;
+		if (commands != null) {
+			int length = commands.length;
 
 			for (int index = 0; index < length; index++) {
-				FormatCommandInterface currentConverter = commandArray[index];
-				if (currentConverter != null) {
-					formattedStringBuffer.append(currentConverter.execute(
-							clientID, name, time, level, message, t));
+				FormatCommandInterface currentConverter = commands[index];
+				if (currentConverter instanceof AppendingFormatCommand) {
+					((AppendingFormatCommand) currentConverter).append(builder, event);
+				} else if (currentConverter instanceof EventFormatCommand) {
+					builder.append(((EventFormatCommand) currentConverter).execute(event));
+				} else if (currentConverter != null) {
+					builder.append(currentConverter.execute(event.getClientID(), event.getLoggerName(),
+							event.getTime(), event.getLevel(), event.getMessage(), event.getThrowable()));
 				}
 			}
 		}
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.format.EventFormatter#isEquivalent(com.google.code.microlog4android.format.Formatter)
+	 */
+	public boolean isEquivalent(Formatter formatter) {
+		if (formatter == this) {
+			return true;
+		}
 
-		return formattedStringBuffer.toString();
+		return formatter != null && formatter.getClass() == getClass()
+				&& pattern.equals(((PatternFormatter) formatter).pattern);
 	}
 
 	/**
@@ -174,7 +257,18 @@ public class PatternFormatter implements Formatter {
 			if (currentChar == '%') {
 
 				currentIndex++;
+				int modifierIndex = currentIndex;
+				while (currentIndex < patternLength && isModifierChar(pattern.charAt(currentIndex))) {
+					currentIndex++;
+				}
+				if (currentIndex == patternLength) {
+					Log.e(TAG, "Missing conversion character at the end of the pattern");
+					break;
+				}
+
+				int modifierEnd = currentIndex;
 				currentChar = pattern.charAt(currentIndex);
+				int commandCount = converterVector.size();
 
 				switch (currentChar) {
 				case CLIENT_ID_CONVERSION_CHAR:
@@ -217,7 +311,14 @@ public class PatternFormatter implements Formatter {
 					break;
 
 				case THROWABLE_CONVERSION_CHAR:
-					converterVector.addElement(new ThrowableFormatCommand());
+					ThrowableFormatCommand throwableFormatCommand = new ThrowableFormatCommand();
+					specifier = extraxtSpecifier(pattern, currentIndex);
+					specifierLength = specifier.length();
+					if (specifierLength > 0) {
+						throwableFormatCommand.init(specifier);
+						currentIndex = currentIndex + specifierLength + 2;
+					}
+					converterVector.addElement(throwableFormatCommand);
 					break;
 
 				case PERCENT_CONVERSION_CHAR:
@@ -232,6 +333,12 @@ public class PatternFormatter implements Formatter {
 					break;
 				}
 
+				if (modifierEnd > modifierIndex && converterVector.size() > commandCount) {
+					WidthFormatCommand widthFormatCommand = new WidthFormatCommand(converterVector.lastElement());
+					widthFormatCommand.init(pattern.substring(modifierIndex, modifierEnd));
+					converterVector.setElementAt(widthFormatCommand, commandCount);
+				}
+
 				currentIndex++;
 
 			} else {
@@ -261,13 +368,21 @@ public class PatternFormatter implements Formatter {
 		patternParsed = true;
 	}
 
+	/**
+	 * @return <code>true</code> if the char is part of a format modifier,
+	 *         e.g. <code>-20.30</code>.
+	 */
+	private static boolean isModifierChar(char c) {
+		return c == '-' || c == '.' || (c >= '0' && c <= '9');
+	}
+
 	String extraxtSpecifier(String pattern, int index) {
 		String specifier = "";
 
 		int beginIndex = pattern.indexOf('{', index);
 		int endIndex = pattern.indexOf('}', index);
 
-		if (beginIndex > 0 && endIndex > beginIndex) {
+		if (beginIndex == index + 1 && endIndex > beginIndex) {
 			specifier = pattern.substring(beginIndex + 1, endIndex);
 		}
 
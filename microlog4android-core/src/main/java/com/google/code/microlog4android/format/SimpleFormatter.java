@@ -15,6 +15,7 @@
 package com.google.code.microlog4android.format;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 
 /**
  * A simple formatter that only outputs the level, the message and the Throwable
@@ -23,7 +24,7 @@ import com.google.code.microlog4android.Level;
  * @author Johan Karlsson (johan.karlsson@jayway.se)
  * @since 0.1
  */
-public final class SimpleFormatter implements Formatter {
+public final class SimpleFormatter implements EventFormatter {
 
 	public static final String DEFAULT_DELIMITER = "-";
 
@@ -101,6 +102,27 @@ public final class SimpleFormatter implements Formatter {
 		return buffer.toString();
 	}
 
+	/**
+	 * Format the event.
+	 * 
+	 * @see com.google.code.microlog4android.format.EventFormatter#format(com.google.code.microlog4android.LogEvent)
+	 */
+	public String format(LogEvent event) {
+		return format(event.getClientID(), event.getLoggerName(), event.getTime(), event.getLevel(),
+				event.getMessage(), event.getThrowable());
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.format.EventFormatter#isEquivalent(com.google.code.microlog4android.format.Formatter)
+	 */
+	public boolean isEquivalent(Formatter formatter) {
+		if (formatter == this) {
+			return true;
+		}
+
+		return formatter instanceof SimpleFormatter && delimiter.equals(((SimpleFormatter) formatter).delimiter);
+	}
+
 	public String[] getPropertyNames() {
 		// We have no properties that can be set.
 		return null;
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2010 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.format;
+
+import java.nio.ByteBuffer;
+
+import com.google.code.microlog4android.LogEvent;
+
+/**
+ * The <code>Utf8Encoder</code> formats events and encodes them as UTF-8 into a
+ * <code>ByteBuffer</code> that is reused, for the appenders that write bytes.
+ * With an <code>AppendingFormatter</code>, no <code>String</code> and no
+ * <code>byte[]</code> is created per event. Text that is all ASCII, which is
+ * the common case for log output, is copied one byte per char.
+ * 
+ * An encoder is not thread safe. Each appender should have its own encoder,
+ * used while holding the lock of the appender.
+ * 
+ * @author Johan Karlsson
+ */
+public final class Utf8Encoder {
+	private static final int INITIAL_CAPACITY = 256;
+
+	/**
+	 * Buffers that grow beyond this capacity are not kept for the next event.
+	 */
+	private static final int MAX_CAPACITY = 16384;
+
+	private static final byte REPLACEMENT = '?';
+
+	private StringBuilder builder = new StringBuilder(INITIAL_CAPACITY);
+
+	private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY * 3);
+
+	/**
+	 * Format the event with the formatter and encode it.
+	 * 
+	 * @param event
+	 *            the <code>LogEvent</code> to encode.
+	 * @param formatter
+	 *            the <code>Formatter</code> to use.
+	 * @param suffix
+	 *            the text to encode after the event, e.g. a line separator, or
+	 *            <code>null</code>.
+	 * @return a buffer with the encoded event between its position and its
+	 *         limit. It is only valid until the encoder is used again.
+	 */
+	public ByteBuffer encode(LogEvent event, Formatter formatter, String suffix) {
+		if (builder.capacity() > MAX_CAPACITY) {
+			builder = new StringBuilder(INITIAL_CAPACITY);
+		}
+		builder.setLength(0);
+
+		event.format(formatter, builder);
+		if (suffix != null) {
+			builder.append(suffix);
+		}
+
+		return encode(builder);
+	}
+
+	/**
+	 * Encode the chars.
+	 * 
+	 * @param chars
+	 *            the chars to encode.
+	 * @return a buffer with the encoded chars between its position and its
+	 *         limit. It is only valid until the encoder is used again.
+	 */
+	public ByteBuffer encode(CharSequence chars) {
+		int length = chars.length();
+		// A char is at most three bytes, a surrogate pair four bytes
+		int maxBytes = length * 3;
+
+		if (buffer.capacity() < maxBytes || buffer.capacity() > Math.max(MAX_CAPACITY, maxBytes * 2)) {
+			buffer = ByteBuffer.allocate(Math.max(maxBytes, INITIAL_CAPACITY * 3));
+		}
+
+		byte[] bytes = buffer.array();
+		int byteCount = encode(chars, 0, length, bytes, 0);
+		buffer.clear();
+		buffer.limit(byteCount);
+
+		return buffer;
+	}
+
+	/**
+	 * Get the number of bytes of the chars when encoded by
+	 * <code>encode()</code>.
+	 * 
+	 * @param chars
+	 *            the chars to encode.
+	 * @param start
+	 *            the index of the first char to encode.
+	 * @param end
+	 *            the index after the last char to encode.
+	 * @return the number of bytes.
+	 */
+	static int getEncodedLength(CharSequence chars, int start, int end) {
+		int length = end - start;
+
+		for (int index = start; index < end; index++) {
+			char c = chars.charAt(index);
+
+			if (c < 0x80) {
+				continue;
+			} else if (c < 0x800) {
+				length++;
+			} else if (Character.isHighSurrogate(c) && index + 1 < end
+					&& Character.isLowSurrogate(chars.charAt(index + 1))) {
+				// Four bytes for the two chars
+				length += 2;
+				index++;
+			} else if (!Character.isHighSurrogate(c) && !Character.isLowSurrogate(c)) {
+				length += 2;
+			}
+		}
+
+		return length;
+	}
+
+	/**
+	 * Encode the chars as UTF-8. An unpaired surrogate is encoded as
+	 * <code>'?'</code>, like <code>String.getBytes()</code> does.
+	 * 
+	 * @param chars
+	 *            the chars to encode.
+	 * @param start
+	 *            the index of the first char to encode.
+	 * @param end
+	 *            the index after the last char to encode.
+	 * @param bytes
+	 *            the array to encode to. It must have room for three bytes
+	 *            per char.
+	 * @param offset
+	 *            the index in the array of the first byte.
+	 * @return the index after the last encoded byte.
+	 */
+	static int encode(CharSequence chars, int start, int end, byte[] bytes, int offset) {
+		int index = start;
+		int position = offset;
+
+		// ASCII fast path
+		while (index < end) {
+			char c = chars.charAt(index);
+			if (c >= 0x80) {
+				break;
+			}
+			bytes[position++] = (byte) c;
+			index++;
+		}
+
+		while (index < end) {
+			char c = chars.charAt(index++);
+
+			if (c < 0x80) {
+				bytes[position++] = (byte) c;
+			} else if (c < 0x800) {
+				bytes[position++] = (byte) (0xC0 | (c >> 6));
+				bytes[position++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && index < end && Character.isLowSurrogate(chars.charAt(index))) {
+				int codePoint = Character.toCodePoint(c, chars.charAt(index++));
+				bytes[position++] = (byte) (0xF0 | (codePoint >> 18));
+				bytes[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+				bytes[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+				bytes[position++] = (byte) (0x80 | (codePoint & 0x3F));
+			} else if (Character.isHighSurrogate(c) || Character.isLowSurrogate(c)) {
+				bytes[position++] = REPLACEMENT;
+			} else {
+				bytes[position++] = (byte) (0xE0 | (c >> 12));
+				bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				bytes[position++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+
+		return position;
+	}
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2010 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.format.command;
+
+import com.google.code.microlog4android.LogEvent;
+
+/**
+ * A format command that appends the converted data to a buffer, instead of
+ * returning it as a new <code>String</code>.
+ * 
+ * @author Johan Karlsson
+ */
+public interface AppendingFormatCommand extends FormatCommandInterface {
+
+	/**
+	 * Convert the event and append the result.
+	 * 
+	 * @param builder
+	 *            the <code>StringBuilder</code> to append to.
+	 * @param event
+	 *            the <code>LogEvent</code> to convert.
+	 */
+	public void append(StringBuilder builder, LogEvent event);
+}
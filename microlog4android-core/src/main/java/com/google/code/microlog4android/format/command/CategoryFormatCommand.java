@@ -18,7 +18,9 @@ package com.google.code.microlog4android.format.command;
 import android.util.Log;
 
 import com.google.code.microlog4android.Level;
-import com.google.code.microlog4android.format.command.util.StringUtil;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.Logger;
+import com.google.code.microlog4android.format.command.util.NameAbbreviation;
 
 /**
  * The <code>CategoryFormatCommand</code> is used for printing the category,
@@ -28,15 +30,23 @@ import com.google.code.microlog4android.format.command.util.StringUtil;
  * 
  * @since 1.0
  */
-public class CategoryFormatCommand implements FormatCommandInterface {
+public class CategoryFormatCommand implements AppendingFormatCommand {
 	private static final String TAG = "Microlog.CategoryFormatCommand";
 	
 	public static final int FULL_CLASS_NAME_SPECIFIER = -1;
 
 	public static final int DEFAULT_PRECISION_SPECIFIER = 1;
 
+	/**
+	 * The suffix of a specifier that abbreviates the packages, e.g.
+	 * <code>%c{1.}</code> for <code>c.g.c.m.Logger</code>.
+	 */
+	public static final char PACKAGE_ABBREVIATION_SUFFIX = '.';
+
 	private int precisionSpecifier = DEFAULT_PRECISION_SPECIFIER;
 
+	private volatile NameAbbreviation abbreviation = NameAbbreviation.lastParts(DEFAULT_PRECISION_SPECIFIER);
+
 	/**
 	 * 
 	 * 
@@ -49,29 +59,53 @@ public class CategoryFormatCommand implements FormatCommandInterface {
 		String convertedData = "";
 
 		if (name != null) {
-			if (precisionSpecifier == FULL_CLASS_NAME_SPECIFIER) {
-				convertedData = name;
-			} else {
-				convertedData = StringUtil.extractPartialClassName(name,
-						precisionSpecifier);
-			}
+			convertedData = abbreviation.abbreviate(name);
 		}
 
 		return convertedData;
 	}
 
 	/**
+	 * Append the category. The abbreviated name is kept by the logger of the
+	 * event, so it is only computed the first time. An event without a logger
+	 * is abbreviated directly into the builder.
+	 * 
+	 * @see com.google.code.microlog4android.format.command.AppendingFormatCommand#append(java.lang.StringBuilder,
+	 *      com.google.code.microlog4android.LogEvent)
+	 */
+	public void append(StringBuilder builder, LogEvent event) {
+		String name = event.getLoggerName();
+
+		if (name != null) {
+			Logger logger = event.getLogger();
+			if (logger != null) {
+				builder.append(logger.getAbbreviatedName(abbreviation));
+			} else {
+				abbreviation.appendTo(builder, name);
+			}
+		}
+	}
+
+	/**
+	 * Initialize the command with a precision specifier, i.e. the number of
+	 * parts of the name to print, or with the number of chars to print of
+	 * each package followed by a <code>'.'</code>.
 	 * 
 	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#init(java.lang.String)
 	 */
 	public void init(String initString) {
 		try {
-			precisionSpecifier = Integer.parseInt(initString);
-			System.out.println("Precision specifier for %c is "
-					+ precisionSpecifier);
+			int length = initString.length();
+			if (length > 0 && initString.charAt(length - 1) == PACKAGE_ABBREVIATION_SUFFIX) {
+				abbreviation = NameAbbreviation.packages(Integer.parseInt(initString.substring(0, length - 1)));
+			} else {
+				setPrecisionSpecifier(Integer.parseInt(initString));
+			}
 		} catch (NumberFormatException e) {
 			Log.e(TAG, "Failed to parse the specifier for the %c pattern "
 					+ e);
+		} catch (IllegalArgumentException e) {
+			Log.e(TAG, "Invalid specifier for the %c pattern " + e);
 		}
 	}
 
@@ -92,6 +126,7 @@ public class CategoryFormatCommand implements FormatCommandInterface {
 	 */
 	public void setPrecisionSpecifier(int precisionSpecifier) {
 		this.precisionSpecifier = precisionSpecifier;
+		this.abbreviation = NameAbbreviation.lastParts(precisionSpecifier);
 	}
 
 }
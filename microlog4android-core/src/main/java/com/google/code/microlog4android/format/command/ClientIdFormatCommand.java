@@ -15,6 +15,7 @@
 package com.google.code.microlog4android.format.command;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 
 /**
  * The <code>ClientIdFormatCommand</code> formats the client id.
@@ -22,7 +23,7 @@ import com.google.code.microlog4android.Level;
  * @author Johan Karlsson (johan.karlsson@jayway.se)
  * 
  */
-public class ClientIdFormatCommand implements FormatCommandInterface {
+public class ClientIdFormatCommand implements AppendingFormatCommand {
 
 	/**
 	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#execute(String,
@@ -32,6 +33,14 @@ public class ClientIdFormatCommand implements FormatCommandInterface {
 			Object message, Throwable throwable) {
 		return clientID;
 	}
+
+	/**
+	 * @see com.google.code.microlog4android.format.command.AppendingFormatCommand#append(java.lang.StringBuilder,
+	 *      com.google.code.microlog4android.LogEvent)
+	 */
+	public void append(StringBuilder builder, LogEvent event) {
+		builder.append(event.getClientID());
+	}
 	
 	/**
 	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#init(String)
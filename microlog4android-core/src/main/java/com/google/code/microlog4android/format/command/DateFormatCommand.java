@@ -15,23 +15,26 @@
 package com.google.code.microlog4android.format.command;
 
 import java.util.Calendar;
-import java.util.Date;
-import java.util.TimeZone;
 
 import android.util.Log;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 
 
 /**
  * This class is used for formatting dates.
  * 
+ * The command is thread safe. Most events are logged in the same second as
+ * the previous event, so the date is only formatted when the second changes
+ * and the milliseconds are appended to the formatted second.
+ * 
  * Minimum requirements; CLDC 1.0
  * 
  * @author Johan Karlsson (johan.karlsson@jayway.se)
  * 
  */
-public class DateFormatCommand implements FormatCommandInterface {
+public class DateFormatCommand implements AppendingFormatCommand {
 	private static final String TAG = "Microlog.DateFormatCommand";
 	
 	public static int USER_FORMAT = 0;
@@ -51,40 +54,57 @@ public class DateFormatCommand implements FormatCommandInterface {
 	final static String[] MONTH_ARRAY = { "JAN", "FEB", "MAR", "APR",
 			"MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC" };
 
+	private static final int MILLISECONDS_PER_SECOND = 1000;
+
+	/**
+	 * The calendar is only used while holding the lock of the command, i.e.
+	 * once per second at most when logging.
+	 */
 	private final Calendar calendar = Calendar.getInstance();
 
 	int format = ABSOLUTE_FORMAT;
 
+	private volatile CachedSecond cachedSecond;
+
 	/**
 	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#execute(String,
 	 *      java.lang.String, long, com.google.code.microlog4android.Level, java.lang.Object, java.lang.Throwable)
 	 */
 	public String execute(String clientID, String name, long time, Level level,
 			Object message, Throwable throwable) {
+		StringBuilder builder = new StringBuilder(24);
+		appendDate(builder, System.currentTimeMillis());
 
-		String dateString = "";
-		long currentTime = System.currentTimeMillis();
-
-		switch (format) {
-		case ABSOLUTE_FORMAT:
-			dateString = toAbsoluteFormat(currentTime);
-			break;
+		return builder.toString();
+	}
 
-		case DATE_FORMAT:
-			dateString = toDateFormat(currentTime);
-			break;
+	/**
+	 * Append the date when the event was logged, without creating any
+	 * intermediate <code>String</code>.
+	 * 
+	 * @see com.google.code.microlog4android.format.command.AppendingFormatCommand#append(java.lang.StringBuilder,
+	 *      com.google.code.microlog4android.LogEvent)
+	 */
+	public void append(StringBuilder builder, LogEvent event) {
+		appendDate(builder, event.getTimestamp());
+	}
 
-		case ISO_8601_FORMAT:
-			dateString = toISO8601Format(currentTime);
-			break;
+	/**
+	 * Append the date. The date up to the seconds is formatted once per
+	 * second and shared between the threads; only the milliseconds are
+	 * appended for each event.
+	 */
+	private void appendDate(StringBuilder builder, long time) {
+		long second = getSecond(time);
+		CachedSecond cached = cachedSecond;
 
-		default:
-			Log.e(TAG, "Unrecognized format, using default format.");
-			dateString = toAbsoluteFormat(System.currentTimeMillis());
-			break;
+		if (cached == null || cached.second != second) {
+			cached = new CachedSecond(second, createPrefix(second * MILLISECONDS_PER_SECOND));
+			cachedSecond = cached;
 		}
 
-		return dateString;
+		builder.append(cached.prefix);
+		appendMilliseconds(builder, (int) (time - second * MILLISECONDS_PER_SECOND));
 	}
 
 	/**
@@ -98,6 +118,7 @@ public class DateFormatCommand implements FormatCommandInterface {
 		} else if (initString.equals(ISO_8601_FORMAT_STRING)) {
 			format = ISO_8601_FORMAT;
 		}
+		cachedSecond = null;
 	}
 
 	/**
@@ -108,96 +129,121 @@ public class DateFormatCommand implements FormatCommandInterface {
 	 * @return the formatted <code>String</code>.
 	 */
 	String toAbsoluteFormat(long time) {
+		return toFormat(time, ABSOLUTE_FORMAT);
+	}
 
-		calendar.setTime(new Date(time));
-		long hours = calendar.get(Calendar.HOUR_OF_DAY);
-		StringBuffer buffer = new StringBuffer();
+	String toDateFormat(long time) {
+		return toFormat(time, DATE_FORMAT);
+	}
 
-		if (hours < 10) {
-			buffer.append('0');
-		}
-		buffer.append(hours);
+	String toISO8601Format(long time) {
+		return toFormat(time, ISO_8601_FORMAT);
+	}
 
-		buffer.append(':');
+	private String toFormat(long time, int format) {
+		long second = getSecond(time);
+		StringBuilder builder = new StringBuilder(24);
 
-		long minutes = calendar.get(Calendar.MINUTE);
-		if (minutes < 10) {
-			buffer.append('0');
+		synchronized (this) {
+			calendar.setTimeInMillis(second * MILLISECONDS_PER_SECOND);
+			appendPrefix(builder, format);
 		}
-		buffer.append(minutes);
+		appendMilliseconds(builder, (int) (time - second * MILLISECONDS_PER_SECOND));
 
-		buffer.append(':');
+		return builder.toString();
+	}
 
-		long seconds = calendar.get(Calendar.SECOND);
-		if (seconds < 10) {
-			buffer.append('0');
-		}
-		buffer.append(seconds);
+	/**
+	 * Get the second of the time, rounded down also for times before 1970.
+	 */
+	private static long getSecond(long time) {
+		long second = time / MILLISECONDS_PER_SECOND;
 
-		buffer.append(',');
+		return time % MILLISECONDS_PER_SECOND < 0 ? second - 1 : second;
+	}
 
-		long milliseconds = calendar.get(Calendar.MILLISECOND);
+	private static void appendMilliseconds(StringBuilder builder, int milliseconds) {
+		if (milliseconds < 100) {
+			builder.append('0');
+		}
 		if (milliseconds < 10) {
-			buffer.append('0');
+			builder.append('0');
 		}
-		buffer.append(milliseconds);
-
-		return buffer.toString();
+		builder.append(milliseconds);
 	}
 
-	String toDateFormat(long time) {
+	/**
+	 * Create the formatted date up to the milliseconds, i.e. including the
+	 * comma after the seconds.
+	 */
+	private synchronized String createPrefix(long time) {
+		StringBuilder builder = new StringBuilder(24);
+		calendar.setTimeInMillis(time);
+		int currentFormat = format;
 
-		calendar.setTime(new Date(time));
-		StringBuffer buffer = new StringBuffer();
+		switch (currentFormat) {
+		case ABSOLUTE_FORMAT:
+		case DATE_FORMAT:
+		case ISO_8601_FORMAT:
+			appendPrefix(builder, currentFormat);
+			break;
 
-		int day = calendar.get(Calendar.DAY_OF_MONTH);
-		if (day < 10) {
-			buffer.append('0');
+		default:
+			Log.e(TAG, "Unrecognized format, using default format.");
+			appendPrefix(builder, ABSOLUTE_FORMAT);
+			break;
 		}
-		buffer.append(day);
-		buffer.append(' ');
-
-		int month = calendar.get(Calendar.MONTH);
-		buffer.append(MONTH_ARRAY[month]);
-		buffer.append(' ');
-
-		int year = calendar.get(Calendar.YEAR);
-		buffer.append(year);
-		buffer.append(' ');
 
-		String absoluteTimeString = toAbsoluteFormat(time);
-		buffer.append(absoluteTimeString);
-
-		return buffer.toString();
+		return builder.toString();
 	}
 
-	String toISO8601Format(long time) {
-
-		calendar.setTime(new Date(time));
-		StringBuffer buffer = new StringBuffer();
-
-		int year = calendar.get(Calendar.YEAR);
-		buffer.append(year);
-		buffer.append('-');
-
-		int month = calendar.get(Calendar.MONTH) + 1;
-		if (month < 10) {
-			buffer.append('0');
+	/**
+	 * Append the time of the calendar in the specified format, up to the
+	 * milliseconds. Must be called while holding the lock of the command.
+	 */
+	private void appendPrefix(StringBuilder buffer, int format) {
+		if (format == DATE_FORMAT) {
+			appendTwoDigits(buffer, calendar.get(Calendar.DAY_OF_MONTH));
+			buffer.append(' ');
+			buffer.append(MONTH_ARRAY[calendar.get(Calendar.MONTH)]);
+			buffer.append(' ');
+			buffer.append(calendar.get(Calendar.YEAR));
+			buffer.append(' ');
+		} else if (format == ISO_8601_FORMAT) {
+			buffer.append(calendar.get(Calendar.YEAR));
+			buffer.append('-');
+			appendTwoDigits(buffer, calendar.get(Calendar.MONTH) + 1);
+			buffer.append('-');
+			appendTwoDigits(buffer, calendar.get(Calendar.DAY_OF_MONTH));
+			buffer.append(' ');
 		}
-		buffer.append(month);
-		buffer.append('-');
 
-		int day = calendar.get(Calendar.DAY_OF_MONTH);
-		if (day < 10) {
+		appendTwoDigits(buffer, calendar.get(Calendar.HOUR_OF_DAY));
+		buffer.append(':');
+		appendTwoDigits(buffer, calendar.get(Calendar.MINUTE));
+		buffer.append(':');
+		appendTwoDigits(buffer, calendar.get(Calendar.SECOND));
+		buffer.append(',');
+	}
+
+	private static void appendTwoDigits(StringBuilder buffer, int value) {
+		if (value < 10) {
 			buffer.append('0');
 		}
-		buffer.append(day);
-		buffer.append(' ');
+		buffer.append(value);
+	}
 
-		String absoluteTimeString = toAbsoluteFormat(time);
-		buffer.append(absoluteTimeString);
+	/**
+	 * The date of one second, formatted up to the milliseconds. It is
+	 * immutable, so that it can be shared between threads.
+	 */
+	private static final class CachedSecond {
+		final long second;
+		final String prefix;
 
-		return buffer.toString();
+		CachedSecond(long second, String prefix) {
+			this.second = second;
+			this.prefix = prefix;
+		}
 	}
-
 }
@@ -16,13 +16,15 @@
 package com.google.code.microlog4android.format.command;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.PrimitiveMessage;
 
 /**
  * Convert the logged message.
  *
  * @author Johan Karlsson (johan.karlsson@jayway.se)
  */
-public class MessageFormatCommand implements FormatCommandInterface {
+public class MessageFormatCommand implements AppendingFormatCommand {
 	
 	
 	
@@ -45,5 +47,31 @@ public class MessageFormatCommand implements FormatCommandInterface {
 		
 		return convertedData;
 	}
+
+	/**
+	 * @see com.google.code.microlog4android.format.command.AppendingFormatCommand#append(java.lang.StringBuilder,
+	 *      com.google.code.microlog4android.LogEvent)
+	 */
+	public void append(StringBuilder builder, LogEvent event) {
+		appendMessage(builder, event.getMessage());
+	}
+
+	/**
+	 * Append the message to the specified buffer. A
+	 * <code>PrimitiveMessage</code> is appended without creating any
+	 * intermediate <code>String</code>.
+	 * 
+	 * @param builder
+	 *            the <code>StringBuilder</code> to append to.
+	 * @param message
+	 *            the log message.
+	 */
+	public static void appendMessage(StringBuilder builder, Object message) {
+		if (message instanceof PrimitiveMessage) {
+			((PrimitiveMessage) message).appendTo(builder);
+		} else if (message != null) {
+			builder.append(message.toString());
+		}
+	}
 	
 }
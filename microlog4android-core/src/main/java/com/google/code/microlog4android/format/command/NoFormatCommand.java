@@ -16,6 +16,7 @@
 package com.google.code.microlog4android.format.command;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 
 /**
  * This command does not do any formatting. It just stores the
@@ -23,7 +24,7 @@ import com.google.code.microlog4android.Level;
  * 
  * @author Johan Karlsson (johan.karlsson@jayway.se)
  */
-public class NoFormatCommand implements FormatCommandInterface {
+public class NoFormatCommand implements AppendingFormatCommand {
 
 	private String preFormatString = "";
 
@@ -45,4 +46,14 @@ public class NoFormatCommand implements FormatCommandInterface {
 		return preFormatString;
 	}
 
+	/**
+	 * Append the <code>preFormatString</code>.
+	 * 
+	 * @see com.google.code.microlog4android.format.command.AppendingFormatCommand#append(java.lang.StringBuilder,
+	 *      com.google.code.microlog4android.LogEvent)
+	 */
+	public void append(StringBuilder builder, LogEvent event) {
+		builder.append(preFormatString);
+	}
+
 }
@@ -16,13 +16,14 @@
 package com.google.code.microlog4android.format.command;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 
 /**
  * Convert the <code>Level</code> to message.
  * 
  * @author Johan Karlsson (johan.karlsson@jayway.se)
  */
-public class PriorityFormatCommand implements FormatCommandInterface {
+public class PriorityFormatCommand implements AppendingFormatCommand {
 
 	/**
 	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#init(String)
@@ -46,4 +47,16 @@ public class PriorityFormatCommand implements FormatCommandInterface {
 		return levelString;
 	}
 
+	/**
+	 * @see com.google.code.microlog4android.format.command.AppendingFormatCommand#append(java.lang.StringBuilder,
+	 *      com.google.code.microlog4android.LogEvent)
+	 */
+	public void append(StringBuilder builder, LogEvent event) {
+		Level level = event.getLevel();
+
+		if (level != null) {
+			builder.append(level.toString());
+		}
+	}
+
 }
@@ -16,15 +16,17 @@
 package com.google.code.microlog4android.format.command;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 
 /**
- * A converter that is used for printing the current thread name.
+ * A converter that is used for printing the name of the thread that logged
+ * the event. When called without an event, the current thread is used.
  * 
  * Minimum requirements: CLDC 1.1
  * 
  * @author Johan Karlsson (johan.karlsson@jayway.se)
  */
-public class ThreadFormatCommand implements FormatCommandInterface {
+public class ThreadFormatCommand implements EventFormatCommand, AppendingFormatCommand {
 
 	/**
 	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#init(String)
@@ -41,4 +43,19 @@ public class ThreadFormatCommand implements FormatCommandInterface {
 		return Thread.currentThread().getName();
 	}
 
+	/**
+	 * Execute the <code>ThreadFormatCommand</code> for the event.
+	 */
+	public String execute(LogEvent event) {
+		return event.getThreadName();
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.format.command.AppendingFormatCommand#append(java.lang.StringBuilder,
+	 *      com.google.code.microlog4android.LogEvent)
+	 */
+	public void append(StringBuilder builder, LogEvent event) {
+		builder.append(event.getThreadName());
+	}
+
 }
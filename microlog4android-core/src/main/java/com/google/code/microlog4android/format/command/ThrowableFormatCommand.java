@@ -15,20 +15,53 @@
 
 package com.google.code.microlog4android.format.command;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringTokenizer;
+
+import android.util.Log;
+
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.format.command.util.ThrowableRenderer;
 
 /**
- * Converts the <code>Throwable</code> to a message.
+ * Converts the <code>Throwable</code> to a message, including its causes.
+ * 
+ * The specifier is a comma separated list of the maximum number of frames to
+ * print for each throwable and the packages whose frames are left out, e.g.
+ * <code>%T{20,java.lang.reflect,sun.reflect}</code>. Both are optional.
  * 
  * @author Johan Karlsson (johan.karlsson@jayway.se)
+ * @see ThrowableRenderer
  */
-public class ThrowableFormatCommand implements FormatCommandInterface {
-	
+public class ThrowableFormatCommand implements AppendingFormatCommand {
+	private static final String TAG = "Microlog.ThrowableFormatCommand";
+
+	private volatile ThrowableRenderer renderer = new ThrowableRenderer();
+
 	/**
 	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#init(String)
 	 */
 	public void init(String initString) {
-		// Do nothing.	
+		int maxDepth = ThrowableRenderer.FULL_DEPTH;
+		List<String> filteredPackages = new ArrayList<String>();
+		StringTokenizer tokenizer = new StringTokenizer(initString, ",");
+
+		for (int index = 0; tokenizer.hasMoreTokens(); index++) {
+			String token = tokenizer.nextToken().trim();
+			if (index == 0 && token.length() > 0 && Character.isDigit(token.charAt(0))) {
+				try {
+					maxDepth = Integer.parseInt(token);
+				} catch (NumberFormatException e) {
+					Log.e(TAG, "Failed to parse the depth for the %T pattern " + e);
+				}
+			} else if (token.length() > 0) {
+				filteredPackages.add(token);
+			}
+		}
+
+		renderer = new ThrowableRenderer(maxDepth, filteredPackages.toArray(new String[filteredPackages.size()]));
 	}
 
 	/**
@@ -37,21 +70,19 @@ public class ThrowableFormatCommand implements FormatCommandInterface {
 	 * @see FormatCommandInterface#execute(String, String, long, Level, Object, Throwable)
 	 */
 	public String execute(String clientID, String name, long time, Level level, Object message, Throwable throwable) {
-
-		StringBuilder sb = new StringBuilder();
-		if (throwable != null) {
-			sb.append(throwable.toString());
-			String newline = System.getProperty("line.separator");
-			StackTraceElement[] stackTrace = throwable.getStackTrace();
-			for (int i = 0; i < stackTrace.length; i++) {
-				StackTraceElement element = stackTrace[i];
-				sb.append(newline);
-				sb.append("\tat ");
-				sb.append(element.toString());
-			}
+		if (throwable == null) {
+			return "";
 		}
 
-		return sb.toString();
+		return renderer.render(throwable);
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.format.command.AppendingFormatCommand#append(java.lang.StringBuilder,
+	 *      com.google.code.microlog4android.LogEvent)
+	 */
+	public void append(StringBuilder builder, LogEvent event) {
+		renderer.appendTo(builder, event.getThrowable());
 	}
 
 }
@@ -16,13 +16,14 @@
 package com.google.code.microlog4android.format.command;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 
 /**
  * 
  * 
  * @author Johan Karlsson (johan.karlsson@jayway.se)
  */
-public class TimeFormatCommand implements FormatCommandInterface {
+public class TimeFormatCommand implements AppendingFormatCommand {
 
 	/**
 	 * 
@@ -41,4 +42,14 @@ public class TimeFormatCommand implements FormatCommandInterface {
 		return String.valueOf(time);
 	}
 
+	/**
+	 * Append the time, without creating a <code>String</code> for it.
+	 * 
+	 * @see com.google.code.microlog4android.format.command.AppendingFormatCommand#append(java.lang.StringBuilder,
+	 *      com.google.code.microlog4android.LogEvent)
+	 */
+	public void append(StringBuilder builder, LogEvent event) {
+		builder.append(event.getTime());
+	}
+
 }
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2010 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.format.command;
+
+import android.util.Log;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+
+/**
+ * The <code>WidthFormatCommand</code> applies a Log4j format modifier to the
+ * output of another command. The modifier is the part between the
+ * <code>'%'</code> and the conversion char, e.g. <code>-5</code> in
+ * <code>%-5P</code>:
+ *
+ * <pre>
+ *  %5P    : pad with spaces on the left to at least 5 chars
+ *  %-5P   : pad with spaces on the right to at least 5 chars
+ *  %.30c  : truncate to at most 30 chars, keeping the end
+ *  %.-30m : truncate to at most 30 chars, keeping the beginning
+ *  %-20.30c : both
+ * </pre>
+ *
+ * The output of the command is appended first and then padded or truncated in
+ * place, so that no substring and no padding <code>String</code> is created.
+ *
+ * @author Johan Karlsson
+ */
+public class WidthFormatCommand implements AppendingFormatCommand {
+	private static final String TAG = "Microlog.WidthFormatCommand";
+
+	public static final int NO_WIDTH = -1;
+
+	private static final String SPACES = "                                ";
+
+	private final FormatCommandInterface command;
+
+	private int minWidth = NO_WIDTH;
+
+	private int maxWidth = NO_WIDTH;
+
+	private boolean leftAligned;
+
+	private boolean truncateEnd;
+
+	/**
+	 * Create a <code>WidthFormatCommand</code> for the output of the
+	 * specified command.
+	 *
+	 * @param command
+	 *            the command whose output to pad and truncate.
+	 * @throws IllegalArgumentException
+	 *             if the <code>command</code> is <code>null</code>.
+	 */
+	public WidthFormatCommand(FormatCommandInterface command) throws IllegalArgumentException {
+		if (command == null) {
+			throw new IllegalArgumentException("The command must not be null.");
+		}
+
+		this.command = command;
+	}
+
+	/**
+	 * Initialize the command with a format modifier, e.g. <code>-20.30</code>.
+	 *
+	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#init(java.lang.String)
+	 */
+	public void init(String initString) {
+		int index = 0;
+		int length = initString.length();
+
+		leftAligned = index < length && initString.charAt(index) == '-';
+		if (leftAligned) {
+			index++;
+		}
+
+		int dotIndex = initString.indexOf('.', index);
+		int minWidthEnd = dotIndex == -1 ? length : dotIndex;
+		try {
+			minWidth = minWidthEnd > index ? Integer.parseInt(initString.substring(index, minWidthEnd)) : NO_WIDTH;
+
+			maxWidth = NO_WIDTH;
+			truncateEnd = false;
+			if (dotIndex != -1) {
+				index = dotIndex + 1;
+				truncateEnd = index < length && initString.charAt(index) == '-';
+				if (truncateEnd) {
+					index++;
+				}
+				maxWidth = Integer.parseInt(initString.substring(index));
+			}
+		} catch (NumberFormatException e) {
+			Log.e(TAG, "Failed to parse the format modifier " + initString + " " + e);
+			minWidth = NO_WIDTH;
+			maxWidth = NO_WIDTH;
+		}
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#execute(java.lang.String,
+	 *      java.lang.String, long, com.google.code.microlog4android.Level,
+	 *      java.lang.Object, java.lang.Throwable)
+	 */
+	public String execute(String clientID, String name, long time, Level level, Object message, Throwable throwable) {
+		StringBuilder builder = new StringBuilder(command.execute(clientID, name, time, level, message, throwable));
+		applyWidth(builder, 0);
+
+		return builder.toString();
+	}
+
+	/**
+	 * Append the output of the command and pad or truncate it.
+	 *
+	 * @see com.google.code.microlog4android.format.command.AppendingFormatCommand#append(java.lang.StringBuilder,
+	 *      com.google.code.microlog4android.LogEvent)
+	 */
+	public void append(StringBuilder builder, LogEvent event) {
+		int start = builder.length();
+
+		if (command instanceof AppendingFormatCommand) {
+			((AppendingFormatCommand) command).append(builder, event);
+		} else if (command instanceof EventFormatCommand) {
+			builder.append(((EventFormatCommand) command).execute(event));
+		} else {
+			builder.append(command.execute(event.getClientID(), event.getLoggerName(), event.getTime(),
+					event.getLevel(), event.getMessage(), event.getThrowable()));
+		}
+
+		applyWidth(builder, start);
+	}
+
+	/**
+	 * Pad or truncate the chars from the start index to the end of the
+	 * builder.
+	 */
+	private void applyWidth(StringBuilder builder, int start) {
+		int width = builder.length() - start;
+
+		if (maxWidth != NO_WIDTH && width > maxWidth) {
+			if (truncateEnd) {
+				builder.setLength(start + maxWidth);
+			} else {
+				builder.delete(start, start + width - maxWidth);
+			}
+			width = maxWidth;
+		}
+
+		if (width < minWidth) {
+			int padding = minWidth - width;
+			while (padding > 0) {
+				int count = Math.min(padding, SPACES.length());
+				if (leftAligned) {
+					builder.append(SPACES, 0, count);
+				} else {
+					builder.insert(start, SPACES, 0, count);
+				}
+				padding -= count;
+			}
+		}
+	}
+
+	/**
+	 * @return the command whose output is padded and truncated.
+	 */
+	public FormatCommandInterface getCommand() {
+		return command;
+	}
+
+	/**
+	 * @return the minimum width, or <code>NO_WIDTH</code>.
+	 */
+	public int getMinWidth() {
+		return minWidth;
+	}
+
+	/**
+	 * @return the maximum width, or <code>NO_WIDTH</code>.
+	 */
+	public int getMaxWidth() {
+		return maxWidth;
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2010 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.format.command.util;
+
+/**
+ * A way to abbreviate logger names. Either the last parts of the name are
+ * kept, e.g. <code>Logger</code> for one part, or each package is shortened to
+ * its first chars, e.g. <code>c.g.c.m.Logger</code> for one char. The
+ * abbreviations are immutable and equal if they abbreviate the same way, so
+ * that they can be used as keys when the abbreviated names are cached.
+ * 
+ * @author Johan Karlsson
+ */
+public final class NameAbbreviation {
+	private final int parts;
+
+	private final int packageLength;
+
+	private NameAbbreviation(int parts, int packageLength) {
+		this.parts = parts;
+		this.packageLength = packageLength;
+	}
+
+	/**
+	 * Create an abbreviation that keeps the last parts of a name.
+	 * 
+	 * @param parts
+	 *            the number of parts to keep. If it is less than one, the
+	 *            whole name is kept.
+	 * @return the abbreviation.
+	 */
+	public static NameAbbreviation lastParts(int parts) {
+		return new NameAbbreviation(parts, 0);
+	}
+
+	/**
+	 * Create an abbreviation that shortens each package of a name to its first
+	 * chars and keeps the last part, i.e. the class name.
+	 * 
+	 * @param packageLength
+	 *            the number of chars to keep of each package.
+	 * @return the abbreviation.
+	 * @throws IllegalArgumentException
+	 *             if the length is less than one.
+	 */
+	public static NameAbbreviation packages(int packageLength) throws IllegalArgumentException {
+		if (packageLength < 1) {
+			throw new IllegalArgumentException("The package length must be at least 1.");
+		}
+
+		return new NameAbbreviation(0, packageLength);
+	}
+
+	/**
+	 * Abbreviate the name.
+	 * 
+	 * @param name
+	 *            the name to abbreviate.
+	 * @return the abbreviated name.
+	 */
+	public String abbreviate(String name) {
+		if (packageLength == 0) {
+			return StringUtil.extractPartialClassName(name, parts);
+		}
+
+		StringBuilder builder = new StringBuilder(name.length());
+		appendTo(builder, name);
+		return builder.toString();
+	}
+
+	/**
+	 * Abbreviate the name and append it, without creating any intermediate
+	 * <code>String</code>.
+	 * 
+	 * @param builder
+	 *            the <code>StringBuilder</code> to append to.
+	 * @param name
+	 *            the name to abbreviate.
+	 */
+	public void appendTo(StringBuilder builder, String name) {
+		if (packageLength == 0) {
+			builder.append(name, parts > 0 ? StringUtil.getPartialClassNameStart(name, parts) : 0, name.length());
+			return;
+		}
+
+		int lastDot = name.lastIndexOf('.');
+		int start = 0;
+		while (start <= lastDot) {
+			int dot = name.indexOf('.', start);
+			builder.append(name, start, Math.min(dot, start + packageLength));
+			builder.append('.');
+			start = dot + 1;
+		}
+		builder.append(name, start, name.length());
+	}
+
+	/**
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	public boolean equals(Object object) {
+		if (!(object instanceof NameAbbreviation)) {
+			return false;
+		}
+
+		NameAbbreviation abbreviation = (NameAbbreviation) object;
+		return parts == abbreviation.parts && packageLength == abbreviation.packageLength;
+	}
+
+	/**
+	 * @see java.lang.Object#hashCode()
+	 */
+	public int hashCode() {
+		return 31 * parts + packageLength;
+	}
+}
@@ -35,7 +35,25 @@ public enum StringUtil {
 	 * @return the partial class name.
 	 */
 	public static String extractPartialClassName(String className, int parts) {
-		String partialCategoryName = className;
+		int start = getPartialClassNameStart(className, parts);
+
+		return start == 0 ? className : className.substring(start);
+	}
+
+	/**
+	 * Get the index where the partial name of a class name starts, i.e. the
+	 * partial class name without creating it.
+	 * 
+	 * @param className
+	 *            the name of the class
+	 * @param parts
+	 *            the number of parts of the class name that you want to be
+	 *            returned.
+	 * 
+	 * @return the start index of the partial class name.
+	 */
+	public static int getPartialClassNameStart(String className, int parts) {
+		int start = 0;
 
 		int nofDots = 0;
 		int dotIndex = className.lastIndexOf('.');
@@ -52,10 +70,10 @@ public enum StringUtil {
 		}
 
 		if (dotIndex > -1 && nofDots <= parts) {
-			partialCategoryName = className.substring(dotIndex + 1);
+			start = dotIndex + 1;
 		}
 
-		return partialCategoryName;
+		return start;
 	}
 
 }
@@ -0,0 +1,320 @@
+/*
+ * Copyright 2010 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.format.command.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The <code>ThrowableRenderer</code> renders a <code>Throwable</code> like
+ * <code>printStackTrace()</code>, including the <code>Caused by:</code> chain
+ * where the frames in common with the enclosing trace are printed as
+ * <code>... N more</code>.
+ *
+ * The same exception tends to be logged over and over again, so the rendered
+ * frames are cached. The cache is keyed by a fingerprint of the stack traces
+ * of the chain, which means that a cached rendering is found without creating
+ * any strings. The messages of the throwables are not part of the key, they
+ * are rendered for each call.
+ *
+ * The number of frames printed for each throwable can be limited, and the
+ * frames of filtered packages, e.g. reflection, can be left out. Consecutive
+ * filtered frames are printed as one <code>... N filtered</code> line.
+ *
+ * The renderer is thread safe.
+ *
+ * @author Johan Karlsson
+ */
+public final class ThrowableRenderer {
+	/**
+	 * The depth that prints all the frames.
+	 */
+	public static final int FULL_DEPTH = -1;
+
+	private static final String NEWLINE = System.getProperty("line.separator");
+
+	private static final String CAUSED_BY = "Caused by: ";
+
+	private static final String[] NO_FILTERS = new String[0];
+
+	private static final int CACHE_SIZE = 64;
+
+	private final int maxDepth;
+
+	private final String[] filteredPackages;
+
+	/**
+	 * The cached renderings, indexed by the low bits of the fingerprint. A
+	 * rendering with the same index replaces the previous one.
+	 */
+	private final AtomicReferenceArray<Rendering> cache = new AtomicReferenceArray<Rendering>(CACHE_SIZE);
+
+	/**
+	 * Create a renderer that prints all the frames.
+	 */
+	public ThrowableRenderer() {
+		this(FULL_DEPTH, NO_FILTERS);
+	}
+
+	/**
+	 * Create a renderer.
+	 *
+	 * @param maxDepth
+	 *            the maximum number of frames to print for each throwable of
+	 *            the chain, or <code>FULL_DEPTH</code> for all.
+	 * @param filteredPackages
+	 *            the names of the packages whose frames are left out.
+	 * @throws IllegalArgumentException
+	 *             if the <code>filteredPackages</code> is <code>null</code>.
+	 */
+	public ThrowableRenderer(int maxDepth, String[] filteredPackages) throws IllegalArgumentException {
+		if (filteredPackages == null) {
+			throw new IllegalArgumentException("The filteredPackages must not be null.");
+		}
+
+		this.maxDepth = maxDepth;
+		this.filteredPackages = new String[filteredPackages.length];
+		for (int index = 0; index < filteredPackages.length; index++) {
+			this.filteredPackages[index] = filteredPackages[index] + '.';
+		}
+	}
+
+	/**
+	 * @return the maximum number of frames printed for each throwable, or
+	 *         <code>FULL_DEPTH</code>.
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Render the throwable and its causes.
+	 *
+	 * @param throwable
+	 *            the <code>Throwable</code> to render.
+	 * @return the rendered <code>Throwable</code>.
+	 */
+	public String render(Throwable throwable) {
+		StringBuilder builder = new StringBuilder(256);
+		appendTo(builder, throwable);
+
+		return builder.toString();
+	}
+
+	/**
+	 * Render the throwable and its causes and append it. Nothing is appended
+	 * if the throwable is <code>null</code>.
+	 *
+	 * @param builder
+	 *            the <code>StringBuilder</code> to append to.
+	 * @param throwable
+	 *            the <code>Throwable</code> to render.
+	 */
+	public void appendTo(StringBuilder builder, Throwable throwable) {
+		if (throwable == null) {
+			return;
+		}
+
+		List<Throwable> chain = getChain(throwable);
+		int length = chain.size();
+		StackTraceElement[][] traces = new StackTraceElement[length][];
+		for (int index = 0; index < length; index++) {
+			traces[index] = chain.get(index).getStackTrace();
+		}
+
+		int fingerprint = getFingerprint(traces);
+		int cacheIndex = fingerprint & (CACHE_SIZE - 1);
+		Rendering rendering = cache.get(cacheIndex);
+		if (rendering == null || !rendering.matches(fingerprint, traces)) {
+			rendering = new Rendering(fingerprint, traces, renderFrames(traces));
+			cache.set(cacheIndex, rendering);
+		}
+
+		for (int index = 0; index < length; index++) {
+			if (index > 0) {
+				builder.append(NEWLINE);
+				builder.append(CAUSED_BY);
+			}
+			builder.append(chain.get(index).toString());
+			builder.append(rendering.frames[index]);
+		}
+	}
+
+	/**
+	 * Get the throwable followed by its causes. A cause that is already part
+	 * of the chain ends it, so that a circular chain is printed once.
+	 */
+	private static List<Throwable> getChain(Throwable throwable) {
+		List<Throwable> chain = new ArrayList<Throwable>(4);
+
+		for (Throwable current = throwable; current != null && !containsSame(chain, current); current = current
+				.getCause()) {
+			chain.add(current);
+		}
+
+		return chain;
+	}
+
+	private static boolean containsSame(List<Throwable> chain, Throwable throwable) {
+		for (int index = 0; index < chain.size(); index++) {
+			if (chain.get(index) == throwable) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static int getFingerprint(StackTraceElement[][] traces) {
+		int fingerprint = traces.length;
+
+		for (int traceIndex = 0; traceIndex < traces.length; traceIndex++) {
+			StackTraceElement[] trace = traces[traceIndex];
+			fingerprint = 31 * fingerprint + trace.length;
+			for (int index = 0; index < trace.length; index++) {
+				fingerprint = 31 * fingerprint + trace[index].hashCode();
+			}
+		}
+
+		return fingerprint;
+	}
+
+	/**
+	 * Render the frames of each throwable of the chain, i.e. everything but
+	 * the <code>toString()</code> of the throwables.
+	 */
+	private String[] renderFrames(StackTraceElement[][] traces) {
+		String[] frames = new String[traces.length];
+		StringBuilder builder = new StringBuilder(1024);
+
+		for (int traceIndex = 0; traceIndex < traces.length; traceIndex++) {
+			StackTraceElement[] trace = traces[traceIndex];
+			int commonFrames = traceIndex > 0 ? getCommonFrames(trace, traces[traceIndex - 1]) : 0;
+			int uniqueFrames = trace.length - commonFrames;
+			int printedFrames = 0;
+			int filteredFrames = 0;
+			int index = 0;
+
+			builder.setLength(0);
+			for (; index < uniqueFrames && (maxDepth < 0 || printedFrames < maxDepth); index++) {
+				StackTraceElement element = trace[index];
+				if (isFiltered(element)) {
+					filteredFrames++;
+					continue;
+				}
+
+				appendFiltered(builder, filteredFrames);
+				filteredFrames = 0;
+				builder.append(NEWLINE);
+				builder.append("\tat ");
+				builder.append(element.toString());
+				printedFrames++;
+			}
+			appendFiltered(builder, filteredFrames);
+
+			int moreFrames = trace.length - index;
+			if (moreFrames > 0) {
+				builder.append(NEWLINE);
+				builder.append("\t... ");
+				builder.append(moreFrames);
+				builder.append(" more");
+			}
+
+			frames[traceIndex] = builder.toString();
+		}
+
+		return frames;
+	}
+
+	private static void appendFiltered(StringBuilder builder, int filteredFrames) {
+		if (filteredFrames > 0) {
+			builder.append(NEWLINE);
+			builder.append("\t... ");
+			builder.append(filteredFrames);
+			builder.append(" filtered");
+		}
+	}
+
+	/**
+	 * Get the number of frames at the end of the trace that are the same as
+	 * at the end of the enclosing trace.
+	 */
+	private static int getCommonFrames(StackTraceElement[] trace, StackTraceElement[] enclosingTrace) {
+		int index = trace.length - 1;
+		int enclosingIndex = enclosingTrace.length - 1;
+
+		while (index >= 0 && enclosingIndex >= 0 && trace[index].equals(enclosingTrace[enclosingIndex])) {
+			index--;
+			enclosingIndex--;
+		}
+
+		return trace.length - 1 - index;
+	}
+
+	private boolean isFiltered(StackTraceElement element) {
+		if (filteredPackages.length == 0) {
+			return false;
+		}
+
+		String className = element.getClassName();
+		for (int index = 0; index < filteredPackages.length; index++) {
+			if (className.startsWith(filteredPackages[index])) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * The rendered frames of a chain of stack traces. It is immutable, so
+	 * that it can be shared between threads.
+	 */
+	private static final class Rendering {
+		final int fingerprint;
+
+		final StackTraceElement[][] traces;
+
+		final String[] frames;
+
+		Rendering(int fingerprint, StackTraceElement[][] traces, String[] frames) {
+			this.fingerprint = fingerprint;
+			this.traces = traces;
+			this.frames = frames;
+		}
+
+		boolean matches(int fingerprint, StackTraceElement[][] traces) {
+			if (this.fingerprint != fingerprint || this.traces.length != traces.length) {
+				return false;
+			}
+
+			for (int traceIndex = 0; traceIndex < traces.length; traceIndex++) {
+				StackTraceElement[] trace = traces[traceIndex];
+				StackTraceElement[] cachedTrace = this.traces[traceIndex];
+				if (trace.length != cachedTrace.length) {
+					return false;
+				}
+				for (int index = 0; index < trace.length; index++) {
+					if (!trace[index].equals(cachedTrace[index])) {
+						return false;
+					}
+				}
+			}
+
+			return true;
+		}
+	}
+}
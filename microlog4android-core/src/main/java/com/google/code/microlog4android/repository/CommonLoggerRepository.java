@@ -1,6 +1,8 @@
 package com.google.code.microlog4android.repository;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.Logger;
+import com.google.code.microlog4android.appender.Appender;
 
 
 
@@ -14,4 +16,42 @@ public interface CommonLoggerRepository {
 	 * @return the effective <code>Level</code>
 	 */
 	public Level getEffectiveLevel(String loggerName);
+
+	/**
+	 * Get the appenders that the specified logger inherits from its ancestors.
+	 * The appenders of each ancestor are included, starting with the closest
+	 * one, until an ancestor that is not additive has been included. Note that
+	 * the appenders of the logger itself are not included.
+	 * 
+	 * @param loggerName
+	 *            the name of the logger.
+	 * @return the inherited appenders, never <code>null</code>.
+	 */
+	public Appender[] getInheritedAppenders(String loggerName);
+
+	/**
+	 * Called by the logger when its level has been set. The repository pushes
+	 * the new effective level down to the descendants that inherit it. A
+	 * logger that is not part of the tree of the repository is ignored.
+	 * 
+	 * @param logger
+	 *            the <code>Logger</code> whose level has been set.
+	 */
+	public void propagateLevel(Logger logger);
+
+	/**
+	 * Called by the logger when it has been configured, e.g. when an appender
+	 * has been added. A repository that evicts unused loggers must keep a
+	 * configured logger.
+	 * 
+	 * @param logger
+	 *            the <code>Logger</code> that has been configured.
+	 */
+	public void pinLogger(Logger logger);
+
+	/**
+	 * Called by the logger that opens the log. The repository opens the
+	 * appenders of all its loggers that are not open.
+	 */
+	public void openAppenders();
 }
@@ -0,0 +1,36 @@
+package com.google.code.microlog4android.repository;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The configuration generation is a counter that is incremented each time the
+ * configuration of a logger hierarchy is changed, i.e. a level, an appender,
+ * the additivity or the structure of the tree. A <code>Logger</code> caches
+ * its effective level and its appenders together with the generation they
+ * were resolved in, and only resolves them again when the generation has
+ * changed.
+ *
+ * @author Johan Karlsson
+ */
+public enum ConfigurationGeneration {
+	;
+
+	private static final AtomicInteger generation = new AtomicInteger();
+
+	/**
+	 * Get the current generation.
+	 *
+	 * @return the current generation.
+	 */
+	public static int current() {
+		return generation.get();
+	}
+
+	/**
+	 * Invalidate all cached configuration. This must be called after the
+	 * change has been made.
+	 */
+	public static void increment() {
+		generation.incrementAndGet();
+	}
+}
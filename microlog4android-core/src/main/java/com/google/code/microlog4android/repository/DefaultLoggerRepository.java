@@ -15,11 +15,20 @@
 package com.google.code.microlog4android.repository;
 
 import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Enumeration;
-import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.code.microlog4android.Level;
 import com.google.code.microlog4android.Logger;
+import com.google.code.microlog4android.appender.Appender;
 
 import android.util.Log;
 
@@ -28,6 +37,33 @@ import android.util.Log;
  * The <code>LoggerRepository</code> creates and contains all
  * <code>Logger</code> object(s).
  * 
+ * The loggers are looked up without locking. The nodes of the tree are
+ * created with <code>putIfAbsent()</code>, so threads that create the same
+ * logger at the same time all get the same instance.
+ * 
+ * When a level is set, the effective level of each descendant that inherits
+ * it is recomputed and stored in its <code>Logger</code>. The level check when
+ * logging is then a single read, at the cost of a walk of the subtree when a
+ * level is set.
+ * 
+ * In eviction mode the loggers that have not been configured, i.e. that have
+ * no level, appenders, client ID or additivity of their own, are held weakly.
+ * When such a logger is no longer used, its node is removed from the tree,
+ * together with any ancestors that are only left over from it. This keeps the
+ * repository from growing when loggers are named after e.g. sessions.
+ * 
+ * Level rules set the level of all the loggers that match a pattern, e.g.
+ * <code>com.acme.net.*</code>. The rules are matched once when a node is
+ * created and once for every node when the rules change. The result is pushed
+ * down like any other level, so the rules cost nothing when logging.
+ * 
+ * Many levels can be set at once with <code>setLevels()</code>, which applies
+ * them as one change with one update of the effective levels.
+ * <code>getSnapshot()</code> lists the levels of all the loggers.
+ * 
+ * The SLF4J binding is a view over this repository, so there is one tree of
+ * loggers for both APIs.
+ * 
  * @author Johan Karlsson (johan.karlsson@jayway.se)
  * @author Jarle Hansen (hansjar@gmail.com)
  * @since 0.1
@@ -38,7 +74,16 @@ public enum DefaultLoggerRepository implements LoggerRepository, CommonLoggerRep
 
 	private static final String TAG = "Microlog.DefaultLoggerRepository";
 	private MicrologRepositoryNode rootNode;
-	private Hashtable<String, MicrologRepositoryNode> leafNodeHashtable = new Hashtable<String, MicrologRepositoryNode>(43);
+	private final ConcurrentHashMap<String, MicrologRepositoryNode> leafNodeHashtable = new ConcurrentHashMap<String, MicrologRepositoryNode>(
+			64);
+
+	private final ReferenceQueue<Logger> reclaimedLoggers = new ReferenceQueue<Logger>();
+
+	private volatile boolean evictionEnabled;
+
+	private volatile long evictedNodes;
+
+	private volatile LevelRules levelRules = LevelRules.NONE;
 
 	/**
 	 * Create a <code>LoggerRepository</code>.
@@ -47,6 +92,7 @@ public enum DefaultLoggerRepository implements LoggerRepository, CommonLoggerRep
 		Logger rootLogger = new Logger("", this);
 		rootLogger.setLevel(Level.DEBUG);
 		rootNode = new MicrologRepositoryNode("", rootLogger);
+		rootNode.pin();
 	}
 
 	/**
@@ -59,47 +105,181 @@ public enum DefaultLoggerRepository implements LoggerRepository, CommonLoggerRep
 	/**
 	 * @see com.google.code.microlog4android.repository.LoggerRepository#getLogger(java.lang.String)
 	 */
-	public synchronized Logger getLogger(String name) {
+	public Logger getLogger(String name) {
 		MicrologRepositoryNode node = leafNodeHashtable.get(name);
-		
-		final Logger logger;
-		if (node == null) {
-			logger = new Logger(name, this);
-			addLogger(logger);
-		} else {
+		Logger logger = node == null ? null : node.getLogger();
+
+		if (logger == null && !evictionEnabled) {
+			// The node may already exist, e.g. if a descendant has been created
+			node = getNode(name);
+			leafNodeHashtable.putIfAbsent(name, node);
 			logger = node.getLogger();
 		}
-		
+
+		if (logger == null) {
+			logger = getLoggerLocked(name, true);
+		}
+
 		return logger;
 	}
 
 	/**
-	 * Adds the specified <code>Logger</code> to the tree.
+	 * Get the logger with the specified name while holding the lock of the
+	 * repository, which is needed when nodes may be evicted. A logger that
+	 * has been reclaimed is created again.
+	 * 
+	 * @param name
+	 *            the name of the logger.
+	 * @param leaf
+	 *            <code>true</code> to register the node as a leaf node.
+	 * @return the <code>Logger</code>.
+	 */
+	private synchronized Logger getLoggerLocked(String name, boolean leaf) {
+		expungeReclaimedLoggers();
+
+		MicrologRepositoryNode node = getNode(name);
+		Logger logger = node.getLogger();
+		if (logger == null) {
+			logger = node.createLogger(evictionEnabled ? reclaimedLoggers : null);
+		}
+
+		if (leaf) {
+			leafNodeHashtable.put(name, node);
+		}
+
+		return logger;
+	}
+
+	/**
+	 * Adds the specified <code>Logger</code> to the tree. If there already is a
+	 * node with the same name, the <code>Logger</code> replaces the one in the
+	 * node and keeps its level, unless a level has been set. The cached
+	 * appenders of the other loggers are only invalidated if the descendants
+	 * inherit something else than before.
 	 * 
 	 * @param logger
 	 *            the <code>Logger</code> to add.
 	 */
-	void addLogger(Logger logger) {
+	synchronized void addLogger(Logger logger) {
 		String loggerName = logger.getName();
+		MicrologRepositoryNode node = getNode(loggerName);
+		Logger previousLogger = node.getLogger();
+
+		if (previousLogger != logger) {
+			if (logger.getLevel() == null && previousLogger != null && previousLogger.getLevel() != null) {
+				logger.setLevel(previousLogger.getLevel());
+			}
+			logger.setCommonRepository(this);
+			node.setLogger(logger);
+			updateEffectiveLevels(node);
+
+			if (isInherited(previousLogger) || isInherited(logger)) {
+				ConfigurationGeneration.increment();
+			}
+		}
+		node.pin();
 
+		leafNodeHashtable.put(loggerName, node);
+	}
+
+	/**
+	 * Check if the descendants of the logger are affected by it, i.e. if it
+	 * has appenders or is not additive.
+	 */
+	private static boolean isInherited(Logger logger) {
+		return logger != null && (logger.getNumberOfAppenders() > 0 || !logger.getAdditivity());
+	}
+
+	/**
+	 * Get the node with the specified name. The node and its ancestors are
+	 * created if they do not exist. If two threads create the same node, both
+	 * get the node that was added first.
+	 */
+	private MicrologRepositoryNode getNode(String name) {
 		MicrologRepositoryNode currentNode = rootNode;
-		String[] pathComponents = LoggerNamesUtil.getLoggerNameComponents(loggerName);
-		for (String pathComponent : pathComponents) {
-			MicrologRepositoryNode child = currentNode.getChildNode(pathComponent);
 
-			if (child == null) {
-				// No child => add the child
-				currentNode = createNewChildNode(pathComponent, currentNode);
+		if (name.length() > 0) {
+			int pathEnd = LoggerNamesUtil.getPathEnd(name);
+			int start = 0;
+			while (start < pathEnd) {
+				int end = LoggerNamesUtil.getComponentEnd(name, start, pathEnd);
+				MicrologRepositoryNode child = currentNode.getChildNode(name, start, end);
+
+				if (child == null) {
+					// No child => add the child
+					child = createNewChildNode(LoggerNamesUtil.getComponent(name, start, end), currentNode);
+				}
+
+				if (child == null) {
+					// The node was evicted while walking the path, start over
+					currentNode = rootNode;
+					start = 0;
+				} else {
+					currentNode = child;
+					start = end + 1;
+				}
 			}
 		}
 
-		// Add the leaf node
-		if (pathComponents.length > 0) {
-			String leafName = LoggerNamesUtil.getClassName(pathComponents);
-			MicrologRepositoryNode leafNode = new MicrologRepositoryNode(leafName, logger, currentNode);
-			currentNode.addChild(leafNode);
-			leafNodeHashtable.put(loggerName, leafNode);
+		return currentNode;
+	}
+
+	/**
+	 * Find the node with the specified name, without creating any nodes.
+	 * 
+	 * @return the node, or <code>null</code> if it does not exist.
+	 */
+	private MicrologRepositoryNode findNode(String name) {
+		MicrologRepositoryNode currentNode = leafNodeHashtable.get(name);
+		if (currentNode != null) {
+			return currentNode;
+		}
+
+		currentNode = rootNode;
+		int pathEnd = LoggerNamesUtil.getPathEnd(name);
+		int start = 0;
+		while (start < pathEnd && currentNode != null) {
+			int end = LoggerNamesUtil.getComponentEnd(name, start, pathEnd);
+			currentNode = currentNode.getChildNode(name, start, end);
+			start = end + 1;
 		}
+
+		return currentNode;
+	}
+
+	/**
+	 * Get the closest existing ancestor of the specified logger, without
+	 * creating any nodes.
+	 * 
+	 * @return the parent node, or <code>null</code> for the root logger.
+	 */
+	private MicrologRepositoryNode getParentNode(String loggerName) {
+		MicrologRepositoryNode node = leafNodeHashtable.get(loggerName);
+		if (node != null) {
+			return node.getParent();
+		}
+
+		if (loggerName.length() == 0) {
+			return null;
+		}
+
+		MicrologRepositoryNode currentNode = rootNode;
+		int pathEnd = LoggerNamesUtil.getPathEnd(loggerName);
+		int start = 0;
+		int end = LoggerNamesUtil.getComponentEnd(loggerName, start, pathEnd);
+		// Stop before the last component, which is the logger itself
+		while (end < pathEnd) {
+			MicrologRepositoryNode child = currentNode.getChildNode(loggerName, start, end);
+
+			if (child == null) {
+				break;
+			}
+			currentNode = child;
+			start = end + 1;
+			end = LoggerNamesUtil.getComponentEnd(loggerName, start, pathEnd);
+		}
+
+		return currentNode;
 	}
 
 	/**
@@ -108,33 +288,276 @@ public enum DefaultLoggerRepository implements LoggerRepository, CommonLoggerRep
 	 */
 	public void setLevel(String name, Level level) {
 		// Check if name the name is a leaf node
-		MicrologRepositoryNode leafNode = leafNodeHashtable.get(name);
+		MicrologRepositoryNode node = leafNodeHashtable.get(name);
+		Logger logger = node == null ? null : node.getLogger();
 
-		if (leafNode != null) {
-			leafNode.getLogger().setLevel(level);
-		} else {
-			MicrologRepositoryNode currentNode = rootNode;
-			String[] pathComponents = LoggerNamesUtil.getLoggerNameComponents(name);
-			for (String pathComponent : pathComponents) {
-				MicrologRepositoryNode child = currentNode.getChildNode(pathComponent);
+		if (logger == null && !evictionEnabled) {
+			logger = getNode(name).getLogger();
+		}
 
-				if (child == null) {
-					// No child => add the child
-					currentNode = createNewChildNode(pathComponent, currentNode);
+		if (logger == null) {
+			logger = getLoggerLocked(name, false);
+		}
+
+		logger.setLevel(level);
+	}
+
+	/**
+	 * Set the levels of many loggers at once. The loggers are created if they
+	 * do not exist. The levels are set as one change, i.e. no other change of
+	 * the configuration and no snapshot happens in between. The levels are
+	 * staged on the loggers first, then the effective levels are updated in
+	 * one pass over the affected nodes, and the configuration generation is
+	 * incremented once at the end.
+	 * 
+	 * The effective levels are pushed as one level update, which the level
+	 * checks of the loggers, e.g. <code>isDebugEnabled()</code> and the checks
+	 * made when logging, see all at once without waiting for it. A thread
+	 * that has seen the new level of one logger therefore sees the new levels
+	 * of all the loggers, and never a mix of old and new levels.
+	 * <code>getLevel()</code> and <code>getEffectiveLevel()</code> may return
+	 * a level of the update before it has finished.
+	 * 
+	 * @param levels
+	 *            the levels to set, by logger name.
+	 * @throws IllegalArgumentException
+	 *             if a name or a level is <code>null</code>. No level is set
+	 *             then.
+	 */
+	public synchronized void setLevels(Map<String, Level> levels) throws IllegalArgumentException {
+		if (levels == null) {
+			throw new IllegalArgumentException("The levels must not be null.");
+		}
+		for (Map.Entry<String, Level> entry : levels.entrySet()) {
+			if (entry.getKey() == null || entry.getValue() == null) {
+				throw new IllegalArgumentException("The name and the level must not be null.");
+			}
+		}
+
+		MicrologRepositoryNode[] nodes = new MicrologRepositoryNode[levels.size()];
+		int count = 0;
+
+		Logger.beginLevelUpdate();
+		try {
+			for (Map.Entry<String, Level> entry : levels.entrySet()) {
+				MicrologRepositoryNode node = getNode(entry.getKey());
+				Logger logger = node.getLogger();
+				if (logger == null) {
+					logger = node.createLogger(null);
 				}
+
+				logger.stageLevel(entry.getValue());
+				node.pin();
+				nodes[count++] = node;
 			}
 
-			if (currentNode != null) {
-				currentNode.getLogger().setLevel(level);
+			// Update from the top, so that each node inherits an updated level.
+			// A walk stops at the next node with a level, so the walks do not
+			// overlap.
+			Arrays.sort(nodes, 0, count, new Comparator<MicrologRepositoryNode>() {
+				public int compare(MicrologRepositoryNode first, MicrologRepositoryNode second) {
+					return getDepth(first) - getDepth(second);
+				}
+			});
+			for (int index = 0; index < count; index++) {
+				updateEffectiveLevels(nodes[index]);
+			}
+		} finally {
+			Logger.commitLevelUpdate();
+		}
+		ConfigurationGeneration.increment();
+	}
+
+	private static int getDepth(MicrologRepositoryNode node) {
+		int depth = 0;
+
+		for (MicrologRepositoryNode parent = node.getParent(); parent != null; parent = parent.getParent()) {
+			depth++;
+		}
+
+		return depth;
+	}
+
+	/**
+	 * Take a snapshot of the levels of all the nodes in the tree, including
+	 * the root node and the nodes that have not been requested as loggers
+	 * themselves. The snapshot is consistent, since it is not taken while the
+	 * levels are changed.
+	 * 
+	 * @return the snapshots of the nodes, sorted by name.
+	 */
+	public synchronized List<LoggerSnapshot> getSnapshot() {
+		expungeReclaimedLoggers();
+
+		List<LoggerSnapshot> snapshots = new ArrayList<LoggerSnapshot>(64);
+		addSnapshots(rootNode, "", snapshots);
+		Collections.sort(snapshots, new Comparator<LoggerSnapshot>() {
+			public int compare(LoggerSnapshot first, LoggerSnapshot second) {
+				return first.getName().compareTo(second.getName());
+			}
+		});
+
+		return snapshots;
+	}
+
+	private void addSnapshots(MicrologRepositoryNode node, String name, List<LoggerSnapshot> snapshots) {
+		Logger logger = node.getLogger();
+		Level level = logger == null ? null : logger.getLevel();
+		snapshots.add(new LoggerSnapshot(name, level, node.getRuleLevel(), node.getEffectiveLevel()));
+
+		Enumeration<MicrologRepositoryNode> children = node.getChildren();
+		while (children.hasMoreElements()) {
+			MicrologRepositoryNode child = children.nextElement();
+			addSnapshots(child, LoggerNamesUtil.getChildName(name, child.getName()), snapshots);
+		}
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.repository.CommonLoggerRepository#propagateLevel(com.google.code.microlog4android.Logger)
+	 */
+	public synchronized void propagateLevel(Logger logger) {
+		if (rootNode == null) {
+			// Called while the root logger is created
+			return;
+		}
+
+		MicrologRepositoryNode node = findNode(logger.getName());
+		if (node != null && node.getLogger() == logger) {
+			node.pin();
+			updateEffectiveLevels(node);
+		}
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.repository.CommonLoggerRepository#pinLogger(com.google.code.microlog4android.Logger)
+	 */
+	public void pinLogger(Logger logger) {
+		// When the eviction mode is enabled, the configured loggers are pinned
+		if (evictionEnabled) {
+			synchronized (this) {
+				MicrologRepositoryNode node = findNode(logger.getName());
+				if (node != null && node.getLogger() == logger) {
+					node.pin();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Recompute the effective level of the node and of the descendants that
+	 * inherit it. Must be called while holding the lock of the repository.
+	 */
+	private void updateEffectiveLevels(MicrologRepositoryNode node) {
+		MicrologRepositoryNode parent = node.getParent();
+		pushEffectiveLevel(node, parent == null ? null : parent.getEffectiveLevel());
+	}
+
+	private void pushEffectiveLevel(MicrologRepositoryNode node, Level inheritedLevel) {
+		MicrologRepositoryNode[] children = node.inheritLevel(inheritedLevel);
+		Level effectiveLevel = node.getOwnLevel();
+		if (effectiveLevel == null) {
+			effectiveLevel = inheritedLevel;
+		}
+
+		for (MicrologRepositoryNode child : children) {
+			// A child with a level of its own is not affected, nor is its subtree
+			if (child != null && child.getOwnLevel() == null) {
+				pushEffectiveLevel(child, effectiveLevel);
 			}
 		}
 	}
 
 	private MicrologRepositoryNode createNewChildNode(final String pathComponent, final MicrologRepositoryNode currentNode) {
 		MicrologRepositoryNode newChild = new MicrologRepositoryNode(pathComponent, currentNode);
-		currentNode.addChild(newChild);
+		LevelRules rules = levelRules;
+		if (!rules.isEmpty()) {
+			newChild.setRuleLevel(rules.match(newChild.getFullName()));
+		}
+		if (evictionEnabled) {
+			newChild.makeEvictable(reclaimedLoggers);
+		}
+
+		MicrologRepositoryNode child = currentNode.addChildIfAbsent(newChild);
+
+		if (child == newChild && levelRules != rules) {
+			// The rules changed while the node was created
+			synchronized (this) {
+				newChild.setRuleLevel(levelRules.match(newChild.getFullName()));
+				updateEffectiveLevels(newChild);
+			}
+		}
 
-		return newChild;
+		return child;
+	}
+
+	/**
+	 * Set the level of all the loggers whose names match the pattern, both
+	 * the existing loggers and the loggers that are created later. A
+	 * <code>*</code> component in the pattern matches one or more components
+	 * of a logger name, e.g. <code>com.acme.net.*</code> matches all the
+	 * loggers below <code>com.acme.net</code>, and <code>*.cache.*</code>
+	 * matches all the loggers below a package named <code>cache</code>.
+	 * 
+	 * A level that is set on a logger takes precedence over the rules. If
+	 * several rules match, the rule with the most components that are not
+	 * wildcards is used, or the rule that was set last if they have as many.
+	 * 
+	 * @param pattern
+	 *            the pattern of the logger names.
+	 * @param level
+	 *            the level to set.
+	 * @throws IllegalArgumentException
+	 *             if the pattern is not valid or the level is
+	 *             <code>null</code>.
+	 */
+	public synchronized void setLevelRule(String pattern, Level level) throws IllegalArgumentException {
+		applyLevelRules(levelRules.with(pattern, level));
+	}
+
+	/**
+	 * Remove the level rule with the specified pattern. The loggers that
+	 * matched it get the level of another matching rule, or inherit their
+	 * level again.
+	 * 
+	 * @param pattern
+	 *            the pattern of the rule to remove.
+	 */
+	public synchronized void removeLevelRule(String pattern) {
+		LevelRules rules = levelRules.without(pattern);
+
+		if (rules != levelRules) {
+			applyLevelRules(rules);
+		}
+	}
+
+	/**
+	 * Publish the rules and match them against all the nodes. The rules are
+	 * published first, so that a node that is created concurrently is either
+	 * visited or matches the new rules itself. Must be called while holding
+	 * the lock of the repository.
+	 */
+	private void applyLevelRules(LevelRules rules) {
+		levelRules = rules;
+		applyLevelRules(rules, rootNode, "", null);
+		ConfigurationGeneration.increment();
+	}
+
+	private void applyLevelRules(LevelRules rules, MicrologRepositoryNode node, String name, Level inheritedLevel) {
+		if (node.getParent() != null) {
+			node.setRuleLevel(rules.match(name));
+		}
+
+		MicrologRepositoryNode[] children = node.inheritLevel(inheritedLevel);
+		Level effectiveLevel = node.getOwnLevel();
+		if (effectiveLevel == null) {
+			effectiveLevel = inheritedLevel;
+		}
+
+		for (MicrologRepositoryNode child : children) {
+			if (child != null) {
+				applyLevelRules(rules, child, LoggerNamesUtil.getChildName(name, child.getName()), effectiveLevel);
+			}
+		}
 	}
 
 	/**
@@ -146,13 +569,39 @@ public enum DefaultLoggerRepository implements LoggerRepository, CommonLoggerRep
 		MicrologRepositoryNode currentNode = leafNodeHashtable.get(loggerName);
 
 		while (effectiveLevel == null && currentNode != null) {
-			effectiveLevel = currentNode.getLogger().getLevel();
+			effectiveLevel = currentNode.getOwnLevel();
 			currentNode = currentNode.getParent();
 		}
 
 		return effectiveLevel;
 	}
 
+	/**
+	 * @see com.google.code.microlog4android.repository.CommonLoggerRepository#getInheritedAppenders(java.lang.String)
+	 */
+	public Appender[] getInheritedAppenders(String loggerName) {
+		List<Appender> inheritedAppenders = new ArrayList<Appender>(4);
+		MicrologRepositoryNode currentNode = getParentNode(loggerName);
+
+		while (currentNode != null) {
+			Logger logger = currentNode.getLogger();
+
+			// A reclaimed logger had no appenders and was additive
+			if (logger != null) {
+				for (Appender appender : logger.getAppenders()) {
+					inheritedAppenders.add(appender);
+				}
+
+				if (!logger.getAdditivity()) {
+					break;
+				}
+			}
+			currentNode = currentNode.getParent();
+		}
+
+		return inheritedAppenders.toArray(new Appender[inheritedAppenders.size()]);
+	}
+
 	/**
 	 * @see com.google.code.microlog4android.repository.LoggerRepository#contains(java.lang.String)
 	 */
@@ -168,31 +617,186 @@ public enum DefaultLoggerRepository implements LoggerRepository, CommonLoggerRep
 	}
 
 	/**
-	 * Reset the tree.
+	 * Enable or disable the eviction mode. When it is enabled, the nodes of
+	 * the loggers that have not been configured are evicted from the tree
+	 * once the loggers are no longer used. When it is disabled, the loggers
+	 * that have not been reclaimed yet are held strongly again.
+	 * 
+	 * @param evictionEnabled
+	 *            <code>true</code> to enable the eviction mode.
+	 */
+	public synchronized void setEvictionEnabled(boolean evictionEnabled) {
+		this.evictionEnabled = evictionEnabled;
+		updateEviction(rootNode, evictionEnabled);
+	}
+
+	/**
+	 * Check if the eviction mode is enabled.
+	 * 
+	 * @return <code>true</code> if the loggers that have not been configured
+	 *         are evicted when they are no longer used.
+	 */
+	public boolean isEvictionEnabled() {
+		return evictionEnabled;
+	}
+
+	private void updateEviction(MicrologRepositoryNode node, boolean evictionEnabled) {
+		Logger logger = node.getLogger();
+
+		if (logger != null && isConfigured(logger)) {
+			node.pin();
+		} else if (evictionEnabled) {
+			node.makeEvictable(reclaimedLoggers);
+		} else {
+			node.makeStrong();
+		}
+
+		Enumeration<MicrologRepositoryNode> children = node.getChildren();
+		while (children.hasMoreElements()) {
+			updateEviction(children.nextElement(), evictionEnabled);
+		}
+	}
+
+	private static boolean isConfigured(Logger logger) {
+		return logger.getLevel() != null || logger.getNumberOfAppenders() > 0 || !logger.getAdditivity()
+				|| !Logger.DEFAULT_CLIENT_ID.equals(logger.getClientID());
+	}
+
+	/**
+	 * Remove the nodes whose loggers have been reclaimed. Must be called while
+	 * holding the lock of the repository.
+	 */
+	private void expungeReclaimedLoggers() {
+		Reference<? extends Logger> reference;
+
+		while ((reference = reclaimedLoggers.poll()) != null) {
+			MicrologRepositoryNode node = MicrologRepositoryNode.getNode(reference);
+
+			// Remove the node and the ancestors that were only left for it
+			while (node != null && node.markRemovedIfUnused()) {
+				MicrologRepositoryNode parent = node.getParent();
+				parent.removeChild(node);
+				leafNodeHashtable.remove(node.getFullName(), node);
+				evictedNodes++;
+				node = parent;
+			}
+		}
+	}
+
+	/**
+	 * Get the number of nodes in the tree, including the root node and the
+	 * nodes that have not been requested as loggers themselves. In eviction
+	 * mode the nodes of reclaimed loggers are removed first.
+	 * 
+	 * @return the number of nodes.
+	 */
+	public synchronized int getNumberOfNodes() {
+		expungeReclaimedLoggers();
+
+		return countNodes(rootNode);
+	}
+
+	private int countNodes(MicrologRepositoryNode node) {
+		int count = 1;
+
+		Enumeration<MicrologRepositoryNode> children = node.getChildren();
+		while (children.hasMoreElements()) {
+			count += countNodes(children.nextElement());
+		}
+
+		return count;
+	}
+
+	/**
+	 * Get the number of nodes that have been evicted since the repository was
+	 * created.
+	 * 
+	 * @return the number of evicted nodes.
+	 */
+	public long getNumberOfEvictedNodes() {
+		return evictedNodes;
+	}
+
+	/**
+	 * Get a rough estimate of the memory used by the tree and its loggers, in
+	 * bytes. The appenders are not included. In eviction mode the nodes of
+	 * reclaimed loggers are removed first.
+	 * 
+	 * @return the estimated size in bytes.
+	 */
+	public synchronized long getEstimatedMemoryUsage() {
+		expungeReclaimedLoggers();
+
+		// The leaf map uses about 32 bytes per entry and 4 bytes per slot
+		return estimateSize(rootNode) + 40L * leafNodeHashtable.size();
+	}
+
+	private long estimateSize(MicrologRepositoryNode node) {
+		long size = node.getEstimatedSize();
+
+		Enumeration<MicrologRepositoryNode> children = node.getChildren();
+		while (children.hasMoreElements()) {
+			size += estimateSize(children.nextElement());
+		}
+
+		return size;
+	}
+
+	/**
+	 * Reset the tree. The eviction mode is disabled and the level rules are
+	 * removed.
 	 */
 	public void reset() {
 		rootNode.resetLogger();
 		leafNodeHashtable.clear();
+		evictionEnabled = false;
+		levelRules = LevelRules.NONE;
+		ConfigurationGeneration.increment();
 	}
 
 	/**
 	 * Shutdown the <code>LoggerRepository</code>, i.e. release all the
-	 * resources.
+	 * resources. The loggers of all the nodes are closed, since any node may
+	 * have appenders attached.
 	 */
 	public void shutdown() {
-		Enumeration<MicrologRepositoryNode> leafNodes = leafNodeHashtable.elements();
+		closeLoggers(rootNode);
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.repository.CommonLoggerRepository#openAppenders()
+	 */
+	public void openAppenders() {
+		openAppenders(rootNode);
+	}
 
-		while (leafNodes.hasMoreElements()) {
-			MicrologRepositoryNode node = leafNodes.nextElement();
-			Logger logger = node.getLogger();
+	private void openAppenders(MicrologRepositoryNode node) {
+		Logger logger = node.getLogger();
 
-			if (logger != null) {
-				try {
-					logger.close();
-				} catch (IOException e) {
-					Log.e(TAG, "Failed to close logger " + logger.getName());
-				}
+		if (logger != null) {
+			logger.openAppenders();
+		}
+
+		Enumeration<MicrologRepositoryNode> children = node.getChildren();
+		while (children.hasMoreElements()) {
+			openAppenders(children.nextElement());
+		}
+	}
+
+	private void closeLoggers(MicrologRepositoryNode node) {
+		Logger logger = node.getLogger();
+
+		if (logger != null) {
+			try {
+				logger.close();
+			} catch (IOException e) {
+				Log.e(TAG, "Failed to close logger " + logger.getName());
 			}
 		}
+
+		Enumeration<MicrologRepositoryNode> children = node.getChildren();
+		while (children.hasMoreElements()) {
+			closeLoggers(children.nextElement());
+		}
 	}
 }
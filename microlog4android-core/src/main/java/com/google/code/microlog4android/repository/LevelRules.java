@@ -0,0 +1,232 @@
+/*
+ * Copyright 2010 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.repository;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.code.microlog4android.Level;
+
+/**
+ * A set of level rules, compiled into a trie of logger name components. A
+ * rule pattern is a logger name where a <code>*</code> component matches one
+ * or more components, e.g. <code>com.acme.net.*</code> matches all the
+ * loggers below <code>com.acme.net</code> and <code>*.cache.*</code> matches
+ * all the loggers below a package named <code>cache</code>.
+ * 
+ * If several rules match, the rule with the most literal components wins. If
+ * they have the same number of literal components, the rule that was added
+ * last wins. The rules are immutable; adding or removing a rule creates a new
+ * instance.
+ * 
+ * @author Johan Karlsson
+ */
+final class LevelRules {
+	static final LevelRules NONE = new LevelRules(new String[0], new Level[0]);
+
+	static final String WILDCARD = "*";
+
+	private final String[] patterns;
+
+	private final Level[] levels;
+
+	private final TrieNode root = new TrieNode();
+
+	/**
+	 * Compile the rules. A pattern that occurs more than once is only
+	 * compiled at its last position.
+	 */
+	private LevelRules(String[] patterns, Level[] levels) {
+		this.patterns = patterns;
+		this.levels = levels;
+
+		for (int order = 0; order < patterns.length; order++) {
+			String[] components = LoggerNamesUtil.getLoggerNameComponents(patterns[order]);
+			TrieNode node = root;
+			int literals = 0;
+
+			for (String component : components) {
+				if (WILDCARD.equals(component)) {
+					if (node.wildcardChild == null) {
+						node.wildcardChild = new TrieNode();
+					}
+					node = node.wildcardChild;
+				} else {
+					if (node.literalChildren == null) {
+						node.literalChildren = new HashMap<String, TrieNode>(4);
+					}
+					TrieNode child = node.literalChildren.get(component);
+					if (child == null) {
+						child = new TrieNode();
+						node.literalChildren.put(component, child);
+					}
+					node = child;
+					literals++;
+				}
+			}
+
+			node.level = levels[order];
+			node.order = order;
+			node.literals = literals;
+		}
+	}
+
+	/**
+	 * Get the rules with the specified rule added. If there already is a
+	 * rule with the same pattern, it is replaced and the new rule counts as
+	 * the last one added.
+	 * 
+	 * @param pattern
+	 *            the pattern of the rule.
+	 * @param level
+	 *            the level to use for the matching loggers.
+	 * @return the new rules.
+	 * @throws IllegalArgumentException
+	 *             if the pattern is not valid or the level is
+	 *             <code>null</code>.
+	 */
+	LevelRules with(String pattern, Level level) throws IllegalArgumentException {
+		checkPattern(pattern);
+		if (level == null) {
+			throw new IllegalArgumentException("The level must not be null.");
+		}
+
+		LevelRules remaining = without(pattern);
+		int count = remaining.patterns.length;
+		String[] newPatterns = new String[count + 1];
+		Level[] newLevels = new Level[count + 1];
+		System.arraycopy(remaining.patterns, 0, newPatterns, 0, count);
+		System.arraycopy(remaining.levels, 0, newLevels, 0, count);
+		newPatterns[count] = pattern;
+		newLevels[count] = level;
+
+		return new LevelRules(newPatterns, newLevels);
+	}
+
+	/**
+	 * Get the rules without the rule with the specified pattern.
+	 * 
+	 * @param pattern
+	 *            the pattern of the rule to remove.
+	 * @return the new rules, or this instance if there was no such rule.
+	 */
+	LevelRules without(String pattern) {
+		int index = indexOf(pattern);
+		if (index == -1) {
+			return this;
+		}
+
+		int count = patterns.length - 1;
+		String[] newPatterns = new String[count];
+		Level[] newLevels = new Level[count];
+		System.arraycopy(patterns, 0, newPatterns, 0, index);
+		System.arraycopy(patterns, index + 1, newPatterns, index, count - index);
+		System.arraycopy(levels, 0, newLevels, 0, index);
+		System.arraycopy(levels, index + 1, newLevels, index, count - index);
+
+		return count == 0 ? NONE : new LevelRules(newPatterns, newLevels);
+	}
+
+	/**
+	 * Check if there are any rules.
+	 */
+	boolean isEmpty() {
+		return patterns.length == 0;
+	}
+
+	/**
+	 * Get the level of the rule that matches the logger name best.
+	 * 
+	 * @param loggerName
+	 *            the name of the logger.
+	 * @return the level, or <code>null</code> if no rule matches.
+	 */
+	Level match(String loggerName) {
+		if (patterns.length == 0 || loggerName.length() == 0) {
+			return null;
+		}
+
+		TrieNode best = match(root, LoggerNamesUtil.getLoggerNameComponents(loggerName), 0, null);
+		return best == null ? null : best.level;
+	}
+
+	private static TrieNode match(TrieNode node, String[] components, int index, TrieNode best) {
+		if (index == components.length) {
+			return node.level != null && isBetter(node, best) ? node : best;
+		}
+
+		if (node.literalChildren != null) {
+			TrieNode child = node.literalChildren.get(components[index]);
+			if (child != null) {
+				best = match(child, components, index + 1, best);
+			}
+		}
+
+		if (node.wildcardChild != null) {
+			// The wildcard consumes one or more components
+			for (int next = index + 1; next <= components.length; next++) {
+				best = match(node.wildcardChild, components, next, best);
+			}
+		}
+
+		return best;
+	}
+
+	private static boolean isBetter(TrieNode candidate, TrieNode best) {
+		return best == null || candidate.literals > best.literals
+				|| (candidate.literals == best.literals && candidate.order > best.order);
+	}
+
+	private int indexOf(String pattern) {
+		for (int index = 0; index < patterns.length; index++) {
+			if (patterns[index].equals(pattern)) {
+				return index;
+			}
+		}
+
+		return -1;
+	}
+
+	private static void checkPattern(String pattern) throws IllegalArgumentException {
+		if (pattern == null || pattern.length() == 0) {
+			throw new IllegalArgumentException("The pattern must not be null or empty.");
+		}
+
+		String[] components = LoggerNamesUtil.getLoggerNameComponents(pattern);
+		if (components.length == 0 || LoggerNamesUtil.getPathEnd(pattern) != pattern.length()) {
+			throw new IllegalArgumentException("The pattern must not end with a dot: " + pattern);
+		}
+
+		for (String component : components) {
+			if (component.length() == 0) {
+				throw new IllegalArgumentException("The pattern must not have empty components: " + pattern);
+			}
+			if (component.indexOf('*') != -1 && !WILDCARD.equals(component)) {
+				throw new IllegalArgumentException("A wildcard must be a whole component: " + pattern);
+			}
+		}
+	}
+
+	/**
+	 * A node in the trie of the rule patterns.
+	 */
+	private static final class TrieNode {
+		Map<String, TrieNode> literalChildren;
+		TrieNode wildcardChild;
+		Level level;
+		int order;
+		int literals;
+	}
+}
@@ -6,8 +6,90 @@ public enum LoggerNamesUtil {
 	
 	private static final String EMPTY = "";
 	
+	private static final String[] NO_COMPONENTS = new String[0];
+	
+	/**
+	 * Split the logger name into its path components. The result is the same
+	 * as for <code>loggerName.split("\\.")</code>, but the name is scanned
+	 * without a regular expression and the components are interned.
+	 * 
+	 * @param loggerName
+	 *            the name to split.
+	 * @return the path components of the name.
+	 */
 	public static String[] getLoggerNameComponents(final String loggerName) {
-		return loggerName.split("\\.");
+		final int pathEnd = getPathEnd(loggerName);
+		if (pathEnd == 0 && loggerName.length() > 0) {
+			return NO_COMPONENTS;
+		}
+
+		int count = 1;
+		for (int index = loggerName.indexOf('.'); index != -1 && index < pathEnd; index = loggerName.indexOf('.',
+				index + 1)) {
+			count++;
+		}
+
+		final String[] pathComponents = new String[count];
+		int start = 0;
+		for (int componentNo = 0; componentNo < count; componentNo++) {
+			final int end = getComponentEnd(loggerName, start, pathEnd);
+			pathComponents[componentNo] = getComponent(loggerName, start, end);
+			start = end + 1;
+		}
+
+		return pathComponents;
+	}
+
+	/**
+	 * Get the end of the last path component of the name, i.e. the length of
+	 * the name without any trailing dots.
+	 * 
+	 * @param loggerName
+	 *            the logger name.
+	 * @return the end index of the path.
+	 */
+	public static int getPathEnd(final String loggerName) {
+		int pathEnd = loggerName.length();
+		while (pathEnd > 0 && loggerName.charAt(pathEnd - 1) == '.') {
+			pathEnd--;
+		}
+
+		return pathEnd;
+	}
+
+	/**
+	 * Get the end of the path component that starts at the specified index.
+	 * 
+	 * @param loggerName
+	 *            the logger name.
+	 * @param start
+	 *            the start index of the path component.
+	 * @param pathEnd
+	 *            the end of the path, as returned by
+	 *            {@link #getPathEnd(String)}.
+	 * @return the index of the next dot, or <code>pathEnd</code> for the last
+	 *         component.
+	 */
+	public static int getComponentEnd(final String loggerName, final int start, final int pathEnd) {
+		final int end = loggerName.indexOf('.', start);
+
+		return end == -1 || end > pathEnd ? pathEnd : end;
+	}
+
+	/**
+	 * Get an interned copy of a path component. Logger names share most of
+	 * their components, so the nodes of the tree can share the strings.
+	 * 
+	 * @param loggerName
+	 *            the logger name.
+	 * @param start
+	 *            the start index of the path component.
+	 * @param end
+	 *            the end index of the path component.
+	 * @return the path component.
+	 */
+	public static String getComponent(final String loggerName, final int start, final int end) {
+		return loggerName.substring(start, end).intern();
 	}
 	
 	public static String getClassName(final String[] pathComponents) {
@@ -20,4 +102,24 @@ public enum LoggerNamesUtil {
 		
 		return classNames;
 	}
+
+	/**
+	 * Get the full name of a child logger.
+	 * 
+	 * @param parentName
+	 *            the full name of the parent, the empty string for the root.
+	 * @param childName
+	 *            the last part of the child's name.
+	 * @return the full name of the child.
+	 */
+	public static String getChildName(final String parentName, final String childName) {
+		final String fullName;
+		if (parentName.length() == 0) {
+			fullName = childName;
+		} else {
+			fullName = parentName + '.' + childName;
+		}
+
+		return fullName;
+	}
 }
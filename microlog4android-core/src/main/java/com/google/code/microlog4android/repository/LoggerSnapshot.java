@@ -0,0 +1,88 @@
+/*
+ * Copyright 2010 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.repository;
+
+import com.google.code.microlog4android.Level;
+
+/**
+ * The levels of a node in the logger tree at the time a snapshot was taken.
+ * 
+ * @author Johan Karlsson
+ * @see DefaultLoggerRepository#getSnapshot()
+ */
+public final class LoggerSnapshot {
+	private final String name;
+
+	private final Level level;
+
+	private final Level ruleLevel;
+
+	private final Level effectiveLevel;
+
+	LoggerSnapshot(String name, Level level, Level ruleLevel, Level effectiveLevel) {
+		this.name = name;
+		this.level = level;
+		this.ruleLevel = ruleLevel;
+		this.effectiveLevel = effectiveLevel;
+	}
+
+	/**
+	 * Get the name of the logger. The root logger has the empty name.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Get the level that was set on the logger.
+	 * 
+	 * @return the level, or <code>null</code> if no level was set.
+	 */
+	public Level getLevel() {
+		return level;
+	}
+
+	/**
+	 * Get the level of the level rule that matched the logger.
+	 * 
+	 * @return the level, or <code>null</code> if no rule matched.
+	 */
+	public Level getRuleLevel() {
+		return ruleLevel;
+	}
+
+	/**
+	 * Get the effective level of the logger.
+	 */
+	public Level getEffectiveLevel() {
+		return effectiveLevel;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		StringBuilder builder = new StringBuilder(name.length() + 32);
+		builder.append(name.length() == 0 ? "<root>" : name).append(' ').append(effectiveLevel);
+
+		if (level != null) {
+			builder.append(" (level ").append(level).append(')');
+		} else if (ruleLevel != null) {
+			builder.append(" (rule ").append(ruleLevel).append(')');
+		}
+
+		return builder.toString();
+	}
+}
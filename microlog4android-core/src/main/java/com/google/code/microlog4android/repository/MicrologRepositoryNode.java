@@ -15,7 +15,10 @@
 
 package com.google.code.microlog4android.repository;
 
-import java.util.Hashtable;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
 
 import com.google.code.microlog4android.Level;
 import com.google.code.microlog4android.Logger;
@@ -24,15 +27,53 @@ import com.google.code.microlog4android.Logger;
 
 
 /**
+ * A node in the logger name trie.
+ * 
+ * Most nodes have one to three children, so the children are kept in an
+ * immutable array that is replaced when a child is added. Up to
+ * <code>MAX_LINEAR_CHILDREN</code> children are searched linearly, a larger
+ * array is an open addressing hash table. The children are found without
+ * locking and a part of a logger name can be looked up without creating a
+ * substring.
+ * 
+ * A node can hold its logger weakly, so that an unused logger is reclaimed by
+ * the garbage collector and the node can be removed from the tree. A node is
+ * pinned, i.e. holds its logger strongly, once the logger has been
+ * configured.
+ * 
+ * A node also holds the level of the level rule that matches its name. It is
+ * kept when the logger is reclaimed, and is used when the logger has no level
+ * of its own.
+ * 
  * @author Johan Karlsson (johan.karlsson@jayway.se)
  * 
  */
 public class MicrologRepositoryNode extends AbstractRepositoryNode {
-	private MicrologRepositoryNode parent = null;
+	private static final MicrologRepositoryNode[] NO_CHILDREN = new MicrologRepositoryNode[0];
+
+	static final int MAX_LINEAR_CHILDREN = 8;
+
+	private volatile MicrologRepositoryNode parent = null;
 
-	private Hashtable<String, MicrologRepositoryNode> children = new Hashtable<String, MicrologRepositoryNode>(17);
+	private volatile MicrologRepositoryNode[] children = NO_CHILDREN;
 
-	private Logger logger;
+	private int childCount;
+
+	private int hash;
+
+	private volatile Logger logger;
+
+	/**
+	 * The weak reference to the logger, if the node is evictable. It is kept
+	 * when the logger is held strongly again.
+	 */
+	private volatile LoggerReference loggerReference;
+
+	private volatile Level ruleLevel;
+
+	private boolean pinned;
+
+	private boolean removed;
 
 	/**
 	 * Create a <code>TreeNode</code> with the specified name and the
@@ -46,43 +87,483 @@ public class MicrologRepositoryNode extends AbstractRepositoryNode {
 	 */
 	public MicrologRepositoryNode(String name, Logger logger) {
 		this.name = name;
+		this.hash = name.hashCode();
 		this.logger = logger;
 	}
 	
+	/**
+	 * Create a <code>TreeNode</code> with the specified name and a new
+	 * <code>Logger</code>, named after the full path of the node.
+	 * 
+	 * @param name
+	 *            the name of the <code>TreeNode</code>, i.e. the last part of
+	 *            the logger name.
+	 * @param parent
+	 *            the parent node.
+	 */
 	public MicrologRepositoryNode(String name, MicrologRepositoryNode parent) {
 		this.name = name;
+		this.hash = name.hashCode();
 		this.parent = parent;
-		this.logger = new Logger(name);
+		this.logger = new Logger(LoggerNamesUtil.getChildName(parent.getFullName(), name));
 		logger.setCommonRepository(DefaultLoggerRepository.INSTANCE);
 	}
 	
 	public MicrologRepositoryNode(String name, Logger logger, MicrologRepositoryNode parent) {
 		this.name = name;
+		this.hash = name.hashCode();
 		this.logger = logger;
 		this.parent = parent;
 	}
 
 
-	public void addChild(MicrologRepositoryNode child) {
-		children.put(child.getName(), child);
+	@Override
+	public void setName(String name) {
+		this.name = name;
+		this.hash = name.hashCode();
+	}
+
+	/**
+	 * Add the child, replacing any child with the same name.
+	 * 
+	 * @param child
+	 *            the child to add.
+	 */
+	public synchronized void addChild(MicrologRepositoryNode child) {
+		MicrologRepositoryNode[] currentChildren = children;
+		String childName = child.getName();
+
+		for (int index = 0; index < currentChildren.length; index++) {
+			MicrologRepositoryNode existingChild = currentChildren[index];
+			if (existingChild != null && existingChild.getName().equals(childName)) {
+				MicrologRepositoryNode[] newChildren = currentChildren.clone();
+				newChildren[index] = child;
+				children = newChildren;
+				return;
+			}
+		}
+
+		insertChild(child);
+	}
+
+	/**
+	 * Add the child unless there already is a child with the same name.
+	 * 
+	 * @param child
+	 *            the child to add.
+	 * @return the child that is in the tree, i.e. the existing child if there
+	 *         was one, otherwise the added child.
+	 */
+	public synchronized MicrologRepositoryNode addChildIfAbsent(MicrologRepositoryNode child) {
+		if (removed) {
+			// Evicted in the meantime, the caller has to look up the path again
+			return null;
+		}
+
+		String childName = child.getName();
+		MicrologRepositoryNode existingChild = getChildNode(childName, 0, childName.length());
+
+		if (existingChild != null) {
+			return existingChild;
+		}
+
+		Logger childLogger = child.getLogger();
+		if (childLogger != null && getLogger() != null) {
+			Level childLevel = child.getOwnLevel();
+			childLogger.setEffectiveLevel(childLevel != null ? childLevel : getEffectiveLevel());
+		}
+		insertChild(child);
+
+		return child;
+	}
+
+	/**
+	 * Set the effective level of the logger of this node, i.e. its own level
+	 * or the level of its level rule, or the inherited level if it has
+	 * neither. This is
+	 * synchronized with <code>addChildIfAbsent()</code>, so that a child that
+	 * is added at the same time inherits the new effective level.
+	 * 
+	 * @param inheritedLevel
+	 *            the effective level of the parent.
+	 * @return the children of this node, possibly with <code>null</code>
+	 *         elements.
+	 */
+	synchronized MicrologRepositoryNode[] inheritLevel(Level inheritedLevel) {
+		Logger currentLogger = getLogger();
+
+		if (currentLogger != null) {
+			Level level = getOwnLevel();
+			currentLogger.setEffectiveLevel(level != null ? level : inheritedLevel);
+		}
+
+		return children;
+	}
+
+	/**
+	 * Remove the child, if it is a child of this node.
+	 * 
+	 * @param child
+	 *            the child to remove.
+	 */
+	synchronized void removeChild(MicrologRepositoryNode child) {
+		MicrologRepositoryNode[] currentChildren = children;
+		MicrologRepositoryNode[] remainingChildren = new MicrologRepositoryNode[childCount];
+		int remainingCount = 0;
+
+		for (MicrologRepositoryNode existingChild : currentChildren) {
+			if (existingChild != null && existingChild != child) {
+				remainingChildren[remainingCount++] = existingChild;
+			}
+		}
+
+		if (remainingCount == childCount) {
+			return;
+		}
+
+		childCount = 0;
+		children = NO_CHILDREN;
+		for (int index = 0; index < remainingCount; index++) {
+			insertChild(remainingChildren[index]);
+		}
+	}
+
+	/**
+	 * Publish a new child array with the child added. Must be called while
+	 * holding the lock of this node.
+	 */
+	private void insertChild(MicrologRepositoryNode child) {
+		MicrologRepositoryNode[] currentChildren = children;
+		MicrologRepositoryNode[] newChildren;
+		int newCount = childCount + 1;
+
+		if (newCount <= MAX_LINEAR_CHILDREN) {
+			newChildren = new MicrologRepositoryNode[newCount];
+			System.arraycopy(currentChildren, 0, newChildren, 0, childCount);
+			newChildren[childCount] = child;
+		} else {
+			// Keep the hash table at most half full
+			int capacity = MAX_LINEAR_CHILDREN * 4;
+			while (capacity < newCount * 2) {
+				capacity = capacity << 1;
+			}
+
+			if (capacity == currentChildren.length) {
+				newChildren = currentChildren.clone();
+			} else {
+				newChildren = new MicrologRepositoryNode[capacity];
+				for (MicrologRepositoryNode existingChild : currentChildren) {
+					if (existingChild != null) {
+						putHashed(newChildren, existingChild);
+					}
+				}
+			}
+			putHashed(newChildren, child);
+		}
+
+		childCount = newCount;
+		children = newChildren;
+	}
+
+	private static void putHashed(MicrologRepositoryNode[] table, MicrologRepositoryNode child) {
+		int mask = table.length - 1;
+		int index = spread(child.hash) & mask;
+
+		while (table[index] != null) {
+			index = (index + 1) & mask;
+		}
+		table[index] = child;
+	}
+
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
 	}
 
 	/**
 	 * @return the logger
 	 */
 	public Logger getLogger() {
-		return logger;
+		Logger currentLogger = logger;
+		if (currentLogger != null) {
+			return currentLogger;
+		}
+
+		LoggerReference reference = loggerReference;
+		return reference == null ? null : reference.get();
+	}
+
+	/**
+	 * @param logger
+	 *            the logger to set
+	 */
+	public synchronized void setLogger(Logger logger) {
+		this.logger = logger;
+	}
+
+	/**
+	 * Create a new logger for the node, after the previous one has been
+	 * reclaimed.
+	 * 
+	 * @param queue
+	 *            the queue to register a weak reference to the logger with, or
+	 *            <code>null</code> to hold the logger strongly.
+	 * @return the new <code>Logger</code>.
+	 */
+	Logger createLogger(ReferenceQueue<Logger> queue) {
+		Logger newLogger = new Logger(getFullName());
+		newLogger.setCommonRepository(DefaultLoggerRepository.INSTANCE);
+
+		synchronized (this) {
+			MicrologRepositoryNode currentParent = parent;
+			if (ruleLevel != null) {
+				newLogger.setEffectiveLevel(ruleLevel);
+			} else {
+				newLogger.setEffectiveLevel(currentParent == null ? Logger.DEFAULT_LOG_LEVEL : currentParent
+						.getEffectiveLevel());
+			}
+
+			if (queue == null) {
+				logger = newLogger;
+			} else {
+				loggerReference = new LoggerReference(newLogger, this, queue);
+			}
+		}
+
+		return newLogger;
+	}
+
+	/**
+	 * Get the level of the node, i.e. the level of its logger, or the level of
+	 * its level rule if the logger has no level or has been reclaimed.
+	 * 
+	 * @return the level, or <code>null</code> if the node inherits its level.
+	 */
+	Level getOwnLevel() {
+		Logger currentLogger = getLogger();
+		Level level = currentLogger == null ? null : currentLogger.getLevel();
+
+		return level != null ? level : ruleLevel;
+	}
+
+	/**
+	 * Get the level of the level rule that matches the name of the node.
+	 * 
+	 * @return the level, or <code>null</code> if no rule matches.
+	 */
+	Level getRuleLevel() {
+		return ruleLevel;
+	}
+
+	/**
+	 * Set the level of the level rule that matches the name of the node. The
+	 * effective levels are not updated.
+	 * 
+	 * @param ruleLevel
+	 *            the level, or <code>null</code> if no rule matches.
+	 */
+	void setRuleLevel(Level ruleLevel) {
+		this.ruleLevel = ruleLevel;
+	}
+
+	/**
+	 * Hold the logger weakly, unless the node is pinned.
+	 * 
+	 * @param queue
+	 *            the queue to register the weak reference with.
+	 */
+	synchronized void makeEvictable(ReferenceQueue<Logger> queue) {
+		Logger currentLogger = logger;
+
+		if (!pinned && currentLogger != null) {
+			loggerReference = new LoggerReference(currentLogger, this, queue);
+			logger = null;
+		}
+	}
+
+	/**
+	 * Hold the logger strongly again, if it has not been reclaimed.
+	 */
+	synchronized void makeStrong() {
+		if (logger == null && loggerReference != null) {
+			logger = loggerReference.get();
+		}
+	}
+
+	/**
+	 * Hold the logger strongly for good, since it has been configured.
+	 */
+	synchronized void pin() {
+		pinned = true;
+		makeStrong();
+	}
+
+	/**
+	 * Mark the node as removed if it may be evicted, i.e. if it is not
+	 * pinned, has no children and its logger has been reclaimed.
+	 * 
+	 * @return <code>true</code> if the node shall be removed from the tree.
+	 */
+	synchronized boolean markRemovedIfUnused() {
+		if (pinned || removed || childCount > 0 || parent == null || getLogger() != null) {
+			return false;
+		}
+
+		removed = true;
+		return true;
+	}
+
+	/**
+	 * Check if the node has been removed from the tree.
+	 */
+	synchronized boolean isRemoved() {
+		return removed;
+	}
+
+	/**
+	 * Get the effective level of the closest node that has a logger or a rule
+	 * level, i.e. the level that a new logger of a child of this node would
+	 * inherit.
+	 */
+	Level getEffectiveLevel() {
+		for (MicrologRepositoryNode node = this; node != null; node = node.parent) {
+			Logger nodeLogger = node.getLogger();
+
+			if (nodeLogger != null) {
+				return nodeLogger.getEffectiveLevel();
+			}
+			if (node.ruleLevel != null) {
+				return node.ruleLevel;
+			}
+		}
+
+		return Logger.DEFAULT_LOG_LEVEL;
+	}
+
+	/**
+	 * Get the full logger name of the node. It is the name of the logger, or
+	 * built from the names of the nodes on the path from the root if the
+	 * logger has been reclaimed.
+	 */
+	String getFullName() {
+		Logger currentLogger = getLogger();
+		if (currentLogger != null) {
+			return currentLogger.getName();
+		}
+
+		return parent == null ? name : LoggerNamesUtil.getChildName(parent.getFullName(), name);
+	}
+
+	/**
+	 * Get an estimate of the memory used by this node, its child table and
+	 * its logger, in bytes. The estimate assumes compressed references and
+	 * does not include the appenders.
+	 */
+	int getEstimatedSize() {
+		int size = 48 + 16 + 4 * children.length;
+		size += 40 + 2 * name.length();
+
+		Logger currentLogger = getLogger();
+		if (currentLogger != null) {
+			size += 88 + 2 * currentLogger.getName().length();
+		}
+
+		if (loggerReference != null) {
+			size += 40;
+		}
+
+		return size;
 	}
 
 	public MicrologRepositoryNode getChildNode(String name) {
-		return children.get(name);
+		return getChildNode(name, 0, name.length());
+	}
+
+	/**
+	 * Get the child that is named after a part of a logger name.
+	 * 
+	 * @param loggerName
+	 *            the logger name.
+	 * @param start
+	 *            the start index of the child name.
+	 * @param end
+	 *            the end index of the child name.
+	 * @return the child, or <code>null</code> if there is no such child.
+	 */
+	public MicrologRepositoryNode getChildNode(String loggerName, int start, int end) {
+		MicrologRepositoryNode[] currentChildren = children;
+		int length = end - start;
+
+		if (currentChildren.length <= MAX_LINEAR_CHILDREN) {
+			for (MicrologRepositoryNode child : currentChildren) {
+				if (child.matches(loggerName, start, length)) {
+					return child;
+				}
+			}
+			return null;
+		}
+
+		int regionHash = 0;
+		for (int index = start; index < end; index++) {
+			regionHash = 31 * regionHash + loggerName.charAt(index);
+		}
+
+		int mask = currentChildren.length - 1;
+		int index = spread(regionHash) & mask;
+		MicrologRepositoryNode child;
+		while ((child = currentChildren[index]) != null) {
+			if (child.hash == regionHash && child.matches(loggerName, start, length)) {
+				return child;
+			}
+			index = (index + 1) & mask;
+		}
+
+		return null;
+	}
+
+	private boolean matches(String loggerName, int start, int length) {
+		return name.length() == length && name.regionMatches(0, loggerName, start, length);
+	}
+
+	/**
+	 * @return the children of this node
+	 */
+	public Enumeration<MicrologRepositoryNode> getChildren() {
+		final MicrologRepositoryNode[] currentChildren = children;
+
+		return new Enumeration<MicrologRepositoryNode>() {
+			private int index = skipEmpty(0);
+
+			public boolean hasMoreElements() {
+				return index < currentChildren.length;
+			}
+
+			public MicrologRepositoryNode nextElement() {
+				if (index >= currentChildren.length) {
+					throw new NoSuchElementException();
+				}
+
+				MicrologRepositoryNode child = currentChildren[index];
+				index = skipEmpty(index + 1);
+				return child;
+			}
+
+			private int skipEmpty(int from) {
+				while (from < currentChildren.length && currentChildren[from] == null) {
+					from++;
+				}
+				return from;
+			}
+		};
 	}
 	
 	/**
 	 * Remove all the children.
 	 */
 	public void resetLogger(){
-		children.clear();
+		synchronized (this) {
+			children = NO_CHILDREN;
+			childCount = 0;
+		}
 		logger.resetLogger();
 		logger.setLevel(Level.DEBUG);
 	}
@@ -100,4 +581,29 @@ public class MicrologRepositoryNode extends AbstractRepositoryNode {
 	public void setParent(MicrologRepositoryNode parent) {
 		this.parent = parent;
 	}
+
+	/**
+	 * A weak reference to the logger of a node, which is queued when the
+	 * logger has been reclaimed.
+	 */
+	private static final class LoggerReference extends WeakReference<Logger> {
+		final MicrologRepositoryNode node;
+
+		LoggerReference(Logger logger, MicrologRepositoryNode node, ReferenceQueue<Logger> queue) {
+			super(logger, queue);
+			this.node = node;
+		}
+	}
+
+	/**
+	 * Get the node whose logger the reference referred to.
+	 * 
+	 * @param reference
+	 *            a reference that has been taken from the queue.
+	 * @return the node, or <code>null</code> if it is not a reference created
+	 *         by a node.
+	 */
+	static MicrologRepositoryNode getNode(Object reference) {
+		return reference instanceof LoggerReference ? ((LoggerReference) reference).node : null;
+	}
 }
@@ -1,12 +1,14 @@
 package org.slf4j.impl;
 
 import org.slf4j.helpers.MarkerIgnoringBase;
-import org.slf4j.impl.repository.Slf4jLoggerRepository;
 
 import com.google.code.microlog4android.Level;
 import com.google.code.microlog4android.Logger;
+import com.google.code.microlog4android.repository.DefaultLoggerRepository;
 
 /**
+ * An SLF4J view of a Microlog <code>Logger</code>. Two adapters are equal if
+ * they adapt the same <code>Logger</code>.
  * 
  * @author Jarle Hansen (hansjar@gmail.com)
  *
@@ -20,12 +22,17 @@ public class MicrologLoggerAdapter extends MarkerIgnoringBase {
 	public MicrologLoggerAdapter(final Logger logger) {
 		this.logger = logger;
 		this.name = logger.getName();
-		logger.setCommonRepository(Slf4jLoggerRepository.INSTANCE);
 	}
 
+	/**
+	 * Create an adapter for the logger with the specified name in the
+	 * <code>DefaultLoggerRepository</code>.
+	 * 
+	 * @param name
+	 *            the name of the logger.
+	 */
 	public MicrologLoggerAdapter(final String name) {
-		logger = new Logger(name, Slf4jLoggerRepository.INSTANCE);
-		this.name = name;
+		this(DefaultLoggerRepository.INSTANCE.getLogger(name));
 	}
 	
 	public Logger getMicrologLogger() {
@@ -45,18 +52,15 @@ public class MicrologLoggerAdapter extends MarkerIgnoringBase {
 	}
 
 	public void trace(final String format, final Object param1) {
-		// TODO trace format + object
-		throw new UnsupportedOperationException("trace(String, Object) is not implemented yet");
+		logger.trace(format, param1);
 	}
 
 	public void trace(final String format, final Object param1, final Object param2) {
-		// TODO trace format + multiple objects
-		throw new UnsupportedOperationException("trace(String, Object, Object) is not implemented yet");
+		logger.trace(format, param1, param2);
 	}
 	
 	public void trace(final String format, final Object[] argArray) {
-		// TODO trace format + object array
-		throw new UnsupportedOperationException("trace(String, Object[]) is not implemented yet");
+		logger.trace(format, argArray);
 	}
 
 	public void trace(final String msg, final Throwable t) {
@@ -72,18 +76,15 @@ public class MicrologLoggerAdapter extends MarkerIgnoringBase {
 	}
 
 	public void debug(final String format, final Object arg1) {
-		// TODO debug format + object
-		throw new UnsupportedOperationException("debug(String, Object) is not implemented yet");
+		logger.debug(format, arg1);
 	}
 
 	public void debug(final String format, final Object param1, final Object param2) {
-		// TODO debug format + multiple objects
-		throw new UnsupportedOperationException("debug(String, Object, Object) is not implemented yet");
+		logger.debug(format, param1, param2);
 	}
 
 	public void debug(final String format, final Object[] argArray) {
-		// TODO debug format + object array
-		throw new UnsupportedOperationException("debug(String, Object[]) is not implemented yet");
+		logger.debug(format, argArray);
 	}
 
 	public void debug(final String msg, final Throwable t) {
@@ -99,18 +100,15 @@ public class MicrologLoggerAdapter extends MarkerIgnoringBase {
 	}
 
 	public void info(final String format, final Object arg) {
-		// TODO info format + object
-		throw new UnsupportedOperationException("info(String, Object) is not implemented yet");
+		logger.info(format, arg);
 	}
 
 	public void info(final String format, final Object arg1, final Object arg2) {
-		// TODO info format + multiple objects
-		throw new UnsupportedOperationException("info(String, Object, Object) is not implemented yet");
+		logger.info(format, arg1, arg2);
 	}
 
 	public void info(final String format, final Object[] argArray) {
-		// TODO info format + object array
-		throw new UnsupportedOperationException("info(String, Object[]) is not implemented yet");
+		logger.info(format, argArray);
 	}
 
 	public void info(final String msg, final Throwable t) {
@@ -126,17 +124,15 @@ public class MicrologLoggerAdapter extends MarkerIgnoringBase {
 	}
 
 	public void warn(final String format, final Object arg) {
-		// TODO warn format + object
-		throw new UnsupportedOperationException("warn(String, Object) is not implemented yet");
+		logger.warn(format, arg);
 	}
 
 	public void warn(final String format, final Object arg1, final Object arg2) {
-		// TODO warn format + multiple objects
-		throw new UnsupportedOperationException("warn(String, Object, Object) is not implemented yet");
+		logger.warn(format, arg1, arg2);
 	}
 
 	public void warn(final String format, final Object[] argArray) {
-		// TODO warn format + object array
+		logger.warn(format, argArray);
 	}
 
 	public void warn(final String msg, final Throwable t) {
@@ -152,18 +148,15 @@ public class MicrologLoggerAdapter extends MarkerIgnoringBase {
 	}
 
 	public void error(final String format, final Object arg) {
-		// TODO error format + object
-		throw new UnsupportedOperationException("error(String, Object) is not implemented yet");
+		logger.error(format, arg);
 	}
 
 	public void error(final String format, final Object arg1, final Object arg2) {
-		// TODO error format + multiple objects
-		throw new UnsupportedOperationException("error(String, Object, Object) is not implemented yet");
+		logger.error(format, arg1, arg2);
 	}
 
 	public void error(final String format, final Object[] argArray) {
-		// TODO error format + object array
-		throw new UnsupportedOperationException("error(String, Object[]) is not implemented yet");
+		logger.error(format, argArray);
 	}
 
 	public void error(final String msg, final Throwable t) {
@@ -173,5 +166,15 @@ public class MicrologLoggerAdapter extends MarkerIgnoringBase {
 	private boolean isLoggerEnabled(final Level level) {
 		return logger.getEffectiveLevel().toInt() <= level.toInt();
 	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		return obj instanceof MicrologLoggerAdapter && ((MicrologLoggerAdapter) obj).logger == logger;
+	}
+
+	@Override
+	public int hashCode() {
+		return logger.hashCode();
+	}
 	
 }
@@ -14,187 +14,102 @@
  */
 package org.slf4j.impl.repository;
 
-import java.io.IOException;
-import java.util.Enumeration;
-import java.util.Hashtable;
-
 import org.slf4j.ILoggerFactory;
 import org.slf4j.Logger;
 import org.slf4j.impl.MicrologLoggerAdapter;
 
 import com.google.code.microlog4android.Level;
-import com.google.code.microlog4android.repository.CommonLoggerRepository;
-import com.google.code.microlog4android.repository.LoggerNamesUtil;
+import com.google.code.microlog4android.repository.DefaultLoggerRepository;
 
 /**
- * The <code>LoggerRepository</code> creates and contains all
- * <code>Logger</code> object(s).
+ * The <code>Slf4jLoggerRepository</code> gives SLF4J access to the loggers of
+ * the <code>DefaultLoggerRepository</code>. There is only one tree of loggers,
+ * so the levels, appenders and additivity are the same whether a logger is
+ * used through SLF4J or through Microlog. The SLF4J loggers are thin adapters
+ * that are created on demand and kept on the Microlog logger, so that each
+ * logger gets one adapter.
  * 
  * @author Johan Karlsson (johan.karlsson@jayway.se)
  * @author Jarle Hansen (hansjar@gmail.com)
  * @since 0.1
  * 
  */
-public enum Slf4jLoggerRepository implements ILoggerFactory, CommonLoggerRepository {
+public enum Slf4jLoggerRepository implements ILoggerFactory {
 	INSTANCE;
 
-	private Slf4jRepositoryNode rootNode;
-	private Hashtable<String, Slf4jRepositoryNode> leafNodeHashtable = new Hashtable<String, Slf4jRepositoryNode>(43);
-
-	/**
-	 * Create a <code>LoggerRepository</code>.
-	 */
-	private Slf4jLoggerRepository() {
-		MicrologLoggerAdapter rootLogger = new MicrologLoggerAdapter("");
-		rootLogger.getMicrologLogger().setLevel(Level.DEBUG);
-		rootNode = new Slf4jRepositoryNode("", rootLogger);
-	}
+	private final DefaultLoggerRepository hierarchy = DefaultLoggerRepository.INSTANCE;
 
 	/**
-	 * @see com.google.code.microlog4android.config.LoggerRepository#getRootLogger()
+	 * @see com.google.code.microlog4android.repository.LoggerRepository#getRootLogger()
 	 */
 	public Logger getRootLogger() {
-		return rootNode.getLogger();
+		return getAdapter(hierarchy.getRootLogger());
 	}
 
 	/**
-	 * @see com.google.code.microlog4android.config.LoggerRepository#getLogger(java.lang.String)
+	 * @see org.slf4j.ILoggerFactory#getLogger(java.lang.String)
 	 */
-	public synchronized Logger getLogger(String name) {
-		Slf4jRepositoryNode node = leafNodeHashtable.get(name);
-		MicrologLoggerAdapter logger = null;
-
-		if (node == null) {
-			logger = new MicrologLoggerAdapter(name);
-			addLogger(logger);
-		} else {
-			logger = node.getLogger();
-		}
-		
-		return logger;
+	public Logger getLogger(String name) {
+		return getAdapter(hierarchy.getLogger(name));
 	}
 
 	/**
-	 * Adds the specified <code>Logger</code> to the tree.
-	 * 
-	 * @param logger
-	 *            the <code>Logger</code> to add.
+	 * Get the adapter that is kept on the logger, or create it the first
+	 * time.
 	 */
-	void addLogger(MicrologLoggerAdapter logger) {
-		String loggerName = logger.getName();
-
-		Slf4jRepositoryNode currentNode = rootNode;
-		String[] pathComponents = LoggerNamesUtil.getLoggerNameComponents(loggerName);
-		for (String pathComponent : pathComponents) {
-			Slf4jRepositoryNode child = currentNode.getChildNode(pathComponent);
-
-			if (child == null) {
-				// No child => add the child
-				currentNode = createNewChildNode(pathComponent, currentNode);
-			}
+	private static Logger getAdapter(com.google.code.microlog4android.Logger logger) {
+		Object adapter = logger.getAdapter();
+		if (adapter instanceof MicrologLoggerAdapter) {
+			return (MicrologLoggerAdapter) adapter;
 		}
 
-		// Add the leaf node
-		if (pathComponents.length > 0) {
-			String leafName = LoggerNamesUtil.getClassName(pathComponents);
-			Slf4jRepositoryNode leafNode = new Slf4jRepositoryNode(leafName, logger, currentNode);
-			currentNode.addChild(leafNode);
-			leafNodeHashtable.put(loggerName, leafNode);
-		}
+		MicrologLoggerAdapter newAdapter = new MicrologLoggerAdapter(logger);
+		logger.setAdapter(newAdapter);
+
+		return newAdapter;
 	}
 
 	/**
-	 * @see com.google.code.microlog4android.config.LoggerRepository#setLevel(java.lang.String,
+	 * @see com.google.code.microlog4android.repository.LoggerRepository#setLevel(java.lang.String,
 	 *      com.google.code.microlog4android.Level)
 	 */
 	public void setLevel(String name, Level level) {
-		// Check if name the name is a leaf node
-		Slf4jRepositoryNode leafNode = leafNodeHashtable.get(name);
-
-		if (leafNode != null) {
-			leafNode.getLogger().getMicrologLogger().setLevel(level);
-		} else {
-			Slf4jRepositoryNode currentNode = rootNode;
-			String[] pathComponents = LoggerNamesUtil.getLoggerNameComponents(name);
-			for (String pathComponent : pathComponents) {
-				Slf4jRepositoryNode child = currentNode.getChildNode(pathComponent);
-
-				if (child == null) {
-					// No child => add the child
-					currentNode = createNewChildNode(pathComponent, currentNode);
-				}
-			}
-
-			if (currentNode != null) {
-				currentNode.getLogger().getMicrologLogger().setLevel(level);
-			}
-		}
-	}
-
-	private Slf4jRepositoryNode createNewChildNode(final String pathComponent, final Slf4jRepositoryNode currentNode) {
-		Slf4jRepositoryNode newChild = new Slf4jRepositoryNode(pathComponent, currentNode);
-		currentNode.addChild(newChild);
-
-		return newChild;
+		hierarchy.setLevel(name, level);
 	}
 
 	/**
-	 * @see com.google.code.microlog4android.config.LoggerRepository#getEffectiveLevel(net.sf.microlog
-	 *      .core.Logger)
+	 * @see com.google.code.microlog4android.repository.CommonLoggerRepository#getEffectiveLevel(java.lang.String)
 	 */
 	public Level getEffectiveLevel(String loggerName) {
-		Level effectiveLevel = null;
-		Slf4jRepositoryNode currentNode = leafNodeHashtable.get(loggerName);
-
-		while (effectiveLevel == null && currentNode != null) {
-			MicrologLoggerAdapter micrologLoggerAdapter = currentNode.getLogger();
-			com.google.code.microlog4android.Logger logger = micrologLoggerAdapter.getMicrologLogger();
-			effectiveLevel = logger.getLevel();
-			currentNode = currentNode.getParent();
-		}
-		
-		return effectiveLevel;
+		return hierarchy.getEffectiveLevel(loggerName);
 	}
 
 	/**
-	 * @see com.google.code.microlog4android.config.LoggerRepository#contains(java.lang.String)
+	 * @see com.google.code.microlog4android.repository.LoggerRepository#contains(java.lang.String)
 	 */
 	public boolean contains(String name) {
-		return leafNodeHashtable.containsKey(name);
+		return hierarchy.contains(name);
 	}
 
 	/**
-	 * @see com.google.code.microlog4android.config.LoggerRepository#numberOfLeafNodes()
+	 * @see com.google.code.microlog4android.repository.LoggerRepository#numberOfLeafNodes()
 	 */
 	public int numberOfLeafNodes() {
-		return leafNodeHashtable.size();
+		return hierarchy.numberOfLeafNodes();
 	}
 
 	/**
-	 * Reset the tree.
+	 * Reset the tree, which is shared with Microlog.
 	 */
 	public void reset() {
-		rootNode.resetLogger();
-		leafNodeHashtable.clear();
+		hierarchy.reset();
 	}
 
 	/**
-	 * Shutdown the <code>LoggerRepository</code>, i.e. release all the
-	 * resources.
+	 * Shutdown the <code>LoggerRepository</code>, i.e. close all the loggers,
+	 * which are shared with Microlog.
 	 */
 	public void shutdown() {
-		Enumeration<Slf4jRepositoryNode> leafNodes = leafNodeHashtable.elements();
-
-		while (leafNodes.hasMoreElements()) {
-			Slf4jRepositoryNode node = leafNodes.nextElement();
-			MicrologLoggerAdapter logger = node.getLogger();
-
-			if (logger != null) {
-				try {
-					logger.getMicrologLogger().close();
-				} catch (IOException e) {
-				}
-			}
-		}
+		hierarchy.shutdown();
 	}
 }
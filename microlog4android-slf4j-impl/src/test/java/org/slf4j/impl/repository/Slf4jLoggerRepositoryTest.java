@@ -1,6 +1,8 @@
 package org.slf4j.impl.repository;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.After;
@@ -9,6 +11,7 @@ import org.junit.Test;
 import org.slf4j.Logger;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.repository.DefaultLoggerRepository;
 
 
 public class Slf4jLoggerRepositoryTest {
@@ -46,6 +49,14 @@ public class Slf4jLoggerRepositoryTest {
 		assertEquals(logger1, logger2);
 		assertEquals(1, slf4jLoggerRepository.numberOfLeafNodes());
 	}
+
+	@Test
+	public void testGetLoggerReturnsSameAdapter() {
+		Logger logger = slf4jLoggerRepository.getLogger(Slf4jLoggerRepositoryTest.class.getName());
+
+		assertSame(logger, slf4jLoggerRepository.getLogger(Slf4jLoggerRepositoryTest.class.getName()));
+		assertSame(slf4jLoggerRepository.getRootLogger(), slf4jLoggerRepository.getRootLogger());
+	}
 	
 	@Test
 	public void testSetLevelExistingLogger() {
@@ -54,4 +65,26 @@ public class Slf4jLoggerRepositoryTest {
 		
 		assertTrue(logger.isInfoEnabled());
 	}
+
+	@Test
+	public void testTreeSharedWithMicrolog() {
+		Logger logger = slf4jLoggerRepository.getLogger("com.acme.shared.Service");
+
+		DefaultLoggerRepository.INSTANCE.setLevel("com.acme.shared", Level.WARN);
+
+		assertFalse(logger.isInfoEnabled());
+		assertTrue(logger.isWarnEnabled());
+		assertTrue(DefaultLoggerRepository.INSTANCE.contains("com.acme.shared.Service"));
+	}
+
+	@Test
+	public void testReset() {
+		Logger logger = slf4jLoggerRepository.getLogger("com.acme.reset.Service");
+		slf4jLoggerRepository.setLevel("", Level.INFO);
+
+		slf4jLoggerRepository.reset();
+
+		assertTrue(slf4jLoggerRepository.getRootLogger().isDebugEnabled());
+		assertFalse(slf4jLoggerRepository.contains(logger.getName()));
+	}
 }